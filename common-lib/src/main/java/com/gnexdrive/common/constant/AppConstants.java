@@ -26,6 +26,8 @@ public final class AppConstants {
     
     // File Constraints
     public static final long MAX_FILE_SIZE = 100 * 1024 * 1024; // 100MB
+    public static final long DEFAULT_STORAGE_QUOTA = 15L * 1024 * 1024 * 1024; // 15GB per user
+    public static final int STREAM_BUFFER_SIZE = 64 * 1024; // 64KB per in-flight transfer
     public static final String[] ALLOWED_FILE_TYPES = {
         "image/jpeg", "image/png", "image/gif",
         "application/pdf", "application/msword",
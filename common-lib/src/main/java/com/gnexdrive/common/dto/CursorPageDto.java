@@ -0,0 +1,25 @@
+package com.gnexdrive.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of a cursor-paginated listing
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class CursorPageDto<T> {
+
+    private List<T> content;
+    private int size; // requested page size; the last page may hold fewer
+    private String nextPageToken; // opaque; absent on the last page
+    private Long totalElements; // only when requested, it costs a count query
+}
@@ -34,4 +34,7 @@ public class FileMetadataDto {
     
     private String checksum;
     private String status;  // Status as String: UPLOADING, UPLOADED, PROCESSING, AVAILABLE, DELETED, ERROR
+    private Integer version;  // Content version, starting at 1 and incremented by every new upload of the file
+    private String sharedWith;  // For display purposes
+    private String permission;  // User's permission on this file, in shared-with-me listings
 }
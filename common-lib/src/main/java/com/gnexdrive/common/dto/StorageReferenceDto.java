@@ -0,0 +1,26 @@
+package com.gnexdrive.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * How the file metadata records refer to one storage object
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StorageReferenceDto {
+
+    private String storagePath;
+    private long liveReferences; // files not marked as deleted
+    private long deletedReferences;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime lastDeletedAt; // null unless deletedReferences > 0
+}
@@ -35,6 +35,13 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage()));
     }
     
+    @ExceptionHandler(QuotaExceededException.class)
+    public ResponseEntity<ApiResponse<Object>> handleQuotaExceeded(QuotaExceededException ex) {
+        log.warn("Quota exceeded for user {}: {}", ex.getUserId(), ex.getMessage());
+        return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                .body(ApiResponse.error(ex.getMessage()));
+    }
+    
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<ApiResponse<Object>> handleIllegalArgument(IllegalArgumentException ex) {
         log.error("Invalid argument: {}", ex.getMessage());
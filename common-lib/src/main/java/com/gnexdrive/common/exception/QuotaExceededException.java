@@ -0,0 +1,31 @@
+package com.gnexdrive.common.exception;
+
+/**
+ * Thrown when storing a file would take a user over their storage quota
+ */
+public class QuotaExceededException extends RuntimeException {
+    
+    private final String userId;
+    private final long quotaBytes;
+    private final long usedBytes;
+    
+    public QuotaExceededException(String userId, long quotaBytes, long usedBytes, long requestedBytes) {
+        super(String.format("Storage quota exceeded: %d of %d bytes used, %d more requested",
+                usedBytes, quotaBytes, requestedBytes));
+        this.userId = userId;
+        this.quotaBytes = quotaBytes;
+        this.usedBytes = usedBytes;
+    }
+    
+    public String getUserId() {
+        return userId;
+    }
+    
+    public long getQuotaBytes() {
+        return quotaBytes;
+    }
+    
+    public long getUsedBytes() {
+        return usedBytes;
+    }
+}
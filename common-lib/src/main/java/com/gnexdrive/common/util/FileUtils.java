@@ -47,17 +47,38 @@ public class FileUtils {
      */
     public static String calculateChecksum(byte[] content) {
         try {
-            MessageDigest md = MessageDigest.getInstance("MD5");
-            byte[] digest = md.digest(content);
-            StringBuilder sb = new StringBuilder();
-            for (byte b : digest) {
-                sb.append(String.format("%02x", b));
-            }
-            return sb.toString();
+            return toHex(newChecksumDigest().digest(content));
+        } catch (IllegalStateException e) {
+            return "";
+        }
+    }
+    
+    /**
+     * Create a fresh MD5 digest for incremental checksum calculation,
+     * e.g. wrapped in a DigestInputStream while content is streamed elsewhere
+     * @return MD5 message digest
+     */
+    public static MessageDigest newChecksumDigest() {
+        try {
+            return MessageDigest.getInstance("MD5");
         } catch (NoSuchAlgorithmException e) {
             log.error("MD5 algorithm not found", e);
-            return "";
+            throw new IllegalStateException("MD5 algorithm not available", e);
+        }
+    }
+    
+    /**
+     * Encode a digest as a lowercase hexadecimal string
+     * @param digest raw digest bytes
+     * @return hexadecimal representation
+     */
+    public static String toHex(byte[] digest) {
+        StringBuilder sb = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            sb.append(Character.forDigit((b >> 4) & 0xF, 16))
+              .append(Character.forDigit(b & 0xF, 16));
         }
+        return sb.toString();
     }
     
     /**
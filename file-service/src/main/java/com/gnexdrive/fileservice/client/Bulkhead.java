@@ -0,0 +1,89 @@
+package com.gnexdrive.fileservice.client;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps concurrent calls to one downstream dependency.
+ * Without a bounded request thread pool (virtual threads) nothing else stops
+ * calls from piling up on MinIO or metadata-service, so each dependency gets
+ * its own permits; a caller that cannot get one in time is rejected.
+ */
+public class Bulkhead {
+
+    private final String name;
+    private final Semaphore permits;
+    private final int maxConcurrentCalls;
+    private final long acquireTimeoutMs;
+
+    public Bulkhead(String name, int maxConcurrentCalls, long acquireTimeoutMs) {
+        this.name = name;
+        this.permits = new Semaphore(maxConcurrentCalls, true);
+        this.maxConcurrentCalls = maxConcurrentCalls;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Wait for a call slot
+     * @throws RejectedExecutionException if none frees up within the acquire timeout
+     */
+    public Permit acquire() {
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Too many concurrent calls to " + name + ", retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a call slot on " + name);
+        }
+        return new Permit();
+    }
+
+    /**
+     * Keep the permit until the caller has finished reading the response stream
+     */
+    public InputStream holdUntilClosed(InputStream in, Permit permit) {
+        return new FilterInputStream(in) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    permit.close();
+                }
+            }
+        };
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrentCalls() {
+        return maxConcurrentCalls;
+    }
+
+    public int availablePermits() {
+        return permits.availablePermits();
+    }
+
+    /**
+     * A held call slot; closing it more than once releases it only once
+     */
+    public final class Permit implements AutoCloseable {
+
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
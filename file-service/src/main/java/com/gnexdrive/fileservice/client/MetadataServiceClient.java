@@ -1,54 +1,276 @@
 package com.gnexdrive.fileservice.client;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.gnexdrive.common.dto.ApiResponse;
 import com.gnexdrive.common.dto.FileMetadataDto;
-import lombok.RequiredArgsConstructor;
+import com.gnexdrive.common.dto.StorageReferenceDto;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpMethod;
-import org.springframework.http.ResponseEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
-import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
- * Client to call Metadata Service via API Gateway
+ * Non-blocking client for Metadata Service.
+ * Calls the service directly (not through the gateway) over pooled keep-alive
+ * connections. Concurrent lookups of the same file share one in-flight request,
+ * and requests on the wire are capped by the metadata bulkhead.
  */
 @Slf4j
 @Component
-@RequiredArgsConstructor
 public class MetadataServiceClient {
 
-    private final RestTemplate restTemplate;
+    private static final int MAX_BATCH_SIZE = 500;
+
+    private static final TypeReference<ApiResponse<FileMetadataDto>> METADATA_RESPONSE = new TypeReference<>() {};
+    private static final TypeReference<ApiResponse<List<FileMetadataDto>>> METADATA_LIST_RESPONSE = new TypeReference<>() {};
+    private static final TypeReference<ApiResponse<List<StorageReferenceDto>>> REFERENCE_LIST_RESPONSE = new TypeReference<>() {};
+    private static final TypeReference<ApiResponse<Map<String, Long>>> USAGE_RESPONSE = new TypeReference<>() {};
 
-    @Value("${metadata.service.url:http://localhost:8080}")
-    private String metadataServiceUrl;
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final Bulkhead metadataBulkhead;
+    private final String metadataServiceUrl;
+    private final Duration requestTimeout;
+    private final long cacheTtlMs;
+    private final int cacheMaxEntries;
+
+    /**
+     * Short-lived metadata cache so one request never resolves the same file twice.
+     * Kept brief because other replicas may change or delete the file meanwhile.
+     */
+    private final Map<String, CachedMetadata> metadataCache = new ConcurrentHashMap<>();
+
+    /**
+     * Lookups currently on the wire, keyed by fileId (single-flight)
+     */
+    private final Map<String, CompletableFuture<FileMetadataDto>> inFlight = new ConcurrentHashMap<>();
+
+    public MetadataServiceClient(ObjectMapper objectMapper,
+                                 @Qualifier("metadataBulkhead") Bulkhead metadataBulkhead,
+                                 @Value("${metadata.service.url:http://localhost:8082}") String metadataServiceUrl,
+                                 @Value("${metadata.client.connect-timeout-ms:5000}") long connectTimeoutMs,
+                                 @Value("${metadata.client.request-timeout-ms:10000}") long requestTimeoutMs,
+                                 @Value("${metadata.client.cache-ttl-ms:5000}") long cacheTtlMs,
+                                 @Value("${metadata.client.cache-max-entries:10000}") int cacheMaxEntries,
+                                 @Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        this.objectMapper = objectMapper;
+        this.metadataBulkhead = metadataBulkhead;
+        this.metadataServiceUrl = metadataServiceUrl;
+        this.requestTimeout = Duration.ofMillis(requestTimeoutMs);
+        this.cacheTtlMs = cacheTtlMs;
+        this.cacheMaxEntries = cacheMaxEntries;
+        // The JDK client keeps idle HTTP/1.1 connections open and reuses them across requests
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs));
+        if (virtualThreads) {
+            // Response callbacks would otherwise run on the client's own platform thread pool
+            builder.executor(Executors.newVirtualThreadPerTaskExecutor());
+        }
+        this.httpClient = builder.build();
+    }
 
     /**
      * Get file metadata by fileId
      */
     public FileMetadataDto getFileMetadata(String fileId) {
         try {
-            String url = metadataServiceUrl + "/api/v1/metadata/" + fileId;
-            log.debug("Calling metadata service: {}", url);
+            return getFileMetadataAsync(fileId).join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            log.error("Failed to get file metadata: fileId={}, error={}", fileId, cause.getMessage());
+            throw new RuntimeException("Failed to retrieve file metadata: " + cause.getMessage(), cause);
+        }
+    }
 
-            ResponseEntity<ApiResponse<FileMetadataDto>> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.GET,
-                    null,
-                    new ParameterizedTypeReference<ApiResponse<FileMetadataDto>>() {}
-            );
+    /**
+     * Get file metadata by fileId without blocking; completes with null if the file is unknown
+     */
+    public CompletableFuture<FileMetadataDto> getFileMetadataAsync(String fileId) {
+        URI url = UriComponentsBuilder.fromHttpUrl(metadataServiceUrl)
+                .path("/api/v1/metadata/{fileId}")
+                .buildAndExpand(fileId)
+                .encode()
+                .toUri();
+
+        CompletableFuture<FileMetadataDto> created = new CompletableFuture<>();
+        CompletableFuture<FileMetadataDto> existing = inFlight.putIfAbsent(fileId, created);
+        if (existing != null) {
+            log.debug("Joining in-flight metadata lookup: fileId={}", fileId);
+            return existing.copy();
+        }
+
+        log.debug("Calling metadata service: {}", url);
+        try {
+            send(HttpRequest.newBuilder(url).GET(), METADATA_RESPONSE)
+                    .whenComplete((metadata, error) -> {
+                        inFlight.remove(fileId, created);
+                        if (error != null) {
+                            created.completeExceptionally(error);
+                        } else {
+                            if (metadata == null) {
+                                log.warn("No metadata found for fileId: {}", fileId);
+                            }
+                            created.complete(metadata);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            // Fail the lookup for everyone who joined it, and let the next caller try afresh
+            inFlight.remove(fileId, created);
+            created.completeExceptionally(e);
+        }
+        return created.copy();
+    }
 
-            if (response.getBody() != null && response.getBody().getData() != null) {
-                return response.getBody().getData();
+    /**
+     * Get metadata for several files with as few round trips as possible.
+     * Unknown files are absent from the result, which keeps the order of the request.
+     */
+    public Map<String, FileMetadataDto> getFileMetadata(List<String> fileIds) {
+        long now = System.currentTimeMillis();
+        Map<String, FileMetadataDto> resolved = new LinkedHashMap<>();
+        Set<String> uncached = new LinkedHashSet<>();
+        for (String fileId : fileIds) {
+            CachedMetadata cached = metadataCache.get(fileId);
+            if (cached != null && cached.expiresAt() > now) {
+                resolved.put(fileId, cached.metadata());
+            } else {
+                uncached.add(fileId);
             }
+        }
+        List<String> missing = new ArrayList<>(uncached);
 
-            log.warn("No metadata found for fileId: {}", fileId);
-            return null;
+        List<CompletableFuture<List<FileMetadataDto>>> batches = new ArrayList<>();
+        for (int start = 0; start < missing.size(); start += MAX_BATCH_SIZE) {
+            batches.add(fetchBatch(missing.subList(start, Math.min(missing.size(), start + MAX_BATCH_SIZE))));
+        }
 
+        Map<String, FileMetadataDto> fetched = new HashMap<>();
+        try {
+            for (CompletableFuture<List<FileMetadataDto>> batch : batches) {
+                for (FileMetadataDto metadata : batch.join()) {
+                    fetched.put(metadata.getFileId(), metadata);
+                    cacheMetadata(metadata.getFileId(), metadata, now);
+                }
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            log.error("Failed to get metadata for {} files: {}", missing.size(), cause.getMessage());
+            throw new RuntimeException("Failed to retrieve file metadata: " + cause.getMessage(), cause);
+        }
+
+        Map<String, FileMetadataDto> result = new LinkedHashMap<>();
+        for (String fileId : fileIds) {
+            FileMetadataDto metadata = resolved.containsKey(fileId) ? resolved.get(fileId) : fetched.get(fileId);
+            if (metadata != null) {
+                result.put(fileId, metadata);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Resolve a file the user owns with a single metadata lookup
+     * @throws ResourceNotFoundException if the file has no metadata
+     * @throws SecurityException if the file belongs to another user
+     */
+    public FileMetadataDto resolveOwnedFile(String fileId, String userId) {
+        long now = System.currentTimeMillis();
+        CachedMetadata cached = metadataCache.get(fileId);
+        FileMetadataDto metadata;
+        if (cached != null && cached.expiresAt() > now) {
+            metadata = cached.metadata();
+        } else {
+            metadata = getFileMetadata(fileId);
+            if (metadata == null) {
+                metadataCache.remove(fileId);
+                throw new ResourceNotFoundException("File not found: " + fileId);
+            }
+            cacheMetadata(fileId, metadata, now);
+        }
+
+        if (!userId.equals(metadata.getOwnerId())) {
+            log.warn("Ownership verification failed: fileId={}, userId={}", fileId, userId);
+            throw new SecurityException("You do not have permission to access this file");
+        }
+        return metadata;
+    }
+
+    /**
+     * Drop a cached entry after the file was changed or deleted through this instance
+     */
+    public void invalidate(String fileId) {
+        metadataCache.remove(fileId);
+    }
+
+    /**
+     * Record the next version of a file, provided it is still at the version the content was built from
+     * @throws ResourceNotFoundException if the owner has no such live file
+     * @throws IllegalStateException if another version was recorded since baseVersion
+     */
+    public FileMetadataDto recordVersion(FileMetadataDto metadata, int baseVersion) {
+        try {
+            URI url = UriComponentsBuilder.fromHttpUrl(metadataServiceUrl)
+                    .path("/api/v1/metadata/{fileId}/versions")
+                    .queryParam("baseVersion", baseVersion)
+                    .buildAndExpand(metadata.getFileId())
+                    .encode()
+                    .toUri();
+            log.debug("Calling metadata service: {}", url);
+
+            HttpRequest.Builder request = HttpRequest.newBuilder(url)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(metadata)));
+            FileMetadataDto recorded = send(request, METADATA_RESPONSE).join();
+            if (recorded == null) {
+                throw new ResourceNotFoundException("File not found: " + metadata.getFileId());
+            }
+            cacheMetadata(recorded.getFileId(), recorded, System.currentTimeMillis());
+            return recorded;
+
+        } catch (ResourceNotFoundException e) {
+            throw e;
         } catch (Exception e) {
-            log.error("Failed to get file metadata: fileId={}, error={}", fileId, e.getMessage());
-            throw new RuntimeException("Failed to retrieve file metadata: " + e.getMessage());
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof ConcurrentModificationException conflict) {
+                throw new IllegalStateException(conflict.getMessage(), conflict);
+            }
+            if (cause instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            log.error("Failed to record version: fileId={}, error={}", metadata.getFileId(), cause.getMessage());
+            throw new RuntimeException("Failed to record file version: " + cause.getMessage(), cause);
         }
     }
 
@@ -57,23 +279,164 @@ public class MetadataServiceClient {
      */
     public boolean verifyOwnership(String fileId, String userId) {
         try {
-            FileMetadataDto metadata = getFileMetadata(fileId);
-            
-            if (metadata == null) {
-                log.warn("File not found: fileId={}", fileId);
-                return false;
-            }
-
-            boolean isOwner = metadata.getOwnerId().equals(userId);
-            log.debug("Ownership verification: fileId={}, userId={}, isOwner={}", 
-                    fileId, userId, isOwner);
-            
-            return isOwner;
+            resolveOwnedFile(fileId, userId);
+            log.debug("Ownership verification: fileId={}, userId={}, isOwner=true", fileId, userId);
+            return true;
 
+        } catch (ResourceNotFoundException e) {
+            log.warn("File not found: fileId={}", fileId);
+            return false;
+        } catch (SecurityException e) {
+            return false;
         } catch (Exception e) {
-            log.error("Ownership verification failed: fileId={}, userId={}, error={}", 
+            log.error("Ownership verification failed: fileId={}, userId={}, error={}",
                     fileId, userId, e.getMessage());
             return false;
         }
     }
+
+    /**
+     * Summarize how metadata refers to each storage path.
+     * Paths that no file record (live or deleted) refers to are absent from the result.
+     */
+    public Map<String, StorageReferenceDto> getStorageReferences(List<String> storagePaths) {
+        List<CompletableFuture<List<StorageReferenceDto>>> batches = new ArrayList<>();
+        for (int start = 0; start < storagePaths.size(); start += MAX_BATCH_SIZE) {
+            List<String> batch = storagePaths.subList(start, Math.min(storagePaths.size(), start + MAX_BATCH_SIZE));
+            batches.add(postBatch("/api/v1/metadata/storage/references", batch, REFERENCE_LIST_RESPONSE));
+        }
+
+        Map<String, StorageReferenceDto> result = new HashMap<>();
+        try {
+            for (CompletableFuture<List<StorageReferenceDto>> batch : batches) {
+                for (StorageReferenceDto reference : batch.join()) {
+                    result.put(reference.getStoragePath(), reference);
+                }
+            }
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            log.error("Failed to get references for {} storage paths: {}", storagePaths.size(), cause.getMessage());
+            throw new RuntimeException("Failed to retrieve storage references: " + cause.getMessage(), cause);
+        }
+        return result;
+    }
+
+    /**
+     * Bytes used by the live files of each user, as stored in metadata-service
+     */
+    public Map<String, Long> getStorageUsage(List<String> userIds) {
+        Map<String, Long> usage = new HashMap<>();
+        try {
+            for (int start = 0; start < userIds.size(); start += MAX_BATCH_SIZE) {
+                List<String> batch = userIds.subList(start, Math.min(userIds.size(), start + MAX_BATCH_SIZE));
+                HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(metadataServiceUrl + "/api/v1/metadata/usage"))
+                        .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(batch)));
+
+                Map<String, Long> batchUsage = send(request, USAGE_RESPONSE).join();
+                if (batchUsage == null) {
+                    throw new IllegalStateException("Empty storage usage response");
+                }
+                usage.putAll(batchUsage);
+            }
+            return usage;
+
+        } catch (Exception e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            log.error("Failed to get storage usage for {} users: {}", userIds.size(), cause.getMessage());
+            throw new RuntimeException("Failed to retrieve storage usage: " + cause.getMessage(), cause);
+        }
+    }
+
+    private CompletableFuture<List<FileMetadataDto>> fetchBatch(List<String> fileIds) {
+        return postBatch("/api/v1/metadata/batch", fileIds, METADATA_LIST_RESPONSE);
+    }
+
+    private <T> CompletableFuture<List<T>> postBatch(String path, List<String> keys,
+                                                     TypeReference<ApiResponse<List<T>>> responseType) {
+        try {
+            URI url = URI.create(metadataServiceUrl + path);
+            log.debug("Calling metadata service: {} ({} keys)", url, keys.size());
+
+            HttpRequest.Builder request = HttpRequest.newBuilder(url)
+                    .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(keys)));
+            return send(request, responseType)
+                    .thenApply(items -> items != null ? items : List.<T>of());
+
+        } catch (Exception e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Send a request and unwrap the {@link ApiResponse} payload; a 404 yields null and a 409
+     * fails with {@link ConcurrentModificationException}.
+     * Waits on the calling thread for a bulkhead permit, held until the response arrives.
+     */
+    private <T> CompletableFuture<T> send(HttpRequest.Builder request, TypeReference<ApiResponse<T>> responseType) {
+        HttpRequest httpRequest = request
+                .timeout(requestTimeout)
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+
+        Bulkhead.Permit permit;
+        try {
+            permit = metadataBulkhead.acquire();
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofByteArray())
+                .whenComplete((response, error) -> permit.close())
+                .thenApply(response -> {
+                    if (response.statusCode() == HttpStatus.NOT_FOUND.value()) {
+                        return null;
+                    }
+                    if (response.statusCode() == HttpStatus.CONFLICT.value()) {
+                        throw new ConcurrentModificationException(errorMessage(response.body(), httpRequest));
+                    }
+                    if (response.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("Metadata service returned HTTP " + response.statusCode()
+                                + " for " + httpRequest.uri());
+                    }
+                    try {
+                        ApiResponse<T> body = objectMapper.readValue(response.body(), responseType);
+                        return body != null ? body.getData() : null;
+                    } catch (Exception e) {
+                        throw new CompletionException(e);
+                    }
+                });
+    }
+
+    private String errorMessage(byte[] body, HttpRequest httpRequest) {
+        try {
+            ApiResponse<?> error = objectMapper.readValue(body, ApiResponse.class);
+            if (error != null && error.getMessage() != null) {
+                return error.getMessage();
+            }
+        } catch (Exception e) {
+            log.debug("Unreadable error response from {}: {}", httpRequest.uri(), e.getMessage());
+        }
+        return "Conflict reported by metadata service for " + httpRequest.uri();
+    }
+
+    private void cacheMetadata(String fileId, FileMetadataDto metadata, long now) {
+        if (metadataCache.size() >= cacheMaxEntries) {
+            metadataCache.values().removeIf(entry -> entry.expiresAt() <= now);
+            if (metadataCache.size() >= cacheMaxEntries) {
+                metadataCache.clear();
+            }
+        }
+        metadataCache.put(fileId, new CachedMetadata(metadata, now + cacheTtlMs));
+    }
+
+    private record CachedMetadata(FileMetadataDto metadata, long expiresAt) {
+    }
 }
@@ -0,0 +1,128 @@
+package com.gnexdrive.fileservice.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * Executors for streamed responses, archive prefetching and batch uploads
+ */
+@Slf4j
+@Configuration
+public class AsyncConfig implements WebMvcConfigurer {
+
+    @Value("${archive.stream.pool-size:32}")
+    private int streamPoolSize;
+
+    @Value("${archive.stream.queue-capacity:64}")
+    private int streamQueueCapacity;
+
+    @Value("${archive.stream.timeout-ms:3600000}")
+    private long streamTimeoutMs;
+
+    @Value("${archive.prefetch.pool-size:32}")
+    private int prefetchPoolSize;
+
+    @Value("${archive.prefetch.queue-capacity:256}")
+    private int prefetchQueueCapacity;
+
+    @Value("${upload.batch.parallelism:8}")
+    private int batchUploadParallelism;
+
+    @Value("${upload.batch.max-files:1000}")
+    private int batchUploadQueueCapacity;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    @Bean(name = "streamingResponseExecutor")
+    public AsyncTaskExecutor streamingResponseExecutor() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = virtualThreadExecutor("stream-writer-", streamPoolSize);
+            executor.setTaskTerminationTimeout(30000);
+            log.info("Initialized streaming response executor on virtual threads, concurrency-limit={}", streamPoolSize);
+            return executor;
+        }
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(streamPoolSize);
+        executor.setMaxPoolSize(streamPoolSize);
+        executor.setQueueCapacity(streamQueueCapacity);
+        executor.setThreadNamePrefix("stream-writer-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executor.initialize();
+        
+        log.info("Initialized streaming response executor with pool-size={}, queue-capacity={}",
+                streamPoolSize, streamQueueCapacity);
+        return executor;
+    }
+
+    @Bean(name = "archivePrefetchExecutor")
+    public AsyncTaskExecutor archivePrefetchExecutor() {
+        if (virtualThreads) {
+            log.info("Initialized archive prefetch executor on virtual threads, concurrency-limit={}", prefetchPoolSize);
+            return virtualThreadExecutor("archive-prefetch-", prefetchPoolSize);
+        }
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(prefetchPoolSize);
+        executor.setMaxPoolSize(prefetchPoolSize);
+        executor.setQueueCapacity(prefetchQueueCapacity);
+        executor.setThreadNamePrefix("archive-prefetch-");
+        // Fall back to fetching on the writing thread rather than failing the archive
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        
+        log.info("Initialized archive prefetch executor with pool-size={}, queue-capacity={}",
+                prefetchPoolSize, prefetchQueueCapacity);
+        return executor;
+    }
+
+    @Bean(name = "batchUploadExecutor")
+    public AsyncTaskExecutor batchUploadExecutor() {
+        if (virtualThreads) {
+            log.info("Initialized batch upload executor on virtual threads, concurrency-limit={}", batchUploadParallelism);
+            return virtualThreadExecutor("batch-upload-", batchUploadParallelism);
+        }
+        
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(batchUploadParallelism);
+        executor.setMaxPoolSize(batchUploadParallelism);
+        executor.setQueueCapacity(batchUploadQueueCapacity);
+        executor.setThreadNamePrefix("batch-upload-");
+        // Several batches at once: store on the request thread instead of failing files
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        
+        log.info("Initialized batch upload executor with pool-size={}, queue-capacity={}",
+                batchUploadParallelism, batchUploadQueueCapacity);
+        return executor;
+    }
+
+    /**
+     * A new virtual thread per task, as many running at once as the platform pool would run;
+     * further submissions wait for a slot, which stands in for the pool's queue and caller-runs fallback
+     */
+    private SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        return executor;
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        // Archives of large selections stream for much longer than the container's default async timeout
+        configurer.setTaskExecutor(streamingResponseExecutor());
+        configurer.setDefaultTimeout(streamTimeoutMs);
+    }
+}
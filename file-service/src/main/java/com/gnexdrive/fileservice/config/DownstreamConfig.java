@@ -0,0 +1,43 @@
+package com.gnexdrive.fileservice.config;
+
+import com.gnexdrive.fileservice.client.Bulkhead;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Concurrency limits for the services file-service calls.
+ * With platform threads Tomcat's pool is the effective limit; with virtual
+ * threads these bulkheads are what keeps a traffic spike off the dependencies.
+ */
+@Slf4j
+@Configuration
+public class DownstreamConfig {
+
+    @Bean
+    public Bulkhead storageBulkhead(MeterRegistry meterRegistry,
+                                    @Value("${downstream.storage.max-concurrent-calls:256}") int maxConcurrentCalls,
+                                    @Value("${downstream.storage.acquire-timeout-ms:5000}") long acquireTimeoutMs) {
+        return register(new Bulkhead("object-storage", maxConcurrentCalls, acquireTimeoutMs), meterRegistry);
+    }
+
+    @Bean
+    public Bulkhead metadataBulkhead(MeterRegistry meterRegistry,
+                                     @Value("${downstream.metadata.max-concurrent-calls:256}") int maxConcurrentCalls,
+                                     @Value("${downstream.metadata.acquire-timeout-ms:2000}") long acquireTimeoutMs) {
+        return register(new Bulkhead("metadata-service", maxConcurrentCalls, acquireTimeoutMs), meterRegistry);
+    }
+
+    private Bulkhead register(Bulkhead bulkhead, MeterRegistry meterRegistry) {
+        Gauge.builder("downstream.calls.available", bulkhead, Bulkhead::availablePermits)
+                .description("Free call slots towards a downstream dependency")
+                .tag("dependency", bulkhead.getName())
+                .register(meterRegistry);
+        
+        log.info("Bulkhead for {} allows {} concurrent calls", bulkhead.getName(), bulkhead.getMaxConcurrentCalls());
+        return bulkhead;
+    }
+}
@@ -0,0 +1,62 @@
+package com.gnexdrive.fileservice.config;
+
+import com.gnexdrive.common.event.FileEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafka;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Kafka consumer configuration.
+ * Every replica keeps its own usage counters, so each one joins a consumer group of
+ * its own, named after its host so a restarted pod reuses it, and sees every event.
+ * A new group starts at the latest event because the counters are loaded from
+ * metadata-service, not replayed.
+ */
+@Slf4j
+@Configuration
+@EnableKafka
+public class KafkaConsumerConfig {
+
+    @Value("${spring.kafka.bootstrap-servers}")
+    private String bootstrapServers;
+
+    @Value("${quota.consumer-group-prefix:file-service-usage}-${HOSTNAME:${random.uuid}}")
+    private String groupId;
+
+    @Bean
+    public ConsumerFactory<String, FileEvent> consumerFactory() {
+        log.info("Configuring Kafka consumer group {} for servers: {}", groupId, bootstrapServers);
+        
+        Map<String, Object> config = new HashMap<>();
+        config.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
+        config.put(ConsumerConfig.GROUP_ID_CONFIG, groupId);
+        config.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        config.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        config.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 500);
+        
+        JsonDeserializer<FileEvent> deserializer = new JsonDeserializer<>(FileEvent.class);
+        deserializer.addTrustedPackages("com.gnexdrive.common.event");
+        
+        return new DefaultKafkaConsumerFactory<>(config, new StringDeserializer(), deserializer);
+    }
+
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, FileEvent> kafkaListenerContainerFactory() {
+        ConcurrentKafkaListenerContainerFactory<String, FileEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(consumerFactory());
+        factory.getContainerProperties().setPollTimeout(3000);
+        return factory;
+    }
+}
@@ -1,5 +1,6 @@
 package com.gnexdrive.fileservice.config;
 
+import com.gnexdrive.fileservice.util.DirectBufferPool;
 import io.minio.BucketExistsArgs;
 import io.minio.MakeBucketArgs;
 import io.minio.MinioClient;
@@ -10,6 +11,11 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.List;
 
 /**
  * MinIO configuration
@@ -17,6 +23,7 @@ import org.springframework.context.annotation.Configuration;
 @Slf4j
 @Data
 @Configuration
+@Profile("!local")
 @ConfigurationProperties(prefix = "minio")
 @RequiredArgsConstructor
 public class MinioConfig {
@@ -25,8 +32,39 @@ public class MinioConfig {
     private String accessKey;
     private String secretKey;
     private String bucketName;
+    private String publicUrl; // endpoint clients reach MinIO at, if different from url
+    private String region = "us-east-1";
+    private Multipart multipart = new Multipart();
+    private Compression compression = new Compression();
+
+    /**
+     * Large uploads are split into parts that are sent concurrently
+     */
+    @Data
+    public static class Multipart {
+        private long thresholdBytes = 32L * 1024 * 1024; // objects from this size on are split
+        private int partSize = 8 * 1024 * 1024; // at least 5MB, the MinIO minimum for composed parts
+        private int maxBuffers = 16; // parts in flight per pod, each holding one direct buffer
+        private long bufferWaitMs = 30000;
+    }
+
+    /**
+     * Compressible uploads are stored deflated and inflated again on download
+     */
+    @Data
+    public static class Compression {
+        private boolean enabled = false;
+        private int level = 1; // Deflater level, 1 = fastest
+        private long minBytes = 4096; // smaller objects gain too little to be worth it
+        // Prefixes of compressible content types; OOXML (docx, xlsx) is already a ZIP container
+        private List<String> contentTypes = List.of("text/", "application/json", "application/xml",
+                "application/x-ndjson", "application/javascript", "application/sql", "image/svg+xml",
+                "application/msword", "application/vnd.ms-excel", "application/vnd.ms-powerpoint",
+                "application/vnd.oasis.opendocument.text-flat-xml");
+    }
 
     @Bean
+    @Primary
     public MinioClient minioClient() {
         log.info("Creating MinIO client for URL: {}", url);
         
@@ -36,6 +74,47 @@ public class MinioConfig {
                 .build();
     }
 
+    /**
+     * Client used only to sign URLs handed out to clients.
+     * Signing happens offline, but the host is part of the signature, so it has
+     * to be the host clients connect to; a fixed region avoids a lookup call.
+     */
+    @Bean
+    public MinioClient presignMinioClient() {
+        String endpoint = publicUrl != null && !publicUrl.isBlank() ? publicUrl : url;
+        log.info("Creating MinIO pre-signing client for URL: {}", endpoint);
+        
+        return MinioClient.builder()
+                .endpoint(endpoint)
+                .region(region)
+                .credentials(accessKey, secretKey)
+                .build();
+    }
+
+    /**
+     * Direct buffers holding the parts of large uploads while they are sent
+     */
+    @Bean
+    public DirectBufferPool multipartBufferPool() {
+        log.info("Multipart uploads above {} bytes use up to {} buffers of {} bytes",
+                multipart.getThresholdBytes(), multipart.getMaxBuffers(), multipart.getPartSize());
+        return new DirectBufferPool(multipart.getPartSize(), multipart.getMaxBuffers(), multipart.getBufferWaitMs());
+    }
+
+    /**
+     * One thread per buffer: a part is only submitted once it holds a buffer
+     */
+    @Bean(name = "multipartUploadExecutor")
+    public ThreadPoolTaskExecutor multipartUploadExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(multipart.getMaxBuffers());
+        executor.setMaxPoolSize(multipart.getMaxBuffers());
+        executor.setQueueCapacity(multipart.getMaxBuffers());
+        executor.setThreadNamePrefix("minio-part-");
+        executor.initialize();
+        return executor;
+    }
+
     /**
      * Initialize bucket on startup if it doesn't exist
      */
@@ -2,18 +2,43 @@ package com.gnexdrive.fileservice.controller;
 
 import com.gnexdrive.common.dto.ApiResponse;
 import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.exception.QuotaExceededException;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.fileservice.dto.ArchiveRequestDto;
+import com.gnexdrive.fileservice.dto.BatchUploadResultDto;
+import com.gnexdrive.fileservice.dto.CopyMoveRequestDto;
+import com.gnexdrive.fileservice.dto.DeltaUploadDto;
+import com.gnexdrive.fileservice.dto.FileSignatureDto;
+import com.gnexdrive.fileservice.dto.PresignedUrlDto;
+import com.gnexdrive.fileservice.dto.UploadChunkDto;
+import com.gnexdrive.fileservice.dto.UploadSessionDto;
+import com.gnexdrive.fileservice.dto.UploadSessionRequestDto;
+import com.gnexdrive.fileservice.service.ArchiveService;
+import com.gnexdrive.fileservice.service.DeltaSyncService;
 import com.gnexdrive.fileservice.service.FileService;
+import com.gnexdrive.fileservice.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST Controller for file operations
@@ -26,6 +51,9 @@ import org.springframework.web.multipart.MultipartFile;
 public class FileController {
 
     private final FileService fileService;
+    private final UploadSessionService uploadSessionService;
+    private final ArchiveService archiveService;
+    private final DeltaSyncService deltaSyncService;
 
     @Operation(summary = "Upload a file")
     @PostMapping(value = "/upload", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
@@ -47,6 +75,17 @@ public class FileController {
             return ResponseEntity.badRequest()
                     .body(ApiResponse.error(e.getMessage()));
                     
+        } catch (QuotaExceededException e) {
+            log.warn("File upload over quota: userId={}, {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (RejectedExecutionException e) {
+            log.warn("File upload rejected, event outbox or storage saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+                    
         } catch (Exception e) {
             log.error("File upload failed: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -54,26 +93,93 @@ public class FileController {
         }
     }
 
-    @Operation(summary = "Download a file")
+    @Operation(summary = "Upload many small files in one multipart request")
+    @PostMapping(value = "/upload/batch", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<List<BatchUploadResultDto>>> uploadFiles(
+            @RequestParam("files") List<MultipartFile> files,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Batch upload request received: files={}, userId={}", files.size(), userId);
+        
+        try {
+            List<BatchUploadResultDto> results = fileService.uploadFiles(files, userId);
+            long uploaded = results.stream().filter(BatchUploadResultDto::isSuccess).count();
+            
+            // Per-file outcomes are in the body; the request itself succeeded
+            return ResponseEntity.ok(ApiResponse.success(
+                    uploaded + " of " + results.size() + " files uploaded", results));
+                    
+        } catch (IllegalArgumentException e) {
+            log.warn("Batch upload validation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Batch upload failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Batch upload failed: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Download a file, or a single byte range of it")
     @GetMapping("/{fileId}/download")
     public ResponseEntity<?> downloadFile(
             @PathVariable String fileId,
-            @RequestHeader("X-User-Id") String userId) {
+            @RequestHeader("X-User-Id") String userId,
+            @RequestHeader HttpHeaders requestHeaders) {
         
         log.info("Download request received: fileId={}, userId={}", fileId, userId);
         
         try {
-            Resource resource = fileService.downloadFile(fileId, userId);
+            FileMetadataDto metadata = fileService.getDownloadableFile(fileId, userId);
+            String etag = StringUtils.hasText(metadata.getChecksum()) ? "\"" + metadata.getChecksum() + "\"" : null;
+            Long fileSize = metadata.getFileSize();
             
-            // Set headers for file download
+            // Set headers for file download; caches may keep the file but must revalidate it
             HttpHeaders headers = new HttpHeaders();
             headers.add(HttpHeaders.CONTENT_DISPOSITION, 
                     "attachment; filename=\"" + fileId + "\"");
-            headers.add(HttpHeaders.CACHE_CONTROL, "no-cache, no-store, must-revalidate");
-            headers.add(HttpHeaders.PRAGMA, "no-cache");
-            headers.add(HttpHeaders.EXPIRES, "0");
+            headers.setCacheControl(CacheControl.noCache().cachePrivate());
+            if (etag != null) {
+                headers.setETag(etag);
+            }
+            if (fileSize != null) {
+                headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+            }
             
-            return ResponseEntity.ok()
+            if (etag != null && matchesAny(requestHeaders.getIfNoneMatch(), etag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                        .headers(headers)
+                        .build();
+            }
+            
+            HttpRange range = fileSize != null ? requestedRange(requestHeaders, etag) : null;
+            if (range == null) {
+                Resource resource = fileService.downloadFile(metadata, userId, 0, -1);
+                if (fileSize != null) {
+                    headers.setContentLength(fileSize);
+                }
+                
+                return ResponseEntity.ok()
+                        .headers(headers)
+                        .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                        .body(resource);
+            }
+            
+            long start = range.getRangeStart(fileSize);
+            long end = range.getRangeEnd(fileSize);
+            if (start >= fileSize || end < start) {
+                return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                        .header(HttpHeaders.CONTENT_RANGE, "bytes */" + fileSize)
+                        .body(ApiResponse.error("Requested range not satisfiable"));
+            }
+            
+            long length = end - start + 1;
+            Resource resource = fileService.downloadFile(metadata, userId, start, length);
+            headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + fileSize);
+            headers.setContentLength(length);
+            
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
                     .headers(headers)
                     .contentType(MediaType.APPLICATION_OCTET_STREAM)
                     .body(resource);
@@ -83,6 +189,12 @@ public class FileController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body(ApiResponse.error("Access denied: " + e.getMessage()));
                     
+        } catch (RejectedExecutionException e) {
+            log.warn("File download rejected, downstream saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+                    
         } catch (Exception e) {
             log.error("File download failed: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -90,6 +202,241 @@ public class FileController {
         }
     }
 
+    @Operation(summary = "Get a short-lived URL to download a file straight from object storage")
+    @GetMapping("/{fileId}/download-url")
+    public ResponseEntity<ApiResponse<PresignedUrlDto>> getDownloadUrl(
+            @PathVariable String fileId,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Download URL request received: fileId={}, userId={}", fileId, userId);
+        
+        try {
+            PresignedUrlDto downloadUrl = fileService.getDownloadUrl(fileId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Download URL issued", downloadUrl));
+            
+        } catch (SecurityException e) {
+            log.warn("Unauthorized download URL request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (RejectedExecutionException e) {
+            log.warn("Download URL request rejected, downstream saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Failed to issue download URL: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to issue download URL: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Download several files as one streamed ZIP archive")
+    @PostMapping("/archive")
+    public ResponseEntity<?> downloadArchive(
+            @RequestBody ArchiveRequestDto request,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Archive request received: files={}, folderId={}, userId={}", 
+                request.getFileIds() != null ? request.getFileIds().size() : 0, request.getFolderId(), userId);
+        
+        try {
+            // Resolve and authorize everything up front - once streaming starts the status is fixed
+            List<FileMetadataDto> files = archiveService.resolveArchive(request, userId);
+            StreamingResponseBody body = out -> archiveService.writeArchive(files, userId, out);
+            
+            String archiveName = StringUtils.hasText(request.getArchiveName()) ? request.getArchiveName() : "files";
+            if (!archiveName.toLowerCase().endsWith(".zip")) {
+                archiveName += ".zip";
+            }
+            
+            return ResponseEntity.ok()
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(archiveName, StandardCharsets.UTF_8)
+                            .build()
+                            .toString())
+                    .contentType(MediaType.parseMediaType("application/zip"))
+                    .body(body);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (SecurityException e) {
+            log.warn("Unauthorized archive download: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Archive download failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Archive download failed: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Copy a file inside object storage, without downloading and re-uploading it")
+    @PostMapping("/{fileId}/copy")
+    public ResponseEntity<ApiResponse<FileMetadataDto>> copyFile(
+            @PathVariable String fileId,
+            @RequestBody(required = false) CopyMoveRequestDto request,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Copy request received: fileId={}, userId={}", fileId, userId);
+        
+        try {
+            FileMetadataDto copy = fileService.copyFile(fileId, request != null ? request.getFileName() : null, userId);
+            
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("File copied successfully", copy));
+                    
+        } catch (SecurityException e) {
+            log.warn("Unauthorized file copy: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (QuotaExceededException e) {
+            log.warn("File copy over quota: userId={}, {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("File copy rejected, event outbox or storage saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("File copy failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("File copy failed: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Move a file to a new name")
+    @PostMapping("/{fileId}/move")
+    public ResponseEntity<ApiResponse<FileMetadataDto>> moveFile(
+            @PathVariable String fileId,
+            @RequestBody CopyMoveRequestDto request,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Move request received: fileId={}, userId={}", fileId, userId);
+        
+        try {
+            FileMetadataDto moved = fileService.moveFile(fileId, request.getFileName(), userId);
+            
+            return ResponseEntity.ok(ApiResponse.success("File moved successfully", moved));
+                    
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (SecurityException e) {
+            log.warn("Unauthorized file move: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("File move rejected, event outbox saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("File move failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("File move failed: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get block signatures of a file's current version, to compute a delta against")
+    @GetMapping("/{fileId}/signature")
+    public ResponseEntity<ApiResponse<FileSignatureDto>> getSignature(
+            @PathVariable String fileId,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        try {
+            FileSignatureDto signature = deltaSyncService.getSignature(fileId, userId);
+            
+            return ResponseEntity.ok(ApiResponse.success(signature));
+                    
+        } catch (SecurityException e) {
+            log.warn("Unauthorized signature request: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Signature request rejected, storage saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Failed to get signature: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to get signature: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Upload a new version of a file as a delta against its current version")
+    @PostMapping(value = "/{fileId}/delta", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ApiResponse<FileMetadataDto>> uploadDelta(
+            @PathVariable String fileId,
+            @RequestPart("manifest") DeltaUploadDto manifest,
+            @RequestPart(value = "data", required = false) MultipartFile data,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        long dataLength = data != null ? data.getSize() : 0;
+        log.info("Delta upload received: fileId={}, baseVersion={}, newBytes={}, userId={}",
+                fileId, manifest.getBaseVersion(), dataLength, userId);
+        
+        try (InputStream content = data != null ? data.getInputStream() : InputStream.nullInputStream()) {
+            FileMetadataDto metadata = deltaSyncService.applyDelta(fileId, manifest, content, dataLength, userId);
+            
+            return ResponseEntity.ok(ApiResponse.success("New version stored", metadata));
+                    
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (SecurityException e) {
+            log.warn("Unauthorized delta upload: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (QuotaExceededException e) {
+            log.warn("Delta upload over quota: userId={}, {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("Delta upload rejected, event outbox or storage saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Delta upload failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Delta upload failed: " + e.getMessage()));
+        }
+    }
+
     @Operation(summary = "Delete a file")
     @DeleteMapping("/{fileId}")
     public ResponseEntity<ApiResponse<Void>> deleteFile(
@@ -107,6 +454,14 @@ public class FileController {
             log.warn("Unauthorized file deletion: {}", e.getMessage());
             return ResponseEntity.status(HttpStatus.FORBIDDEN)
                     .body(ApiResponse.error("Access denied: " + e.getMessage()));                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (RejectedExecutionException e) {
+            log.warn("File deletion rejected, event outbox saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("File deletion failed: {}", e.getMessage(), e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
@@ -137,4 +492,210 @@ public class FileController {
                     .body(ApiResponse.error("File not found: " + e.getMessage()));
         }
     }
+
+    // =============== Resumable Upload Sessions ===============
+
+    @Operation(summary = "Start a resumable chunked upload, or a direct upload to a pre-signed URL")
+    @PostMapping("/uploads")
+    public ResponseEntity<ApiResponse<UploadSessionDto>> initUploadSession(
+            @RequestBody UploadSessionRequestDto request,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Upload session request: fileName={}, size={}, userId={}", 
+                request.getFileName(), request.getTotalSize(), userId);
+        
+        try {
+            UploadSessionDto session = uploadSessionService.initSession(request, userId);
+            
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("Upload session created", session));
+                    
+        } catch (IllegalArgumentException e) {
+            log.warn("Upload session validation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (QuotaExceededException e) {
+            log.warn("Upload session over quota: userId={}, {}", userId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.INSUFFICIENT_STORAGE)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (UnsupportedOperationException e) {
+            return ResponseEntity.status(HttpStatus.NOT_IMPLEMENTED)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Failed to create upload session: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to create upload session: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Upload one chunk of a resumable upload")
+    @PutMapping(value = "/uploads/{uploadId}/chunks/{chunkIndex}", 
+            consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    public ResponseEntity<ApiResponse<UploadChunkDto>> uploadChunk(
+            @PathVariable String uploadId,
+            @PathVariable int chunkIndex,
+            @RequestHeader("X-User-Id") String userId,
+            HttpServletRequest request) {
+        
+        log.debug("Chunk upload request: uploadId={}, chunk={}, size={}", 
+                uploadId, chunkIndex, request.getContentLengthLong());
+        
+        try {
+            UploadChunkDto chunk = uploadSessionService.uploadChunk(
+                    uploadId, chunkIndex, request.getInputStream(), request.getContentLengthLong(), userId);
+            
+            return ResponseEntity.ok(ApiResponse.success("Chunk uploaded successfully", chunk));
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Chunk validation failed: {}", e.getMessage());
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (RejectedExecutionException e) {
+            log.warn("Chunk upload throttled: uploadId={}, chunk={}", uploadId, chunkIndex);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Chunk upload failed: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Chunk upload failed: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get upload session state to resume an interrupted upload")
+    @GetMapping("/uploads/{uploadId}")
+    public ResponseEntity<ApiResponse<UploadSessionDto>> getUploadSession(
+            @PathVariable String uploadId,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        try {
+            UploadSessionDto session = uploadSessionService.getSession(uploadId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Upload session retrieved", session));
+            
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Failed to get upload session: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to get upload session: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Complete a resumable upload, or confirm a direct upload")
+    @PostMapping("/uploads/{uploadId}/complete")
+    public ResponseEntity<ApiResponse<FileMetadataDto>> completeUploadSession(
+            @PathVariable String uploadId,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Complete upload session request: uploadId={}, userId={}", uploadId, userId);
+        
+        try {
+            FileMetadataDto metadata = uploadSessionService.completeSession(uploadId, userId);
+            
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .body(ApiResponse.success("File uploaded successfully", metadata));
+                    
+        } catch (IllegalStateException e) {
+            log.warn("Upload session incomplete: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (RejectedExecutionException e) {
+            log.warn("Upload completion rejected, event outbox saturated: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Failed to complete upload session: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to complete upload: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Abort a resumable upload")
+    @DeleteMapping("/uploads/{uploadId}")
+    public ResponseEntity<ApiResponse<Void>> abortUploadSession(
+            @PathVariable String uploadId,
+            @RequestHeader("X-User-Id") String userId) {
+        
+        log.info("Abort upload session request: uploadId={}, userId={}", uploadId, userId);
+        
+        try {
+            uploadSessionService.abortSession(uploadId, userId);
+            return ResponseEntity.ok(ApiResponse.success("Upload session aborted", null));
+            
+        } catch (SecurityException e) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(ApiResponse.error("Access denied: " + e.getMessage()));
+                    
+        } catch (ResourceNotFoundException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(ApiResponse.error(e.getMessage()));
+                    
+        } catch (Exception e) {
+            log.error("Failed to abort upload session: {}", e.getMessage(), e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(ApiResponse.error("Failed to abort upload: " + e.getMessage()));
+        }
+    }
+
+    /**
+     * Single byte range to serve, or null when the whole file should be sent.
+     * Malformed or multi-range requests and a stale If-Range fall back to the full file.
+     */
+    private HttpRange requestedRange(HttpHeaders requestHeaders, String etag) {
+        String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+        if (ifRange != null && (etag == null || !ifRange.trim().equals(etag))) {
+            return null;
+        }
+        
+        try {
+            List<HttpRange> ranges = requestHeaders.getRange();
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed Range header: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Weak entity tag comparison, as used for If-None-Match
+     */
+    private boolean matchesAny(List<String> candidates, String etag) {
+        for (String candidate : candidates) {
+            String tag = candidate.startsWith("W/") ? candidate.substring(2) : candidate;
+            if ("*".equals(tag) || etag.equals(tag)) {
+                return true;
+            }
+        }
+        return false;
+    }
 }
@@ -0,0 +1,22 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Request DTO for downloading several files as one ZIP archive
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveRequestDto {
+
+    private List<String> fileIds;
+    private String folderId;
+    private String archiveName; // Optional - defaults to files.zip
+}
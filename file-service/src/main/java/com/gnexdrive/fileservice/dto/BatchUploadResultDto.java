@@ -0,0 +1,22 @@
+package com.gnexdrive.fileservice.dto;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one file in a batch upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchUploadResultDto {
+
+    private String fileName;
+    private boolean success;
+    private FileMetadataDto file; // set when the file was stored and recorded
+    private String error; // set when it was not; the file can be retried on its own
+}
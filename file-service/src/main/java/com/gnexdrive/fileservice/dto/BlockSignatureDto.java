@@ -0,0 +1,19 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Signature of one block of a file version
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BlockSignatureDto {
+
+    private int weak; // rolling checksum, see RollingChecksum
+    private String strong; // MD5 of the block, hex
+}
@@ -0,0 +1,18 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for copying or moving a file
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CopyMoveRequestDto {
+
+    private String fileName; // Name of the copy (optional - defaults to "Copy of <name>") or new name of the moved file
+}
@@ -0,0 +1,20 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One step of a delta upload: either copy blocks of the base version or take new bytes from the data part
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaInstructionDto {
+
+    private Integer block; // first base block to copy
+    private Integer count; // blocks to copy (optional - defaults to 1)
+    private Long length; // bytes to take from the data part, in order
+}
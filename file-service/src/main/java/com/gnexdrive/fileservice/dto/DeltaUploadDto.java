@@ -0,0 +1,23 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Manifest of a delta upload: how to build the new version from the base version and the changed bytes
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeltaUploadDto {
+
+    private Integer baseVersion; // version the signature was taken from
+    private Long fileSize; // size of the new version
+    private String checksum; // MD5 of the new version (optional - verified when given)
+    private List<DeltaInstructionDto> instructions;
+}
@@ -0,0 +1,24 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Block signatures of a file version, for computing a delta against it
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileSignatureDto {
+
+    private String fileId;
+    private Integer version;
+    private Long fileSize;
+    private Integer blockSize; // every block but the last is exactly this long
+    private List<BlockSignatureDto> blocks; // in file order; block i starts at i x blockSize
+}
@@ -0,0 +1,21 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Acknowledgement for a single stored chunk
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadChunkDto {
+
+    private String uploadId;
+    private int chunkIndex;
+    private long size;
+    private String checksum;
+}
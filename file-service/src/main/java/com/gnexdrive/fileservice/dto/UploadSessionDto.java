@@ -0,0 +1,39 @@
+package com.gnexdrive.fileservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Upload session state returned to clients so they can resume
+ * at the first chunk that has not been acknowledged yet
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionDto {
+
+    private String uploadId;
+    private String fileId;
+    private String fileName;
+    private long totalSize;
+    private long chunkSize;
+    private int totalChunks;
+    private List<Integer> receivedChunks;
+    private Integer nextChunk; // null once every chunk has been received
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime expiresAt;
+
+    // Direct uploads only: PUT the whole file here, then complete the session
+    private String uploadUrl;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime uploadUrlExpiresAt;
+}
@@ -0,0 +1,22 @@
+package com.gnexdrive.fileservice.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Request DTO for starting a resumable chunked upload
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSessionRequestDto {
+
+    private String fileName;
+    private String contentType;
+    private Long totalSize;
+    private Long chunkSize; // Optional - server default is used when absent
+    private Boolean direct; // Optional - upload in one PUT to a pre-signed storage URL instead of chunks
+}
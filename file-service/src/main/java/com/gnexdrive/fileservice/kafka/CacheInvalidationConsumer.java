@@ -0,0 +1,35 @@
+package com.gnexdrive.fileservice.kafka;
+
+import com.gnexdrive.common.constant.AppConstants;
+import com.gnexdrive.common.event.FileEvent;
+import com.gnexdrive.fileservice.service.HotObjectCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Drops deleted files from this replica's hot object cache.
+ * Uses a group of its own, so it sees every event instead of sharing
+ * partitions with the usage consumer. The group is named after the host, so a
+ * restarted pod rejoins its group instead of leaving an abandoned one behind;
+ * events replayed since the last commit only evict entries of a cache that
+ * starts out empty anyway.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CacheInvalidationConsumer {
+
+    private final HotObjectCache hotObjectCache;
+
+    @KafkaListener(topics = AppConstants.TOPIC_FILE_DELETED,
+                   groupId = "${storage.cache.consumer-group-prefix:file-service-cache}-${HOSTNAME:${random.uuid}}")
+    public void handleFileDeletedEvent(FileEvent event) {
+        // Delete events published before paths were included carry none; those entries age out of the LRU
+        if (event.getPayload() != null && event.getPayload().get("storagePath") instanceof String storagePath) {
+            log.debug("Invalidating cached content: fileId={}, path={}", event.getFileId(), storagePath);
+            hotObjectCache.invalidate(storagePath);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.gnexdrive.fileservice.kafka;
+
+import com.gnexdrive.common.constant.AppConstants;
+import com.gnexdrive.common.event.FileEvent;
+import com.gnexdrive.fileservice.service.QuotaService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps this replica's storage usage counters current from file events
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UsageEventConsumer {
+
+    private final QuotaService quotaService;
+
+    @KafkaListener(topics = AppConstants.TOPIC_FILE_UPLOADED)
+    public void handleFileUploadedEvent(FileEvent event) {
+        // A new version of an existing file only changes usage by the difference in size
+        long growth = payloadSize(event, "fileSize") - payloadSize(event, "previousFileSize");
+        log.debug("Counting upload towards usage: fileId={}, userId={}, growth={}", event.getFileId(), event.getUserId(), growth);
+        quotaService.recordUpload(event.getUserId(), event.getFileId(), Math.max(0, growth));
+        if (growth < 0) {
+            quotaService.recordDelete(event.getUserId(), -growth);
+        }
+    }
+
+    @KafkaListener(topics = AppConstants.TOPIC_FILE_DELETED)
+    public void handleFileDeletedEvent(FileEvent event) {
+        long fileSize = payloadSize(event, "fileSize");
+        log.debug("Removing deleted file from usage: fileId={}, userId={}, size={}", event.getFileId(), event.getUserId(), fileSize);
+        quotaService.recordDelete(event.getUserId(), fileSize);
+    }
+
+    private long payloadSize(FileEvent event, String key) {
+        // Delete events published before sizes were included carry none; reconciliation catches up
+        if (event.getPayload() != null && event.getPayload().get(key) instanceof Number size) {
+            return size.longValue();
+        }
+        return 0L;
+    }
+}
@@ -0,0 +1,23 @@
+package com.gnexdrive.fileservice.model;
+
+import com.gnexdrive.common.event.FileEvent;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Event recorded in the local outbox journal, one JSON line per record.
+ * Sequence numbers increase monotonically and drive relay checkpoints.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxRecord {
+
+    private long sequence;
+    private String topic;
+    private String key;
+    private FileEvent event;
+}
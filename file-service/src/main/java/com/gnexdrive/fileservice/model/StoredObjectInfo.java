@@ -0,0 +1,24 @@
+package com.gnexdrive.fileservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * What object storage reports about a stored object
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class StoredObjectInfo {
+
+    private String name;
+    private long size;
+    private String etag; // null when the backend does not compute one
+    private String contentType;
+    private Instant lastModified;
+}
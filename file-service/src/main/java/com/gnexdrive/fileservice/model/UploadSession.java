@@ -0,0 +1,50 @@
+package com.gnexdrive.fileservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Descriptor of a resumable upload session.
+ * Persisted next to the staged parts in object storage so any
+ * file-service replica can accept chunks for the session.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadSession {
+
+    private String uploadId;
+    private String fileId;
+    private String userId;
+    private String fileName;
+    private String fileType;
+    private String contentType;
+    private String storagePath;
+    private long totalSize;
+    private long chunkSize;
+    private int totalChunks;
+    private boolean direct; // content is PUT straight to storage through a pre-signed URL
+    private LocalDateTime createdAt;
+    private LocalDateTime expiresAt;
+
+    /**
+     * Expected byte length of the given chunk (the last chunk may be shorter)
+     */
+    public long chunkLength(int chunkIndex) {
+        if (chunkIndex < totalChunks - 1) {
+            return chunkSize;
+        }
+        return totalSize - chunkSize * (totalChunks - 1);
+    }
+
+    @JsonIgnore
+    public boolean isExpired() {
+        return expiresAt != null && LocalDateTime.now().isAfter(expiresAt);
+    }
+}
@@ -0,0 +1,24 @@
+package com.gnexdrive.fileservice.service;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.fileservice.dto.ArchiveRequestDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Service interface for streaming multi-file ZIP archives
+ */
+public interface ArchiveService {
+
+    /**
+     * Resolve and authorize the files of an archive request before any bytes are sent
+     */
+    List<FileMetadataDto> resolveArchive(ArchiveRequestDto request, String userId);
+
+    /**
+     * Stream the files as a ZIP archive; nothing is staged in memory or on disk
+     */
+    void writeArchive(List<FileMetadataDto> files, String userId, OutputStream out) throws IOException;
+}
@@ -0,0 +1,27 @@
+package com.gnexdrive.fileservice.service;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.fileservice.dto.DeltaUploadDto;
+import com.gnexdrive.fileservice.dto.FileSignatureDto;
+
+import java.io.InputStream;
+
+/**
+ * Block-level delta sync: new versions of a file are uploaded as changes against the current one
+ */
+public interface DeltaSyncService {
+
+    /**
+     * Block signatures of the file's current version; computed and stored on first use
+     */
+    FileSignatureDto getSignature(String fileId, String userId);
+
+    /**
+     * Build the next version of a file from blocks of its current version and the changed bytes,
+     * store it and announce it with an incremented version
+     * @param data changed bytes, in the order the instructions take them
+     * @throws IllegalStateException if the delta was computed against a version that is no longer current,
+     *         including when another delta against the same version is stored first
+     */
+    FileMetadataDto applyDelta(String fileId, DeltaUploadDto delta, InputStream data, long dataLength, String userId);
+}
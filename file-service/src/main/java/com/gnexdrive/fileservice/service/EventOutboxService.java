@@ -0,0 +1,30 @@
+package com.gnexdrive.fileservice.service;
+
+import com.gnexdrive.common.event.FileEvent;
+
+import java.util.List;
+
+/**
+ * Durable outbox for events that must reach Kafka
+ */
+public interface EventOutboxService {
+
+    /**
+     * Record an event for relay to Kafka.
+     * Returns once the event is on local disk; delivery is at-least-once.
+     * @throws java.util.concurrent.RejectedExecutionException if the outbox is saturated; the event is then never relayed
+     */
+    void append(String topic, FileEvent event);
+
+    /**
+     * Record several events for relay to Kafka, journaled and relayed together where possible.
+     * Never rejects the whole call; events that could not be recorded in time are reported individually.
+     * @return for each event, whether it is on local disk
+     */
+    List<Boolean> appendAll(String topic, List<FileEvent> events);
+
+    /**
+     * Number of recorded events not yet acknowledged by Kafka
+     */
+    long pendingEvents();
+}
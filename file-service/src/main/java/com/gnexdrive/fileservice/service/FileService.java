@@ -1,9 +1,13 @@
 package com.gnexdrive.fileservice.service;
 
 import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.fileservice.dto.BatchUploadResultDto;
+import com.gnexdrive.fileservice.dto.PresignedUrlDto;
 import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.util.List;
+
 /**
  * Service interface for file operations
  */
@@ -14,11 +18,45 @@ public interface FileService {
      */
     FileMetadataDto uploadFile(MultipartFile file, String userId);
 
+    /**
+     * Upload many files at once; a file that fails does not fail the others
+     * @return one result per file, in request order
+     */
+    List<BatchUploadResultDto> uploadFiles(List<MultipartFile> files, String userId);
+
     /**
      * Download a file from object storage
      */
     Resource downloadFile(String fileId, String userId);
 
+    /**
+     * Resolve metadata of a file the user is allowed to download and has not deleted
+     */
+    FileMetadataDto getDownloadableFile(String fileId, String userId);
+
+    /**
+     * Download a byte range of a file resolved by {@link #getDownloadableFile};
+     * a negative length reads to the end of the file
+     */
+    Resource downloadFile(FileMetadataDto metadata, String userId, long offset, long length);
+
+    /**
+     * Issue a short-lived pre-signed URL the user can download the file from directly
+     */
+    PresignedUrlDto getDownloadUrl(String fileId, String userId);
+
+    /**
+     * Duplicate a file inside object storage; its bytes never pass through this service
+     * @param fileName name of the copy, or null for "Copy of &lt;name&gt;"
+     * @return metadata of the copy, announced to metadata-service as a new upload
+     */
+    FileMetadataDto copyFile(String fileId, String fileName, String userId);
+
+    /**
+     * Move a file to a new name; the stored object is not touched
+     */
+    FileMetadataDto moveFile(String fileId, String fileName, String userId);
+
     /**
      * Delete a file from object storage
      */
@@ -33,4 +71,19 @@ public interface FileService {
      * Validate file before upload
      */
     void validateFile(MultipartFile file);
+
+    /**
+     * Announce a file whose content is already in object storage
+     */
+    void publishUploadEvent(FileMetadataDto metadata);
+
+    /**
+     * Announce a new version of an existing file; usage is charged for the size difference only
+     */
+    void publishVersionEvent(FileMetadataDto metadata, long previousFileSize);
+
+    /**
+     * Record that a user downloaded a file
+     */
+    void publishDownloadEvent(String fileId, String userId);
 }
@@ -0,0 +1,21 @@
+package com.gnexdrive.fileservice.service;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import org.springframework.core.io.Resource;
+
+/**
+ * Read-through cache for small, frequently downloaded objects
+ */
+public interface HotObjectCache {
+
+    /**
+     * Read a file's content, from memory when it is small enough to be cached,
+     * otherwise straight from object storage; a negative length reads to the end
+     */
+    Resource read(FileMetadataDto metadata, long offset, long length);
+
+    /**
+     * Drop every cached copy of the object at the storage path
+     */
+    void invalidate(String storagePath);
+}
@@ -2,23 +2,36 @@ package com.gnexdrive.fileservice.service;
 
 import com.gnexdrive.common.event.FileEvent;
 
+import java.util.List;
+
 /**
  * Kafka producer service for publishing file events
  */
 public interface KafkaProducerService {
 
     /**
-     * Publish file uploaded event
+     * Publish file uploaded event; returns once the event is durably recorded
      */
     void publishFileUploadedEvent(FileEvent event);
 
     /**
-     * Publish file deleted event
+     * Publish several file uploaded events as one batch
+     * @return for each event, whether it was durably recorded
+     */
+    List<Boolean> publishFileUploadedEvents(List<FileEvent> events);
+
+    /**
+     * Publish file deleted event; returns once the event is durably recorded
      */
     void publishFileDeletedEvent(FileEvent event);
 
     /**
-     * Publish file downloaded event
+     * Publish metadata updated event; returns once the event is durably recorded
+     */
+    void publishMetadataUpdatedEvent(FileEvent event);
+
+    /**
+     * Publish file downloaded event (best effort)
      */
     void publishFileDownloadedEvent(FileEvent event);
 }
@@ -1,15 +1,29 @@
 package com.gnexdrive.fileservice.service;
 
+import com.gnexdrive.fileservice.model.StoredObjectInfo;
 import org.springframework.core.io.Resource;
-import org.springframework.web.multipart.MultipartFile;
 
 import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for object storage operations (MinIO/S3)
  */
 public interface ObjectStorageService {
 
+    /**
+     * Key prefix under which multipart upload parts are staged
+     */
+    String MULTIPART_PREFIX = ".uploads/";
+
+    /**
+     * Key prefix under which block signatures of stored content are kept, followed by the content's key
+     */
+    String SIGNATURE_PREFIX = ".signatures/";
+
     /**
      * Upload file to object storage
      */
@@ -20,6 +34,16 @@ public interface ObjectStorageService {
      */
     Resource downloadFile(String fileName);
 
+    /**
+     * Download a byte range of a file from object storage; a negative length reads to the end
+     */
+    Resource downloadFile(String fileName, long offset, long length);
+
+    /**
+     * Copy an object to a new name inside the storage backend; the content never passes through this service
+     */
+    String copyObject(String sourceFileName, String targetFileName);
+
     /**
      * Delete file from object storage
      */
@@ -31,12 +55,80 @@ public interface ObjectStorageService {
     boolean fileExists(String fileName);
 
     /**
-     * Get file URL (pre-signed URL)
+     * Get a pre-signed URL the client can download the file from directly
+     * @param downloadName file name the client should save the download as, or null
+     */
+    String getFileUrl(String fileName, String downloadName, Duration expiry);
+
+    /**
+     * Get a pre-signed URL the client can PUT the file content to directly
+     */
+    String getUploadUrl(String fileName, Duration expiry);
+
+    /**
+     * Get file metadata from storage; a missing object raises ResourceNotFoundException
+     */
+    StoredObjectInfo getFileMetadata(String fileName);
+
+    /**
+     * List up to maxKeys objects, in key order, whose names sort after startAfter (null to start at the beginning)
+     */
+    List<StoredObjectInfo> listObjects(String startAfter, int maxKeys);
+
+    /**
+     * Whether objects are stored under their content hash, so identical content is stored once
+     */
+    default boolean isContentAddressed() {
+        return false;
+    }
+
+    /**
+     * Storage path for content with the given SHA-256 hash (content-addressed backends only)
+     */
+    default String contentPath(String contentHash) {
+        throw new UnsupportedOperationException("Storage backend is not content-addressed");
+    }
+
+    /**
+     * Point a new file at already stored content instead of storing it again, and keep the content
+     * from being reclaimed while the new file's metadata is in flight (content-addressed backends only)
+     * @return false if the content is not stored, so it has to be uploaded
+     */
+    default boolean reuseContent(String fileName) {
+        throw new UnsupportedOperationException("Storage backend is not content-addressed");
+    }
+
+    /**
+     * When stored content was last reused by a new file, or null if never
+     */
+    default Instant lastReferencedAt(String fileName) {
+        return null;
+    }
+
+    /**
+     * Upload a single part of a multipart upload
+     * @return ETag of the stored part
+     */
+    String uploadPart(String uploadId, int partNumber, InputStream inputStream, long size);
+
+    /**
+     * List parts already stored for a multipart upload (part number -> size)
+     */
+    Map<Integer, Long> listParts(String uploadId);
+
+    /**
+     * Assemble all stored parts, in part-number order, into the final object
+     * and discard the staged parts
+     */
+    String completeMultipartUpload(String uploadId, String fileName, String contentType);
+
+    /**
+     * Discard everything staged for a multipart upload
      */
-    String getFileUrl(String fileName);
+    void abortMultipartUpload(String uploadId);
 
     /**
-     * Get file metadata from storage
+     * Find multipart uploads whose staging area has not been touched for the given age
      */
-    Object getFileMetadata(String fileName);
+    List<String> listStaleMultipartUploads(Duration maxAge);
 }
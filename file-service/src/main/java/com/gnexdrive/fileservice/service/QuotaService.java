@@ -0,0 +1,29 @@
+package com.gnexdrive.fileservice.service;
+
+/**
+ * Per-user storage quota, checked against in-memory usage counters
+ */
+public interface QuotaService {
+
+    /**
+     * Reserve room for a file about to be stored; the reservation is turned into usage
+     * by the file's upload event or given back with {@link #release(String)}
+     * @throws com.gnexdrive.common.exception.QuotaExceededException if the file does not fit
+     */
+    void reserve(String userId, String fileId, long bytes);
+
+    /**
+     * Give back the reservation of a file that will not be stored
+     */
+    void release(String fileId);
+
+    /**
+     * Count a stored file towards its owner's usage
+     */
+    void recordUpload(String userId, String fileId, long bytes);
+
+    /**
+     * Stop counting a deleted file towards its owner's usage
+     */
+    void recordDelete(String userId, long bytes);
+}
@@ -0,0 +1,27 @@
+package com.gnexdrive.fileservice.service;
+
+import java.io.InputStream;
+
+/**
+ * Shares the pod's upload and download bandwidth between users.
+ * Transfers are paced by wrapping the stream their bytes are read from.
+ */
+public interface TransferScheduler {
+
+    enum Direction {
+        UPLOAD,
+        DOWNLOAD
+    }
+
+    /**
+     * Whether any limit is configured; when not, {@link #throttle} returns streams unchanged
+     */
+    boolean isEnabled();
+
+    /**
+     * Pace reads from the stream according to the user's and the pod's byte-rate limits
+     * @param expectedBytes total size of the transfer the stream belongs to, or -1 if unknown;
+     *                      small transfers are treated as interactive and get priority
+     */
+    InputStream throttle(String userId, Direction direction, long expectedBytes, InputStream in);
+}
@@ -0,0 +1,41 @@
+package com.gnexdrive.fileservice.service;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.fileservice.dto.UploadChunkDto;
+import com.gnexdrive.fileservice.dto.UploadSessionDto;
+import com.gnexdrive.fileservice.dto.UploadSessionRequestDto;
+
+import java.io.InputStream;
+
+/**
+ * Service interface for resumable chunked uploads
+ */
+public interface UploadSessionService {
+
+    /**
+     * Start a new upload session
+     */
+    UploadSessionDto initSession(UploadSessionRequestDto request, String userId);
+
+    /**
+     * Store a single chunk of an upload session.
+     * Re-sending a chunk replaces the previously stored copy.
+     */
+    UploadChunkDto uploadChunk(String uploadId, int chunkIndex, InputStream content,
+                               long contentLength, String userId);
+
+    /**
+     * Get session state, including the chunks acknowledged so far
+     */
+    UploadSessionDto getSession(String uploadId, String userId);
+
+    /**
+     * Assemble the received chunks into the final file
+     */
+    FileMetadataDto completeSession(String uploadId, String userId);
+
+    /**
+     * Abort a session and discard its chunks
+     */
+    void abortSession(String uploadId, String userId);
+}
@@ -0,0 +1,236 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.dto.ArchiveRequestDto;
+import com.gnexdrive.fileservice.service.ArchiveService;
+import com.gnexdrive.fileservice.service.FileService;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import com.gnexdrive.fileservice.service.TransferScheduler;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Streams ZIP archives straight from object storage to the client.
+ * While one entry is being written, the next objects are already opened and
+ * their first bytes read on the prefetch executor, so the response never waits
+ * on storage latency between entries. Memory per archive is bounded by
+ * (prefetch depth + 1) x prefetch bytes.
+ */
+@Slf4j
+@Service
+public class ArchiveServiceImpl implements ArchiveService {
+
+    private final ObjectStorageService objectStorageService;
+    private final MetadataServiceClient metadataServiceClient;
+    private final FileService fileService;
+    private final TransferScheduler transferScheduler;
+    private final Executor prefetchExecutor;
+    private final int maxFiles;
+    private final int prefetchDepth;
+    private final int prefetchBytes;
+
+    public ArchiveServiceImpl(ObjectStorageService objectStorageService,
+                              MetadataServiceClient metadataServiceClient,
+                              FileService fileService,
+                              TransferScheduler transferScheduler,
+                              @Qualifier("archivePrefetchExecutor") Executor prefetchExecutor,
+                              @Value("${archive.max-files:1000}") int maxFiles,
+                              @Value("${archive.prefetch.depth:4}") int prefetchDepth,
+                              @Value("${archive.prefetch.bytes:1048576}") int prefetchBytes) {
+        this.objectStorageService = objectStorageService;
+        this.metadataServiceClient = metadataServiceClient;
+        this.fileService = fileService;
+        this.transferScheduler = transferScheduler;
+        this.prefetchExecutor = prefetchExecutor;
+        this.maxFiles = maxFiles;
+        this.prefetchDepth = prefetchDepth;
+        this.prefetchBytes = prefetchBytes;
+    }
+
+    @Override
+    public List<FileMetadataDto> resolveArchive(ArchiveRequestDto request, String userId) {
+        if (request.getFolderId() != null) {
+            // File metadata carries no folder reference yet, so a folder cannot be expanded into its files
+            throw new IllegalArgumentException("Folder archives are not supported yet; select the files instead");
+        }
+
+        List<String> fileIds = request.getFileIds() == null ? List.of()
+                : request.getFileIds().stream().distinct().toList();
+        if (fileIds.isEmpty()) {
+            throw new IllegalArgumentException("No files selected");
+        }
+        if (fileIds.size() > maxFiles) {
+            throw new IllegalArgumentException("At most " + maxFiles + " files can be archived at once");
+        }
+
+        Map<String, FileMetadataDto> metadata = metadataServiceClient.getFileMetadata(fileIds);
+        List<FileMetadataDto> files = new ArrayList<>(fileIds.size());
+        for (String fileId : fileIds) {
+            FileMetadataDto file = metadata.get(fileId);
+            if (file == null || "DELETED".equals(file.getStatus())) {
+                throw new ResourceNotFoundException("File not found: " + fileId);
+            }
+            if (!userId.equals(file.getOwnerId())) {
+                log.warn("Unauthorized archive attempt: fileId={}, userId={}", fileId, userId);
+                throw new SecurityException("You do not have permission to download file " + fileId);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    @Override
+    public void writeArchive(List<FileMetadataDto> files, String userId, OutputStream out) throws IOException {
+        log.info("Streaming archive: files={}, userId={}", files.size(), userId);
+
+        Deque<CompletableFuture<PrefetchedObject>> window = new ArrayDeque<>();
+        Set<String> entryNames = new HashSet<>();
+        int next = 0;
+        try {
+            ZipOutputStream zip = new ZipOutputStream(out);
+            while (next < files.size() && window.size() < prefetchDepth) {
+                window.add(prefetch(files.get(next++), userId));
+            }
+
+            while (!window.isEmpty()) {
+                PrefetchedObject object = await(window.poll());
+                // Refill before writing so the next fetch overlaps with this entry
+                if (next < files.size()) {
+                    window.add(prefetch(files.get(next++), userId));
+                }
+
+                FileMetadataDto file = object.file();
+                try (InputStream rest = object.rest()) {
+                    zip.setLevel(isCompressible(file.getContentType()) ? Deflater.BEST_SPEED : Deflater.NO_COMPRESSION);
+                    ZipEntry entry = new ZipEntry(entryName(file, entryNames));
+                    if (file.getUploadedAt() != null) {
+                        entry.setTimeLocal(file.getUploadedAt());
+                    }
+
+                    zip.putNextEntry(entry);
+                    zip.write(object.head(), 0, object.headLength());
+                    rest.transferTo(zip);
+                    zip.closeEntry();
+                }
+
+                fileService.publishDownloadEvent(file.getFileId(), userId);
+            }
+
+            zip.finish();
+            zip.flush();
+            log.info("Archive streamed: files={}, userId={}", files.size(), userId);
+
+        } finally {
+            // Client went away or an object failed: release whatever was already fetched
+            window.forEach(pending -> pending.whenComplete((object, error) -> {
+                if (object != null) {
+                    closeQuietly(object.rest());
+                }
+            }));
+        }
+    }
+
+    /**
+     * Open the object and read its first bytes off the writing thread.
+     * Every entry is paced as bulk: an archive is one large transfer however small its files are.
+     */
+    private CompletableFuture<PrefetchedObject> prefetch(FileMetadataDto file, String userId) {
+        return CompletableFuture.supplyAsync(() -> {
+            InputStream in = null;
+            try {
+                in = transferScheduler.throttle(userId, TransferScheduler.Direction.DOWNLOAD, -1,
+                        objectStorageService.downloadFile(file.getStoragePath()).getInputStream());
+                byte[] head = new byte[prefetchBytes];
+                int headLength = in.readNBytes(head, 0, head.length);
+                return new PrefetchedObject(file, head, headLength, in);
+
+            } catch (IOException e) {
+                closeQuietly(in);
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException e) {
+                closeQuietly(in);
+                throw e;
+            }
+        }, prefetchExecutor);
+    }
+
+    private PrefetchedObject await(CompletableFuture<PrefetchedObject> pending) throws IOException {
+        try {
+            return pending.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            // Headers are already sent, so the only option left is to abort the stream
+            throw new IOException("Failed to read object for archive: " + cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * Unique, path-free entry name; duplicates become "name (1).ext", "name (2).ext", ...
+     */
+    private String entryName(FileMetadataDto file, Set<String> used) {
+        String name = file.getFileName() != null && !file.getFileName().isBlank()
+                ? file.getFileName().replaceAll("[\\\\/:\\p{Cntrl}]", "_")
+                : file.getFileId();
+        if (used.add(name)) {
+            return name;
+        }
+
+        int dot = name.lastIndexOf('.');
+        String base = dot > 0 ? name.substring(0, dot) : name;
+        String extension = dot > 0 ? name.substring(dot) : "";
+        for (int copy = 1; ; copy++) {
+            String candidate = base + " (" + copy + ")" + extension;
+            if (used.add(candidate)) {
+                return candidate;
+            }
+        }
+    }
+
+    /**
+     * Media and archives are already compressed; deflating them only burns CPU
+     */
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        return !(contentType.startsWith("image/") || contentType.startsWith("video/")
+                || contentType.startsWith("audio/") || contentType.contains("zip")
+                || contentType.contains("compressed") || contentType.equals("application/pdf"));
+    }
+
+    private void closeQuietly(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
+            in.close();
+        } catch (IOException e) {
+            log.debug("Failed to close object stream: {}", e.getMessage());
+        }
+    }
+
+    private record PrefetchedObject(FileMetadataDto file, byte[] head, int headLength, InputStream rest) {
+    }
+}
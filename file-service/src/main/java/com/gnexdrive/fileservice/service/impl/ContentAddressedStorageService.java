@@ -0,0 +1,153 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.fileservice.model.StoredObjectInfo;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deduplicating object storage.
+ * Blobs are stored once under their SHA-256 hash; every file metadata record
+ * pointing at a blob counts as a reference. Blobs are removed only by the storage
+ * reconciler, once metadata-service reports no live reference. A new file pointed
+ * at an existing blob has no record until its file.uploaded event lands, so reusing
+ * a blob leaves a reference marker the reconciler honours in the meantime.
+ */
+@Service
+@Primary
+@ConditionalOnProperty(prefix = "storage.dedup", name = "enabled", havingValue = "true")
+public class ContentAddressedStorageService implements ObjectStorageService {
+
+    private static final String BLOB_PREFIX = "blobs/";
+
+    /**
+     * Key prefix of reference markers, followed by the blob's key; the leading dot keeps them out of the reconciler walk
+     */
+    private static final String REFERENCE_PREFIX = ".references/";
+
+    private final ObjectStorageService delegate;
+
+    public ContentAddressedStorageService(@Qualifier("storageBackend") ObjectStorageService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public boolean isContentAddressed() {
+        return true;
+    }
+
+    @Override
+    public String contentPath(String contentHash) {
+        // Two-level fan-out keeps listings of the blob namespace manageable
+        return BLOB_PREFIX + contentHash.substring(0, 2) + "/" + contentHash;
+    }
+
+    @Override
+    public boolean reuseContent(String fileName) {
+        if (!delegate.fileExists(fileName)) {
+            return false;
+        }
+        // Mark first, then look again: a reconciler that deleted the blob before seeing the mark is caught here
+        delegate.uploadFile(REFERENCE_PREFIX + fileName, new ByteArrayInputStream(new byte[0]), "application/octet-stream", 0);
+        return delegate.fileExists(fileName);
+    }
+
+    @Override
+    public Instant lastReferencedAt(String fileName) {
+        try {
+            return delegate.getFileMetadata(REFERENCE_PREFIX + fileName).getLastModified();
+        } catch (ResourceNotFoundException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String uploadFile(String fileName, InputStream inputStream, String contentType, long size) {
+        return delegate.uploadFile(fileName, inputStream, contentType, size);
+    }
+
+    @Override
+    public Resource downloadFile(String fileName) {
+        return delegate.downloadFile(fileName);
+    }
+
+    @Override
+    public Resource downloadFile(String fileName, long offset, long length) {
+        return delegate.downloadFile(fileName, offset, length);
+    }
+
+    @Override
+    public String copyObject(String sourceFileName, String targetFileName) {
+        return delegate.copyObject(sourceFileName, targetFileName);
+    }
+
+    @Override
+    public void deleteFile(String fileName) {
+        delegate.deleteFile(fileName);
+        if (fileName.startsWith(BLOB_PREFIX) && delegate.fileExists(REFERENCE_PREFIX + fileName)) {
+            delegate.deleteFile(REFERENCE_PREFIX + fileName);
+        }
+    }
+
+    @Override
+    public boolean fileExists(String fileName) {
+        return delegate.fileExists(fileName);
+    }
+
+    @Override
+    public String getFileUrl(String fileName, String downloadName, Duration expiry) {
+        return delegate.getFileUrl(fileName, downloadName, expiry);
+    }
+
+    @Override
+    public String getUploadUrl(String fileName, Duration expiry) {
+        // Content arriving through a pre-signed URL is not hashed, so it is stored by path, not as a blob
+        return delegate.getUploadUrl(fileName, expiry);
+    }
+
+    @Override
+    public StoredObjectInfo getFileMetadata(String fileName) {
+        return delegate.getFileMetadata(fileName);
+    }
+
+    @Override
+    public List<StoredObjectInfo> listObjects(String startAfter, int maxKeys) {
+        return delegate.listObjects(startAfter, maxKeys);
+    }
+
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long size) {
+        return delegate.uploadPart(uploadId, partNumber, inputStream, size);
+    }
+
+    @Override
+    public Map<Integer, Long> listParts(String uploadId) {
+        return delegate.listParts(uploadId);
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, String fileName, String contentType) {
+        return delegate.completeMultipartUpload(uploadId, fileName, contentType);
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        delegate.abortMultipartUpload(uploadId);
+    }
+
+    @Override
+    public List<String> listStaleMultipartUploads(Duration maxAge) {
+        return delegate.listStaleMultipartUploads(maxAge);
+    }
+}
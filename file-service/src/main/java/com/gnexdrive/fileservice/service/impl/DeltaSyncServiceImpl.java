@@ -0,0 +1,500 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnexdrive.common.constant.AppConstants;
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.common.util.FileUtils;
+import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.dto.BlockSignatureDto;
+import com.gnexdrive.fileservice.dto.DeltaInstructionDto;
+import com.gnexdrive.fileservice.dto.DeltaUploadDto;
+import com.gnexdrive.fileservice.dto.FileSignatureDto;
+import com.gnexdrive.fileservice.service.DeltaSyncService;
+import com.gnexdrive.fileservice.service.FileService;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import com.gnexdrive.fileservice.service.QuotaService;
+import com.gnexdrive.fileservice.service.TransferScheduler;
+import com.gnexdrive.fileservice.util.RollingChecksum;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * rsync-style delta sync.
+ * Every stored content has its block signatures kept next to it under
+ * {@link ObjectStorageService#SIGNATURE_PREFIX}; they live and die with the content,
+ * which the storage reconciler takes care of. A client fetches the signatures,
+ * finds the unchanged blocks with the rolling checksum and sends only the rest.
+ * The new version is assembled here in one streaming pass: base blocks are read
+ * from storage with ranged reads that are reused while the copies move forward,
+ * and the result is hashed and signed on its way back into storage.
+ */
+@Slf4j
+@Service
+public class DeltaSyncServiceImpl implements DeltaSyncService {
+
+    private final ObjectStorageService objectStorageService;
+    private final MetadataServiceClient metadataServiceClient;
+    private final FileService fileService;
+    private final QuotaService quotaService;
+    private final TransferScheduler transferScheduler;
+    private final ObjectMapper objectMapper;
+    private final int blockSize;
+    private final long maxSkipBytes;
+
+    /**
+     * Files with a delta being applied on this replica; metadata-service settles races between replicas
+     */
+    private final Set<String> applying = ConcurrentHashMap.newKeySet();
+
+    public DeltaSyncServiceImpl(ObjectStorageService objectStorageService,
+                                MetadataServiceClient metadataServiceClient,
+                                FileService fileService,
+                                QuotaService quotaService,
+                                TransferScheduler transferScheduler,
+                                ObjectMapper objectMapper,
+                                @Value("${delta.block-size:65536}") int blockSize,
+                                @Value("${delta.max-skip-bytes:4194304}") long maxSkipBytes) {
+        this.objectStorageService = objectStorageService;
+        this.metadataServiceClient = metadataServiceClient;
+        this.fileService = fileService;
+        this.quotaService = quotaService;
+        this.transferScheduler = transferScheduler;
+        this.objectMapper = objectMapper;
+        this.blockSize = blockSize;
+        this.maxSkipBytes = maxSkipBytes;
+    }
+
+    @Override
+    public FileSignatureDto getSignature(String fileId, String userId) {
+        FileMetadataDto file = resolveCurrentVersion(fileId, userId);
+        FileSignatureDto signature = loadSignature(file);
+        signature.setFileId(fileId);
+        signature.setVersion(versionOf(file));
+        return signature;
+    }
+
+    @Override
+    public FileMetadataDto applyDelta(String fileId, DeltaUploadDto delta, InputStream data, long dataLength, String userId) {
+        if (!applying.add(fileId)) {
+            throw new IllegalStateException("Another new version of file " + fileId
+                    + " is being stored; fetch the signature again once it is done");
+        }
+        try {
+            return apply(fileId, delta, data, dataLength, userId);
+        } finally {
+            applying.remove(fileId);
+        }
+    }
+
+    private FileMetadataDto apply(String fileId, DeltaUploadDto delta, InputStream data, long dataLength, String userId) {
+        FileMetadataDto base = resolveCurrentVersion(fileId, userId);
+        int baseVersion = versionOf(base);
+        if (delta.getBaseVersion() == null || delta.getFileSize() == null || delta.getInstructions() == null) {
+            throw new IllegalArgumentException("baseVersion, fileSize and instructions are required");
+        }
+        if (delta.getBaseVersion() != baseVersion) {
+            throw new IllegalStateException(String.format(
+                    "Delta is against version %d but version %d is current; fetch the signature again",
+                    delta.getBaseVersion(), baseVersion));
+        }
+        if (delta.getFileSize() < 0 || delta.getFileSize() > AppConstants.MAX_FILE_SIZE) {
+            throw new IllegalArgumentException("File size must be between 0 and "
+                    + FileUtils.formatFileSize(AppConstants.MAX_FILE_SIZE));
+        }
+
+        FileSignatureDto signature = loadSignature(base);
+        List<Segment> segments = plan(delta, signature, dataLength);
+        int version = baseVersion + 1;
+        log.info("Applying delta: fileId={}, version={}, size={}, newBytes={}", fileId, version, delta.getFileSize(), dataLength);
+
+        // Only growth needs room; the base version stops counting once the new one is recorded
+        quotaService.reserve(userId, fileId, Math.max(0, delta.getFileSize() - base.getFileSize()));
+        String extension = FileUtils.extractFileExtension(base.getFileName());
+        // Unique per attempt, so two deltas racing to the same version never write over each other's content
+        String versionPath = userId + "/" + fileId + "-v" + version + "-" + FileUtils.generateFileId()
+                + (extension.isEmpty() ? "" : "." + extension);
+        try {
+            MessageDigest md5 = FileUtils.newChecksumDigest();
+            MessageDigest sha256 = objectStorageService.isContentAddressed() ? MessageDigest.getInstance("SHA-256") : null;
+            SignatureBuilder signer = new SignatureBuilder(blockSize);
+            InputStream changes = transferScheduler.throttle(userId, TransferScheduler.Direction.UPLOAD, dataLength, data);
+            try (BaseReader baseReader = new BaseReader(base.getStoragePath())) {
+                InputStream content = new DigestInputStream(new SigningInputStream(
+                        new DeltaInputStream(segments.iterator(), baseReader, changes), signer), md5);
+                if (sha256 != null) {
+                    content = new DigestInputStream(content, sha256);
+                }
+                objectStorageService.uploadFile(versionPath, content, base.getContentType(), delta.getFileSize());
+            }
+
+            String checksum = FileUtils.toHex(md5.digest());
+            if (delta.getChecksum() != null && !delta.getChecksum().equalsIgnoreCase(checksum)) {
+                objectStorageService.deleteFile(versionPath);
+                throw new IllegalArgumentException("Reconstructed content does not match checksum " + delta.getChecksum());
+            }
+
+            String storagePath = versionPath;
+            if (sha256 != null) {
+                // The content hash is only known now: move the assembled version under it, server-side
+                storagePath = objectStorageService.contentPath(FileUtils.toHex(sha256.digest()));
+                if (!objectStorageService.reuseContent(storagePath)) {
+                    objectStorageService.copyObject(versionPath, storagePath);
+                }
+                objectStorageService.deleteFile(versionPath);
+            }
+            saveSignature(storagePath, signer.build());
+
+            FileMetadataDto metadata = FileMetadataDto.builder()
+                    .fileId(fileId)
+                    .fileName(base.getFileName())
+                    .fileType(base.getFileType())
+                    .fileSize(delta.getFileSize())
+                    .ownerId(userId)
+                    .storagePath(storagePath)
+                    .contentType(base.getContentType())
+                    .checksum(checksum)
+                    .uploadedAt(base.getUploadedAt())
+                    .modifiedAt(LocalDateTime.now())
+                    .status("UPLOADED")
+                    .version(version)
+                    .build();
+
+            // Recorded only if the file is still at the base version; of two racing deltas the second is refused
+            try {
+                metadataServiceClient.recordVersion(metadata, baseVersion);
+            } catch (IllegalStateException | ResourceNotFoundException e) {
+                if (sha256 == null) {
+                    // Nothing else refers to this attempt's content; shared content is left to the storage reconciler
+                    discard(storagePath);
+                    discard(ObjectStorageService.SIGNATURE_PREFIX + storagePath);
+                }
+                throw e;
+            }
+
+            // The base version's content is no longer referenced; the storage reconciler reclaims it
+            fileService.publishVersionEvent(metadata, base.getFileSize());
+
+            log.info("Delta applied: fileId={}, version={}, path={}", fileId, version, storagePath);
+            return metadata;
+
+        } catch (IllegalArgumentException | IllegalStateException | ResourceNotFoundException
+                 | RejectedExecutionException e) {
+            quotaService.release(fileId);
+            throw e;
+        } catch (Exception e) {
+            quotaService.release(fileId);
+            log.error("Failed to apply delta: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to apply delta: " + e.getMessage(), e);
+        }
+    }
+
+    private void discard(String path) {
+        try {
+            objectStorageService.deleteFile(path);
+        } catch (Exception e) {
+            log.warn("Failed to delete {}, left to the storage reconciler: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Resolve the file with a fresh lookup, so the version compared against is not a cached one
+     */
+    private FileMetadataDto resolveCurrentVersion(String fileId, String userId) {
+        metadataServiceClient.invalidate(fileId);
+        FileMetadataDto file = metadataServiceClient.resolveOwnedFile(fileId, userId);
+        if ("DELETED".equals(file.getStatus())) {
+            throw new ResourceNotFoundException("File not found: " + fileId);
+        }
+        return file;
+    }
+
+    private int versionOf(FileMetadataDto file) {
+        return file.getVersion() != null ? file.getVersion() : 1;
+    }
+
+    /**
+     * Check the instructions against the base version and turn them into byte ranges
+     */
+    private List<Segment> plan(DeltaUploadDto delta, FileSignatureDto signature, long dataLength) {
+        int blockCount = signature.getBlocks().size();
+        long baseBlockSize = signature.getBlockSize();
+        List<Segment> segments = new ArrayList<>(delta.getInstructions().size());
+        long total = 0;
+        long literal = 0;
+        for (DeltaInstructionDto instruction : delta.getInstructions()) {
+            if ((instruction.getBlock() == null) == (instruction.getLength() == null)) {
+                throw new IllegalArgumentException("Every instruction needs either a block or a length");
+            }
+            if (instruction.getBlock() != null) {
+                int count = instruction.getCount() != null ? instruction.getCount() : 1;
+                if (instruction.getBlock() < 0 || count < 1 || (long) instruction.getBlock() + count > blockCount) {
+                    throw new IllegalArgumentException(String.format("Blocks %d+%d are outside the base version's %d blocks",
+                            instruction.getBlock(), count, blockCount));
+                }
+                long offset = instruction.getBlock() * baseBlockSize;
+                long end = Math.min((instruction.getBlock() + (long) count) * baseBlockSize, signature.getFileSize());
+                segments.add(new Segment(true, offset, end - offset));
+                total += end - offset;
+            } else {
+                if (instruction.getLength() < 0) {
+                    throw new IllegalArgumentException("Instruction length must not be negative");
+                }
+                segments.add(new Segment(false, 0, instruction.getLength()));
+                total += instruction.getLength();
+                literal += instruction.getLength();
+            }
+        }
+        if (total != delta.getFileSize()) {
+            throw new IllegalArgumentException(String.format(
+                    "Instructions produce %d bytes but fileSize is %d", total, delta.getFileSize()));
+        }
+        if (literal != dataLength) {
+            throw new IllegalArgumentException(String.format(
+                    "Instructions take %d new bytes but the data part has %d", literal, dataLength));
+        }
+        return segments;
+    }
+
+    /**
+     * Stored signatures of the content, or new ones computed from it in one pass and kept for next time
+     */
+    private FileSignatureDto loadSignature(FileMetadataDto file) {
+        String signaturePath = ObjectStorageService.SIGNATURE_PREFIX + file.getStoragePath();
+        try {
+            if (objectStorageService.fileExists(signaturePath)) {
+                try (InputStream in = objectStorageService.downloadFile(signaturePath).getInputStream()) {
+                    FileSignatureDto signature = objectMapper.readValue(in, FileSignatureDto.class);
+                    if (signature.getFileSize().equals(file.getFileSize())) {
+                        return signature;
+                    }
+                }
+            }
+
+            log.info("Computing block signatures: fileId={}, path={}", file.getFileId(), file.getStoragePath());
+            SignatureBuilder signer = new SignatureBuilder(blockSize);
+            try (InputStream in = objectStorageService.downloadFile(file.getStoragePath()).getInputStream()) {
+                byte[] buffer = new byte[AppConstants.STREAM_BUFFER_SIZE];
+                int read;
+                while ((read = in.read(buffer)) >= 0) {
+                    signer.update(buffer, 0, read);
+                }
+            }
+            FileSignatureDto signature = signer.build();
+            saveSignature(file.getStoragePath(), signature);
+            return signature;
+
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read block signatures: " + e.getMessage(), e);
+        }
+    }
+
+    private void saveSignature(String storagePath, FileSignatureDto signature) {
+        try {
+            byte[] content = objectMapper.writeValueAsBytes(signature);
+            objectStorageService.uploadFile(ObjectStorageService.SIGNATURE_PREFIX + storagePath,
+                    new ByteArrayInputStream(content), "application/json", content.length);
+        } catch (Exception e) {
+            // Only costs a recomputation on the next delta
+            log.warn("Failed to store block signatures for {}: {}", storagePath, e.getMessage());
+        }
+    }
+
+    /**
+     * A run of the new version: bytes of the base version, or the next bytes of the data part
+     */
+    private record Segment(boolean fromBase, long offset, long length) {
+    }
+
+    /**
+     * Reads the base version at increasing offsets over one storage stream,
+     * opening a new ranged read only to go backwards or to jump far ahead
+     */
+    private final class BaseReader implements Closeable {
+
+        private final String storagePath;
+        private InputStream in;
+        private long position;
+
+        private BaseReader(String storagePath) {
+            this.storagePath = storagePath;
+        }
+
+        private InputStream at(long offset) throws IOException {
+            if (in != null && offset >= position && offset - position <= maxSkipBytes) {
+                in.skipNBytes(offset - position);
+            } else {
+                close();
+                in = objectStorageService.downloadFile(storagePath, offset, -1).getInputStream();
+            }
+            position = offset;
+            return in;
+        }
+
+        private void advance(long bytes) {
+            position += bytes;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (in != null) {
+                in.close();
+                in = null;
+            }
+        }
+    }
+
+    /**
+     * The new version's content, assembled segment by segment as it is read
+     */
+    private static final class DeltaInputStream extends InputStream {
+
+        private final Iterator<Segment> segments;
+        private final BaseReader base;
+        private final InputStream changes;
+        private Segment segment;
+        private InputStream current;
+        private long remaining;
+
+        private DeltaInputStream(Iterator<Segment> segments, BaseReader base, InputStream changes) {
+            this.segments = segments;
+            this.base = base;
+            this.changes = changes;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            while (remaining == 0) {
+                if (!segments.hasNext()) {
+                    return -1;
+                }
+                segment = segments.next();
+                remaining = segment.length();
+                current = segment.fromBase() && remaining > 0 ? base.at(segment.offset()) : changes;
+            }
+
+            int read = current.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read < 0) {
+                throw new EOFException(segment.fromBase()
+                        ? "Base version ended before offset " + (segment.offset() + segment.length())
+                        : "Data part ended before all new bytes were read");
+            }
+            remaining -= read;
+            if (segment.fromBase()) {
+                base.advance(read);
+            }
+            return read;
+        }
+    }
+
+    /**
+     * Computes block signatures of content streamed through it
+     */
+    private static final class SignatureBuilder {
+
+        private final int blockSize;
+        private final byte[] block;
+        private final MessageDigest strong = FileUtils.newChecksumDigest();
+        private final List<BlockSignatureDto> blocks = new ArrayList<>();
+        private int filled;
+        private long size;
+
+        private SignatureBuilder(int blockSize) {
+            this.blockSize = blockSize;
+            this.block = new byte[blockSize];
+        }
+
+        private void update(byte[] data, int offset, int length) {
+            while (length > 0) {
+                int count = Math.min(length, blockSize - filled);
+                System.arraycopy(data, offset, block, filled, count);
+                filled += count;
+                offset += count;
+                length -= count;
+                size += count;
+                if (filled == blockSize) {
+                    flush();
+                }
+            }
+        }
+
+        private void flush() {
+            if (filled == 0) {
+                return;
+            }
+            strong.update(block, 0, filled);
+            blocks.add(BlockSignatureDto.builder()
+                    .weak(RollingChecksum.of(block, 0, filled))
+                    .strong(FileUtils.toHex(strong.digest()))
+                    .build());
+            filled = 0;
+        }
+
+        private FileSignatureDto build() {
+            flush();
+            return FileSignatureDto.builder()
+                    .fileSize(size)
+                    .blockSize(blockSize)
+                    .blocks(blocks)
+                    .build();
+        }
+    }
+
+    /**
+     * Feeds every byte read to a signature builder
+     */
+    private static final class SigningInputStream extends FilterInputStream {
+
+        private final SignatureBuilder signer;
+
+        private SigningInputStream(InputStream in, SignatureBuilder signer) {
+            super(in);
+            this.signer = signer;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = in.read();
+            if (b >= 0) {
+                signer.update(new byte[] {(byte) b}, 0, 1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = in.read(buffer, offset, length);
+            if (read > 0) {
+                signer.update(buffer, offset, read);
+            }
+            return read;
+        }
+    }
+}
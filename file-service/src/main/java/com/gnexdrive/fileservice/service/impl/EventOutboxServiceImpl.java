@@ -0,0 +1,487 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnexdrive.common.event.FileEvent;
+import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.fileservice.model.OutboxRecord;
+import com.gnexdrive.fileservice.service.EventOutboxService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Outbox backed by an append-only journal on local disk.
+ * A writer thread group-commits appends (one fsync per batch) before callers
+ * return; a relay thread sends journaled events to Kafka in order, checkpoints
+ * the last acknowledged sequence and drops journal segments once fully relayed.
+ * Events left in the journal on shutdown or crash are relayed on the next start.
+ */
+@Slf4j
+@Service
+public class EventOutboxServiceImpl implements EventOutboxService {
+
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final long MAX_RETRY_BACKOFF_MS = 30_000;
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long appendTimeoutMs;
+    private final int maxBatchSize;
+    private final long segmentBytes;
+    private final long sendTimeoutMs;
+    private final long retryBackoffMs;
+
+    private final BlockingQueue<PendingAppend> appendQueue;
+    private final BlockingQueue<OutboxRecord> relayQueue;
+    private final Deque<OutboxRecord> recoveredRecords = new ArrayDeque<>();
+    private final Deque<Segment> closedSegments = new ConcurrentLinkedDeque<>();
+
+    private volatile boolean running;
+    private volatile long nextSequence = 1;
+    private volatile long acknowledgedSequence;
+    private FileChannel activeChannel;
+    private Path activeSegment;
+    private Thread writerThread;
+    private Thread relayThread;
+
+    public EventOutboxServiceImpl(KafkaTemplate<String, Object> kafkaTemplate,
+                                  ObjectMapper objectMapper,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${outbox.dir:./data/outbox}") String directory,
+                                  @Value("${outbox.capacity:10000}") int capacity,
+                                  @Value("${outbox.relay-capacity:100000}") int relayCapacity,
+                                  @Value("${outbox.max-batch-size:500}") int maxBatchSize,
+                                  @Value("${outbox.append-timeout-ms:2000}") long appendTimeoutMs,
+                                  @Value("${outbox.segment-bytes:67108864}") long segmentBytes,
+                                  @Value("${outbox.send-timeout-ms:30000}") long sendTimeoutMs,
+                                  @Value("${outbox.retry-backoff-ms:500}") long retryBackoffMs) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.appendQueue = new ArrayBlockingQueue<>(capacity);
+        this.relayQueue = new ArrayBlockingQueue<>(relayCapacity);
+        this.maxBatchSize = maxBatchSize;
+        this.appendTimeoutMs = appendTimeoutMs;
+        this.segmentBytes = segmentBytes;
+        this.sendTimeoutMs = sendTimeoutMs;
+        this.retryBackoffMs = retryBackoffMs;
+
+        Gauge.builder("outbox.events.pending", this, EventOutboxServiceImpl::pendingEvents)
+                .description("Events recorded in the outbox but not yet acknowledged by Kafka")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        Files.createDirectories(directory);
+        acknowledgedSequence = readCheckpoint();
+        recover();
+        openSegment();
+        running = true;
+
+        writerThread = new Thread(this::writeLoop, "outbox-writer");
+        relayThread = new Thread(this::relayLoop, "outbox-relay");
+        writerThread.start();
+        relayThread.start();
+
+        log.info("Event outbox started: dir={}, nextSequence={}, recovered={}",
+                directory, nextSequence, recoveredRecords.size());
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException, IOException {
+        running = false;
+        writerThread.join();
+        relayThread.join(sendTimeoutMs + POLL_INTERVAL_MS);
+        activeChannel.close();
+        log.info("Event outbox stopped: {} events left for the next start", pendingEvents());
+    }
+
+    @Override
+    public void append(String topic, FileEvent event) {
+        if (!running) {
+            throw new IllegalStateException("Event outbox is not running");
+        }
+
+        PendingAppend pending = PendingAppend.of(topic, event);
+        try {
+            if (!appendQueue.offer(pending, appendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Event outbox is full, try again later");
+            }
+            if (!awaitDurable(pending, TimeUnit.MILLISECONDS.toNanos(appendTimeoutMs))) {
+                // Withdrawn before the writer took it, so it is never relayed and the client can safely retry
+                throw new RejectedExecutionException("Timed out waiting for the event outbox");
+            }
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.claim();
+            throw new FileStorageException("Interrupted while recording event", e);
+        } catch (ExecutionException e) {
+            throw new FileStorageException("Failed to record event: " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    @Override
+    public List<Boolean> appendAll(String topic, List<FileEvent> events) {
+        if (!running) {
+            throw new IllegalStateException("Event outbox is not running");
+        }
+
+        // Queued back to back so the writer group-commits them and the relay sends them as one batch
+        List<PendingAppend> queued = new ArrayList<>(events.size());
+        try {
+            for (FileEvent event : events) {
+                PendingAppend pending = PendingAppend.of(topic, event);
+                if (!appendQueue.offer(pending, appendTimeoutMs, TimeUnit.MILLISECONDS)) {
+                    log.warn("Event outbox full, {} of {} events not recorded", events.size() - queued.size(), events.size());
+                    break;
+                }
+                queued.add(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Boolean> recorded = new ArrayList<>(events.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(appendTimeoutMs);
+        for (PendingAppend pending : queued) {
+            try {
+                recorded.add(awaitDurable(pending, Math.max(0, deadline - System.nanoTime())));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                pending.claim();
+                recorded.add(false);
+            } catch (ExecutionException e) {
+                recorded.add(false);
+            }
+        }
+        while (recorded.size() < events.size()) {
+            recorded.add(false);
+        }
+        return recorded;
+    }
+
+    /**
+     * Wait for an append to be journaled. On timeout the append is withdrawn if the writer has not
+     * taken it yet; once taken it is about to be fsynced and relayed, so waiting for the write is
+     * the only answer that matches what happens to the event.
+     * @return false if the append was withdrawn and will never be journaled
+     */
+    private boolean awaitDurable(PendingAppend pending, long timeoutNanos) throws InterruptedException, ExecutionException {
+        try {
+            pending.durable().get(timeoutNanos, TimeUnit.NANOSECONDS);
+            return true;
+        } catch (TimeoutException e) {
+            if (pending.claim()) {
+                return false;
+            }
+            pending.durable().get();
+            return true;
+        }
+    }
+
+    @Override
+    public long pendingEvents() {
+        return Math.max(0, nextSequence - 1 - acknowledgedSequence);
+    }
+
+    private void writeLoop() {
+        List<PendingAppend> batch = new ArrayList<>(maxBatchSize);
+        while (running || !appendQueue.isEmpty()) {
+            try {
+                PendingAppend first = appendQueue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    truncateIfDrained();
+                    continue;
+                }
+                batch.add(first);
+                appendQueue.drainTo(batch, maxBatchSize - 1);
+                // Appends whose caller already gave up are dropped; the rest can no longer be withdrawn
+                batch.removeIf(pending -> !pending.claim());
+                if (!batch.isEmpty()) {
+                    writeBatch(batch);
+                }
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("Failed to write outbox batch of {} events: {}", batch.size(), e.getMessage(), e);
+                batch.forEach(pending -> pending.durable().completeExceptionally(e));
+                rollSegmentQuietly();
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Group commit: the whole batch is written and fsynced once before any caller returns
+     */
+    private void writeBatch(List<PendingAppend> batch) throws IOException, InterruptedException {
+        List<OutboxRecord> records = new ArrayList<>(batch.size());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        long sequence = nextSequence;
+        for (PendingAppend pending : batch) {
+            OutboxRecord record = OutboxRecord.builder()
+                    .sequence(sequence++)
+                    .topic(pending.topic())
+                    .key(pending.key())
+                    .event(pending.event())
+                    .build();
+            buffer.write(objectMapper.writeValueAsBytes(record));
+            buffer.write('\n');
+            records.add(record);
+        }
+
+        nextSequence = sequence;
+        ByteBuffer bytes = ByteBuffer.wrap(buffer.toByteArray());
+        while (bytes.hasRemaining()) {
+            activeChannel.write(bytes);
+        }
+        activeChannel.force(false);
+
+        batch.forEach(pending -> pending.durable().complete(null));
+
+        // Blocks while the relay is far behind, which in turn fills the append queue and rejects new work
+        for (OutboxRecord record : records) {
+            relayQueue.put(record);
+        }
+
+        if (activeChannel.size() >= segmentBytes) {
+            rollSegment();
+        }
+    }
+
+    private void relayLoop() {
+        List<OutboxRecord> batch = new ArrayList<>(maxBatchSize);
+        long backoff = retryBackoffMs;
+        while (running || !batch.isEmpty() || !relayQueue.isEmpty() || !recoveredRecords.isEmpty()) {
+            try {
+                if (batch.isEmpty() && !nextRelayBatch(batch)) {
+                    continue;
+                }
+
+                send(batch);
+                acknowledge(batch.get(batch.size() - 1).getSequence());
+                batch.clear();
+                backoff = retryBackoffMs;
+
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Failed to relay {} outbox events, retrying in {} ms: {}",
+                        batch.size(), backoff, e.getMessage());
+                if (!running) {
+                    // Still journaled; relayed on the next start
+                    return;
+                }
+                try {
+                    Thread.sleep(backoff);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                backoff = Math.min(backoff * 2, MAX_RETRY_BACKOFF_MS);
+            }
+        }
+    }
+
+    /**
+     * Events recovered from the journal go first so relay order matches sequence order
+     */
+    private boolean nextRelayBatch(List<OutboxRecord> batch) throws InterruptedException {
+        if (!recoveredRecords.isEmpty()) {
+            while (batch.size() < maxBatchSize && !recoveredRecords.isEmpty()) {
+                batch.add(recoveredRecords.poll());
+            }
+            return true;
+        }
+
+        OutboxRecord first = relayQueue.poll(POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return false;
+        }
+        batch.add(first);
+        relayQueue.drainTo(batch, maxBatchSize - 1);
+        return true;
+    }
+
+    private void send(List<OutboxRecord> batch) throws Exception {
+        List<CompletableFuture<SendResult<String, Object>>> futures = new ArrayList<>(batch.size());
+        for (OutboxRecord record : batch) {
+            futures.add(kafkaTemplate.send(record.getTopic(), record.getKey(), record.getEvent()));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+
+        log.debug("Relayed {} outbox events up to sequence {}", batch.size(), batch.get(batch.size() - 1).getSequence());
+    }
+
+    private void acknowledge(long sequence) throws IOException {
+        writeCheckpoint(sequence);
+        acknowledgedSequence = sequence;
+
+        Segment oldest;
+        while ((oldest = closedSegments.peekFirst()) != null && oldest.lastSequence() <= sequence) {
+            Files.deleteIfExists(oldest.path());
+            closedSegments.pollFirst();
+            log.debug("Removed relayed outbox segment {}", oldest.path().getFileName());
+        }
+    }
+
+    /**
+     * Reclaim the active segment once everything in it has been relayed
+     */
+    private void truncateIfDrained() throws IOException {
+        if (acknowledgedSequence == nextSequence - 1 && activeChannel.size() > 0) {
+            activeChannel.truncate(0);
+        }
+    }
+
+    private void recover() throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(path -> path.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+
+        long lastSequence = acknowledgedSequence;
+        for (Path segment : segments) {
+            long segmentLast = 0;
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    OutboxRecord record;
+                    try {
+                        record = objectMapper.readValue(line, OutboxRecord.class);
+                    } catch (JsonProcessingException e) {
+                        // Torn write from a crash; the caller was never told it succeeded
+                        log.warn("Skipping unreadable outbox record in {}", segment.getFileName());
+                        continue;
+                    }
+                    segmentLast = Math.max(segmentLast, record.getSequence());
+                    if (record.getSequence() > acknowledgedSequence) {
+                        recoveredRecords.add(record);
+                    }
+                }
+            }
+
+            if (segmentLast <= acknowledgedSequence) {
+                Files.delete(segment);
+            } else {
+                closedSegments.add(new Segment(segment, segmentLast));
+            }
+            lastSequence = Math.max(lastSequence, segmentLast);
+        }
+
+        nextSequence = lastSequence + 1;
+    }
+
+    private void openSegment() throws IOException {
+        activeSegment = directory.resolve(String.format("%020d", nextSequence) + SEGMENT_SUFFIX);
+        activeChannel = FileChannel.open(activeSegment,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private void rollSegment() throws IOException {
+        activeChannel.close();
+        if (Files.size(activeSegment) == 0) {
+            Files.delete(activeSegment);
+        } else {
+            closedSegments.add(new Segment(activeSegment, nextSequence - 1));
+        }
+        openSegment();
+    }
+
+    /**
+     * After a failed write the segment may end in a partial record, so never append to it again
+     */
+    private void rollSegmentQuietly() {
+        try {
+            rollSegment();
+        } catch (IOException e) {
+            log.error("Failed to roll outbox segment: {}", e.getMessage(), e);
+        }
+    }
+
+    private long readCheckpoint() throws IOException {
+        Path checkpoint = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(checkpoint)) {
+            return 0;
+        }
+        return Long.parseLong(Files.readString(checkpoint).trim());
+    }
+
+    private void writeCheckpoint(long sequence) throws IOException {
+        Path temp = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(Long.toString(sequence).getBytes(StandardCharsets.UTF_8)));
+            channel.force(false);
+        }
+        Files.move(temp, directory.resolve(CHECKPOINT_FILE),
+                StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private record PendingAppend(String topic, String key, FileEvent event, CompletableFuture<Void> durable,
+                                 AtomicBoolean claimed) {
+
+        static PendingAppend of(String topic, FileEvent event) {
+            return new PendingAppend(topic, event.getFileId(), event, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        /**
+         * Taken by the writer, or withdrawn by the caller, whichever comes first
+         * @return whether this call won
+         */
+        boolean claim() {
+            return claimed.compareAndSet(false, true);
+        }
+    }
+
+    private record Segment(Path path, long lastSequence) {
+    }
+}
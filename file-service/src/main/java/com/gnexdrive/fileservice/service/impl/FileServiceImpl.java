@@ -4,115 +4,285 @@ import com.gnexdrive.common.constant.AppConstants;
 import com.gnexdrive.common.dto.FileMetadataDto;
 import com.gnexdrive.common.event.FileEvent;
 import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.common.exception.QuotaExceededException;
 import com.gnexdrive.common.exception.ResourceNotFoundException;
 import com.gnexdrive.common.util.FileUtils;
 import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.dto.BatchUploadResultDto;
+import com.gnexdrive.fileservice.dto.PresignedUrlDto;
 import com.gnexdrive.fileservice.service.FileService;
+import com.gnexdrive.fileservice.service.HotObjectCache;
 import com.gnexdrive.fileservice.service.KafkaProducerService;
 import com.gnexdrive.fileservice.service.ObjectStorageService;
-import lombok.RequiredArgsConstructor;
+import com.gnexdrive.fileservice.service.QuotaService;
+import com.gnexdrive.fileservice.service.TransferScheduler;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Implementation of File Service
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
 public class FileServiceImpl implements FileService {
 
     private final ObjectStorageService objectStorageService;
     private final KafkaProducerService kafkaProducerService;
     private final MetadataServiceClient metadataServiceClient;
+    private final QuotaService quotaService;
+    private final TransferScheduler transferScheduler;
+    private final HotObjectCache hotObjectCache;
+    private final Executor batchUploadExecutor;
+    private final Duration downloadUrlExpiry;
+    private final int maxBatchFiles;
+
+    public FileServiceImpl(ObjectStorageService objectStorageService,
+                           KafkaProducerService kafkaProducerService,
+                           MetadataServiceClient metadataServiceClient,
+                           QuotaService quotaService,
+                           TransferScheduler transferScheduler,
+                           HotObjectCache hotObjectCache,
+                           @Qualifier("batchUploadExecutor") Executor batchUploadExecutor,
+                           @Value("${download.direct.url-expiry-minutes:15}") long downloadUrlExpiryMinutes,
+                           @Value("${upload.batch.max-files:1000}") int maxBatchFiles) {
+        this.objectStorageService = objectStorageService;
+        this.kafkaProducerService = kafkaProducerService;
+        this.metadataServiceClient = metadataServiceClient;
+        this.quotaService = quotaService;
+        this.transferScheduler = transferScheduler;
+        this.hotObjectCache = hotObjectCache;
+        this.batchUploadExecutor = batchUploadExecutor;
+        this.downloadUrlExpiry = Duration.ofMinutes(downloadUrlExpiryMinutes);
+        this.maxBatchFiles = maxBatchFiles;
+    }
 
     @Override
     public FileMetadataDto uploadFile(MultipartFile file, String userId) {
         log.info("Starting file upload: fileName={}, size={}, userId={}", 
                 file.getOriginalFilename(), file.getSize(), userId);
         
+        // Validate file
+        validateFile(file);
+        
+        // Generate unique file ID and hold room for it in the user's quota
+        String fileId = FileUtils.generateFileId();
+        quotaService.reserve(userId, fileId, file.getSize());
+        
         try {
-            // Validate file
-            validateFile(file);
-            
-            // Generate unique file ID
-            String fileId = FileUtils.generateFileId();
-            String originalFileName = file.getOriginalFilename();
-            String sanitizedFileName = FileUtils.sanitizeFileName(originalFileName);
-            String fileExtension = FileUtils.extractFileExtension(originalFileName);
-            
-            // Create storage path: userId/fileId.extension
-            String storagePath = userId + "/" + fileId + 
-                    (fileExtension.isEmpty() ? "" : "." + fileExtension);
-            
-            // Upload to object storage
-            objectStorageService.uploadFile(
-                    storagePath, 
-                    file.getInputStream(), 
-                    file.getContentType(), 
-                    file.getSize()
-            );
-            
-            // Calculate checksum
-            String checksum = FileUtils.calculateChecksum(file.getBytes());
-            
-            // Build metadata DTO
-            FileMetadataDto metadata = FileMetadataDto.builder()
-                    .fileId(fileId)
-                    .fileName(originalFileName)
-                    .fileType(fileExtension)
-                    .fileSize(file.getSize())
-                    .ownerId(userId)
-                    .storagePath(storagePath)
-                    .contentType(file.getContentType())
-                    .checksum(checksum)
-                    .uploadedAt(LocalDateTime.now())
-                    .status("UPLOADED")
-                    .build();
+            FileMetadataDto metadata = storeFile(file, userId, fileId, file.getSize());
             
             // Publish event to Kafka
             publishUploadEvent(metadata);
             
-            log.info("File uploaded successfully: fileId={}, path={}", fileId, storagePath);
+            log.info("File uploaded successfully: fileId={}, path={}", fileId, metadata.getStoragePath());
             return metadata;
             
+        } catch (RejectedExecutionException e) {
+            quotaService.release(fileId);
+            throw e;
         } catch (Exception e) {
+            quotaService.release(fileId);
             log.error("Failed to upload file: {}", e.getMessage(), e);
             throw new FileStorageException("Failed to upload file: " + e.getMessage());
         }
     }
 
     @Override
-    public Resource downloadFile(String fileId, String userId) {
-        log.info("Downloading file: fileId={}, userId={}", fileId, userId);
+    public List<BatchUploadResultDto> uploadFiles(List<MultipartFile> files, String userId) {
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No files in batch");
+        }
+        if (files.size() > maxBatchFiles) {
+            throw new IllegalArgumentException("At most " + maxBatchFiles + " files can be uploaded in one batch");
+        }
+        log.info("Starting batch upload: files={}, userId={}", files.size(), userId);
         
-        try {
-            // Verify ownership before allowing download
-            if (!metadataServiceClient.verifyOwnership(fileId, userId)) {
-                log.warn("Unauthorized download attempt: fileId={}, userId={}", fileId, userId);
-                throw new SecurityException("You do not have permission to download this file");
+        // Paced as one bulk transfer, however small the individual files are
+        long batchBytes = files.stream().mapToLong(MultipartFile::getSize).sum();
+        
+        // Storage writes overlap with each other; a file failing validation or quota is reported and skipped
+        List<BatchUploadResultDto> results = new ArrayList<>(files.size());
+        List<CompletableFuture<FileMetadataDto>> stores = new ArrayList<>(files.size());
+        for (MultipartFile file : files) {
+            BatchUploadResultDto result = BatchUploadResultDto.builder()
+                    .fileName(file.getOriginalFilename())
+                    .build();
+            results.add(result);
+            try {
+                validateFile(file);
+                String fileId = FileUtils.generateFileId();
+                quotaService.reserve(userId, fileId, file.getSize());
+                stores.add(CompletableFuture.supplyAsync(() -> {
+                    try {
+                        return storeFile(file, userId, fileId, batchBytes);
+                    } catch (Exception e) {
+                        quotaService.release(fileId);
+                        throw new CompletionException(e);
+                    }
+                }, batchUploadExecutor));
+            } catch (IllegalArgumentException e) {
+                result.setError(e.getMessage());
+                stores.add(null);
+            } catch (QuotaExceededException e) {
+                result.setError(e.getMessage());
+                stores.add(null);
             }
-            
-            // Get file metadata to retrieve storage path
-            FileMetadataDto metadata = metadataServiceClient.getFileMetadata(fileId);
-            if (metadata == null) {
-                throw new ResourceNotFoundException("File not found: " + fileId);
+        }
+        
+        List<FileMetadataDto> stored = new ArrayList<>(files.size());
+        List<BatchUploadResultDto> storedResults = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            CompletableFuture<FileMetadataDto> store = stores.get(i);
+            if (store == null) {
+                continue;
+            }
+            try {
+                stored.add(store.join());
+                storedResults.add(results.get(i));
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                log.error("Failed to store batch file {}: {}", results.get(i).getFileName(), cause.getMessage());
+                results.get(i).setError("Failed to upload file: " + cause.getMessage());
+            }
+        }
+        
+        // One outbox group commit and one Kafka batch for the whole request
+        if (!stored.isEmpty()) {
+            List<Boolean> recorded = kafkaProducerService.publishFileUploadedEvents(
+                    stored.stream().map(this::uploadEvent).toList());
+            for (int i = 0; i < stored.size(); i++) {
+                FileMetadataDto metadata = stored.get(i);
+                BatchUploadResultDto result = storedResults.get(i);
+                if (recorded.get(i)) {
+                    result.setSuccess(true);
+                    result.setFile(metadata);
+                } else {
+                    // The stored object is left to the storage reconciler as an orphan
+                    quotaService.release(metadata.getFileId());
+                    result.setError("Event outbox is full, try again later");
+                }
+            }
+        }
+        
+        log.info("Batch upload finished: stored={}, failed={}, userId={}",
+                results.stream().filter(BatchUploadResultDto::isSuccess).count(),
+                results.stream().filter(result -> !result.isSuccess()).count(), userId);
+        return results;
+    }
+
+    /**
+     * Write the file's content to object storage and describe it; publishes nothing
+     * @param transferBytes size of the whole transfer the file belongs to, for bandwidth scheduling
+     */
+    private FileMetadataDto storeFile(MultipartFile file, String userId, String fileId, long transferBytes) throws Exception {
+        String originalFileName = file.getOriginalFilename();
+        String fileExtension = FileUtils.extractFileExtension(originalFileName);
+        
+        // Create storage path: userId/fileId.extension
+        String storagePath = userId + "/" + fileId + 
+                (fileExtension.isEmpty() ? "" : "." + fileExtension);
+        
+        String checksum;
+        if (objectStorageService.isContentAddressed()) {
+            // Hash the spooled upload first so content that is already stored is never re-sent
+            MessageDigest md5 = FileUtils.newChecksumDigest();
+            MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+            try (InputStream content = new DigestInputStream(new DigestInputStream(
+                    new BufferedInputStream(file.getInputStream(), AppConstants.STREAM_BUFFER_SIZE), md5), sha256)) {
+                content.transferTo(OutputStream.nullOutputStream());
             }
             
-            String storagePath = metadata.getStoragePath();
+            checksum = FileUtils.toHex(md5.digest());
+            storagePath = objectStorageService.contentPath(FileUtils.toHex(sha256.digest()));
             
-            if (!objectStorageService.fileExists(storagePath)) {
-                throw new ResourceNotFoundException("File not found in storage: " + fileId);
+            if (objectStorageService.reuseContent(storagePath)) {
+                log.info("Content already stored, skipping upload: fileId={}, path={}", fileId, storagePath);
+            } else {
+                try (InputStream content = new BufferedInputStream(
+                        paced(file, userId, transferBytes), AppConstants.STREAM_BUFFER_SIZE)) {
+                    objectStorageService.uploadFile(storagePath, content, file.getContentType(), file.getSize());
+                }
+            }
+        } else {
+            // Stream to object storage, hashing the bytes on the way through
+            MessageDigest digest = FileUtils.newChecksumDigest();
+            try (InputStream content = new DigestInputStream(
+                    new BufferedInputStream(paced(file, userId, transferBytes), AppConstants.STREAM_BUFFER_SIZE), digest)) {
+                objectStorageService.uploadFile(
+                        storagePath, 
+                        content, 
+                        file.getContentType(), 
+                        file.getSize()
+                );
             }
             
-            Resource resource = objectStorageService.downloadFile(storagePath);
+            checksum = FileUtils.toHex(digest.digest());
+        }
+        
+        // Build metadata DTO
+        return FileMetadataDto.builder()
+                .fileId(fileId)
+                .fileName(originalFileName)
+                .fileType(fileExtension)
+                .fileSize(file.getSize())
+                .ownerId(userId)
+                .storagePath(storagePath)
+                .contentType(file.getContentType())
+                .checksum(checksum)
+                .uploadedAt(LocalDateTime.now())
+                .status("UPLOADED")
+                .version(1)
+                .build();
+    }
+
+    /**
+     * Upload content, paced by the transfer scheduler on its way to object storage
+     */
+    private InputStream paced(MultipartFile file, String userId, long transferBytes) throws IOException {
+        return transferScheduler.throttle(userId, TransferScheduler.Direction.UPLOAD, transferBytes, file.getInputStream());
+    }
+
+    /**
+     * Download content, paced by the transfer scheduler; returned as is when pacing is off
+     */
+    private Resource paced(Resource resource, String userId, long expectedBytes) throws IOException {
+        if (!transferScheduler.isEnabled()) {
+            return resource;
+        }
+        return new InputStreamResource(transferScheduler.throttle(
+                userId, TransferScheduler.Direction.DOWNLOAD, expectedBytes, resource.getInputStream()));
+    }
+
+    @Override
+    public Resource downloadFile(String fileId, String userId) {
+        FileMetadataDto metadata = getDownloadableFile(fileId, userId);
+        
+        try {
+            Resource resource = paced(hotObjectCache.read(metadata, 0, -1),
+                    userId, metadata.getFileSize() != null ? metadata.getFileSize() : -1);
             
             // Publish download event
             publishDownloadEvent(fileId, userId);
@@ -122,6 +292,8 @@ public class FileServiceImpl implements FileService {
             
         } catch (ResourceNotFoundException e) {
             throw e;
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             log.error("Failed to download file: {}", e.getMessage(), e);
             throw new FileStorageException("Failed to download file: " + e.getMessage());
@@ -129,41 +301,188 @@ public class FileServiceImpl implements FileService {
     }
 
     @Override
-    public void deleteFile(String fileId, String userId) {
-        log.info("Deleting file: fileId={}, userId={}", fileId, userId);
+    public FileMetadataDto getDownloadableFile(String fileId, String userId) {
+        log.info("Downloading file: fileId={}, userId={}", fileId, userId);
+        
+        // One metadata lookup authorizes and resolves; a missing object surfaces from the storage read itself.
+        // Deleted files keep their object until the reconciler's grace period ends, so check the status too
+        return resolveLiveFile(fileId, userId);
+    }
+
+    @Override
+    public Resource downloadFile(FileMetadataDto metadata, String userId, long offset, long length) {
+        String fileId = metadata.getFileId();
         
         try {
-            // Verify ownership before allowing delete
-            if (!metadataServiceClient.verifyOwnership(fileId, userId)) {
-                log.warn("Unauthorized delete attempt: fileId={}, userId={}", fileId, userId);
-                throw new SecurityException("You do not have permission to delete this file");
-            }
+            long expectedBytes = length >= 0 ? length
+                    : metadata.getFileSize() != null ? metadata.getFileSize() - offset : -1;
+            Resource resource = paced(hotObjectCache.read(metadata, offset, length),
+                    userId, expectedBytes);
             
-            // Get file metadata to retrieve storage path
-            FileMetadataDto metadata = metadataServiceClient.getFileMetadata(fileId);
-            if (metadata == null) {
-                throw new ResourceNotFoundException("File not found: " + fileId);
+            // Seeking issues many ranged requests per download - only count the one starting at the beginning
+            if (offset == 0) {
+                publishDownloadEvent(fileId, userId);
             }
             
-            String storagePath = metadata.getStoragePath();
+            log.info("File range downloaded: fileId={}, offset={}, length={}", fileId, offset, length);
+            return resource;
             
-            if (!objectStorageService.fileExists(storagePath)) {
-                throw new ResourceNotFoundException("File not found in storage: " + fileId);
+        } catch (ResourceNotFoundException e) {
+            throw e;
+        } catch (RejectedExecutionException e) {
+            throw e;
+        } catch (Exception e) {
+            log.error("Failed to download file range: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to download file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public PresignedUrlDto getDownloadUrl(String fileId, String userId) {
+        FileMetadataDto metadata = getDownloadableFile(fileId, userId);
+        
+        LocalDateTime now = LocalDateTime.now();
+        String url = objectStorageService.getFileUrl(metadata.getStoragePath(), metadata.getFileName(), downloadUrlExpiry);
+        
+        // The transfer itself bypasses this service, so handing out the URL counts as the download
+        publishDownloadEvent(fileId, userId);
+        
+        log.info("Direct download URL issued: fileId={}, userId={}", fileId, userId);
+        return PresignedUrlDto.builder()
+                .fileId(fileId)
+                .url(url)
+                .expiresAt(now.plus(downloadUrlExpiry))
+                .build();
+    }
+
+    @Override
+    public FileMetadataDto copyFile(String fileId, String fileName, String userId) {
+        log.info("Copying file: fileId={}, userId={}", fileId, userId);
+        
+        FileMetadataDto source = resolveLiveFile(fileId, userId);
+        String copyName = fileName != null && !fileName.isBlank() ? fileName.trim() : "Copy of " + source.getFileName();
+        String copyId = FileUtils.generateFileId();
+        quotaService.reserve(userId, copyId, source.getFileSize());
+        
+        try {
+            String storagePath;
+            if (objectStorageService.isContentAddressed()) {
+                // The copy's metadata record is one more reference to the same blob
+                storagePath = source.getStoragePath();
+                if (!objectStorageService.reuseContent(storagePath)) {
+                    throw new ResourceNotFoundException("File content not found: " + fileId);
+                }
+            } else {
+                String extension = FileUtils.extractFileExtension(source.getStoragePath());
+                storagePath = userId + "/" + copyId + (extension.isEmpty() ? "" : "." + extension);
+                objectStorageService.copyObject(source.getStoragePath(), storagePath);
             }
             
-            objectStorageService.deleteFile(storagePath);
+            FileMetadataDto copy = FileMetadataDto.builder()
+                    .fileId(copyId)
+                    .fileName(copyName)
+                    .fileType(source.getFileType())
+                    .fileSize(source.getFileSize())
+                    .ownerId(userId)
+                    .storagePath(storagePath)
+                    .contentType(source.getContentType())
+                    .checksum(source.getChecksum())
+                    .uploadedAt(LocalDateTime.now())
+                    .status("UPLOADED")
+                    .version(1)
+                    .build();
             
-            // Publish delete event
-            publishDeleteEvent(fileId, userId);
+            // metadata-service clones the record from the event like any other upload
+            FileEvent event = uploadEvent(copy);
+            event.getPayload().put("copiedFrom", fileId);
+            kafkaProducerService.publishFileUploadedEvent(event);
             
-            log.info("File deleted successfully: fileId={}", fileId);
+            log.info("File copied successfully: fileId={}, copyId={}, path={}", fileId, copyId, storagePath);
+            return copy;
             
-        } catch (ResourceNotFoundException e) {
+        } catch (ResourceNotFoundException | RejectedExecutionException e) {
+            quotaService.release(copyId);
             throw e;
         } catch (Exception e) {
-            log.error("Failed to delete file: {}", e.getMessage(), e);
-            throw new FileStorageException("Failed to delete file: " + e.getMessage());
+            quotaService.release(copyId);
+            log.error("Failed to copy file: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to copy file: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public FileMetadataDto moveFile(String fileId, String fileName, String userId) {
+        if (fileName == null || fileName.isBlank()) {
+            throw new IllegalArgumentException("A new file name is required");
         }
+        log.info("Moving file: fileId={}, userId={}", fileId, userId);
+        
+        FileMetadataDto source = resolveLiveFile(fileId, userId);
+        String newName = fileName.trim();
+        
+        // Storage keys do not carry the file name, so a move only changes metadata
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("fileName", newName);
+        
+        FileEvent event = FileEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(FileEvent.EventType.METADATA_UPDATED.name())
+                .fileId(fileId)
+                .fileName(newName)
+                .userId(userId)
+                .timestamp(LocalDateTime.now())
+                .payload(payload)
+                .source("file-service")
+                .build();
+        
+        kafkaProducerService.publishMetadataUpdatedEvent(event);
+        metadataServiceClient.invalidate(fileId);
+        
+        log.info("File moved successfully: fileId={}, fileName={}", fileId, newName);
+        return FileMetadataDto.builder()
+                .fileId(fileId)
+                .fileName(newName)
+                .fileType(source.getFileType())
+                .fileSize(source.getFileSize())
+                .ownerId(source.getOwnerId())
+                .storagePath(source.getStoragePath())
+                .contentType(source.getContentType())
+                .checksum(source.getChecksum())
+                .uploadedAt(source.getUploadedAt())
+                .modifiedAt(LocalDateTime.now())
+                .status(source.getStatus())
+                .version(source.getVersion())
+                .build();
+    }
+
+    /**
+     * Resolve a file the user owns and has not deleted
+     */
+    private FileMetadataDto resolveLiveFile(String fileId, String userId) {
+        FileMetadataDto metadata = metadataServiceClient.resolveOwnedFile(fileId, userId);
+        if ("DELETED".equals(metadata.getStatus())) {
+            throw new ResourceNotFoundException("File not found: " + fileId);
+        }
+        return metadata;
+    }
+
+    @Override
+    public void deleteFile(String fileId, String userId) {
+        log.info("Deleting file: fileId={}, userId={}", fileId, userId);
+        
+        FileMetadataDto metadata = metadataServiceClient.resolveOwnedFile(fileId, userId);
+        if ("DELETED".equals(metadata.getStatus())) {
+            // A second file.deleted event would count the file against the user's usage twice
+            log.info("File already deleted: fileId={}", fileId);
+            return;
+        }
+        
+        // Only the metadata is soft-deleted here; the storage reconciler removes
+        // the object once the deletion is older than its grace period
+        publishDeleteEvent(metadata, userId);
+        metadataServiceClient.invalidate(fileId);
+        
+        log.info("File deleted successfully: fileId={}", fileId);
     }
 
     @Override
@@ -209,51 +528,48 @@ public class FileServiceImpl implements FileService {
     }
 
     /**
-     * Find storage path for a file (simplified - in production, query metadata-service)
+     * Publish file upload event to Kafka
      */
-    private String findStoragePath(String fileId, String userId) {
-        // This is a simplified implementation
-        // In production, you would call metadata-service to get the actual storage path
-        // For now, assume path format: userId/fileId.extension
-        return userId + "/" + fileId;
+    @Override
+    public void publishUploadEvent(FileMetadataDto metadata) {
+        // Must not be swallowed: without this event metadata-service never learns about the stored object
+        kafkaProducerService.publishFileUploadedEvent(uploadEvent(metadata));
     }
 
-    /**
-     * Publish file upload event to Kafka
-     */
-    private void publishUploadEvent(FileMetadataDto metadata) {
-        try {
-            Map<String, Object> payload = new HashMap<>();
-            payload.put("fileName", metadata.getFileName());
-            payload.put("fileSize", metadata.getFileSize());
-            payload.put("fileType", metadata.getFileType());
-            payload.put("contentType", metadata.getContentType());
-            payload.put("storagePath", metadata.getStoragePath());
-            payload.put("checksum", metadata.getChecksum());
-            payload.put("version", 1);
-            
-            FileEvent event = FileEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
-                    .eventType(FileEvent.EventType.FILE_UPLOADED.name())
-                    .fileId(metadata.getFileId())
-                    .fileName(metadata.getFileName())
-                    .userId(metadata.getOwnerId())
-                    .timestamp(LocalDateTime.now())
-                    .payload(payload)
-                    .source("file-service")
-                    .build();
-            
-            kafkaProducerService.publishFileUploadedEvent(event);
-        } catch (Exception e) {
-            log.error("Failed to publish upload event: {}", e.getMessage(), e);
-            // Don't fail the upload if event publishing fails
-        }
+    @Override
+    public void publishVersionEvent(FileMetadataDto metadata, long previousFileSize) {
+        FileEvent event = uploadEvent(metadata);
+        event.getPayload().put("previousFileSize", previousFileSize);
+        kafkaProducerService.publishFileUploadedEvent(event);
+    }
+
+    private FileEvent uploadEvent(FileMetadataDto metadata) {
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("fileName", metadata.getFileName());
+        payload.put("fileSize", metadata.getFileSize());
+        payload.put("fileType", metadata.getFileType());
+        payload.put("contentType", metadata.getContentType());
+        payload.put("storagePath", metadata.getStoragePath());
+        payload.put("checksum", metadata.getChecksum());
+        payload.put("version", metadata.getVersion() != null ? metadata.getVersion() : 1);
+        
+        return FileEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(FileEvent.EventType.FILE_UPLOADED.name())
+                .fileId(metadata.getFileId())
+                .fileName(metadata.getFileName())
+                .userId(metadata.getOwnerId())
+                .timestamp(LocalDateTime.now())
+                .payload(payload)
+                .source("file-service")
+                .build();
     }
 
     /**
      * Publish file download event to Kafka
      */
-    private void publishDownloadEvent(String fileId, String userId) {
+    @Override
+    public void publishDownloadEvent(String fileId, String userId) {
         try {
             FileEvent event = FileEvent.builder()
                     .eventId(UUID.randomUUID().toString())
@@ -273,20 +589,22 @@ public class FileServiceImpl implements FileService {
     /**
      * Publish file delete event to Kafka
      */
-    private void publishDeleteEvent(String fileId, String userId) {
-        try {
-            FileEvent event = FileEvent.builder()
-                    .eventId(UUID.randomUUID().toString())
-                    .eventType(FileEvent.EventType.FILE_DELETED.name())
-                    .fileId(fileId)
-                    .userId(userId)
-                    .timestamp(LocalDateTime.now())
-                    .source("file-service")
-                    .build();
-            
-            kafkaProducerService.publishFileDeletedEvent(event);
-        } catch (Exception e) {
-            log.error("Failed to publish delete event: {}", e.getMessage(), e);
-        }
+    private void publishDeleteEvent(FileMetadataDto metadata, String userId) {
+        // The size lets usage counters drop the file without a lookup, the path lets caches drop its content
+        Map<String, Object> payload = new HashMap<>();
+        payload.put("fileSize", metadata.getFileSize());
+        payload.put("storagePath", metadata.getStoragePath());
+        
+        FileEvent event = FileEvent.builder()
+                .eventId(UUID.randomUUID().toString())
+                .eventType(FileEvent.EventType.FILE_DELETED.name())
+                .fileId(metadata.getFileId())
+                .userId(userId)
+                .timestamp(LocalDateTime.now())
+                .payload(payload)
+                .source("file-service")
+                .build();
+        
+        kafkaProducerService.publishFileDeletedEvent(event);
     }
 }
@@ -0,0 +1,214 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.fileservice.service.HotObjectCache;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import com.gnexdrive.fileservice.util.DirectBufferPool;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Size-bounded LRU cache of object content in direct (off-heap) buffers.
+ * Entries are keyed by storage path and checksum, so a path can never serve
+ * content other than the one the metadata describes. Concurrent misses on the
+ * same object share one storage read. Readers get their own view of the buffer,
+ * so a hit costs no copy and an evicted buffer stays valid for the responses
+ * still streaming it.
+ */
+@Slf4j
+@Service
+public class HotObjectCacheImpl implements HotObjectCache {
+
+    private final ObjectStorageService objectStorageService;
+    private final long maxBytes;
+    private final long maxObjectBytes;
+    private final LinkedHashMap<String, ByteBuffer> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<String, CompletableFuture<ByteBuffer>> loading = new ConcurrentHashMap<>();
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter evictions;
+    private long usedBytes;
+
+    public HotObjectCacheImpl(ObjectStorageService objectStorageService,
+                              MeterRegistry meterRegistry,
+                              @Value("${storage.cache.max-bytes:268435456}") long maxBytes,
+                              @Value("${storage.cache.max-object-bytes:1048576}") long maxObjectBytes) {
+        this.objectStorageService = objectStorageService;
+        this.maxBytes = maxBytes;
+        this.maxObjectBytes = Math.min(maxObjectBytes, maxBytes);
+
+        this.hits = Counter.builder("storage.cache.requests")
+                .description("Downloads of cacheable objects")
+                .tag("result", "hit")
+                .register(meterRegistry);
+        this.misses = Counter.builder("storage.cache.requests")
+                .description("Downloads of cacheable objects")
+                .tag("result", "miss")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("storage.cache.evictions")
+                .description("Objects evicted to make room for others")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.hit.ratio", this, HotObjectCacheImpl::hitRatio)
+                .description("Share of cacheable downloads served from memory")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.size", this, HotObjectCacheImpl::cachedBytes)
+                .description("Off-heap bytes held by cached objects")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("storage.cache.entries", this, HotObjectCacheImpl::entryCount)
+                .description("Objects held in the cache")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Resource read(FileMetadataDto metadata, long offset, long length) {
+        if (!isCacheable(metadata)) {
+            return offset == 0 && length < 0
+                    ? objectStorageService.downloadFile(metadata.getStoragePath())
+                    : objectStorageService.downloadFile(metadata.getStoragePath(), offset, length);
+        }
+
+        String key = metadata.getStoragePath() + "#" + metadata.getChecksum();
+        ByteBuffer content = get(key);
+        if (content != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+            content = load(key, metadata);
+        }
+        return slice(content, offset, length);
+    }
+
+    @Override
+    public synchronized void invalidate(String storagePath) {
+        String prefix = storagePath + "#";
+        Iterator<Map.Entry<String, ByteBuffer>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, ByteBuffer> entry = iterator.next();
+            if (entry.getKey().startsWith(prefix)) {
+                usedBytes -= entry.getValue().capacity();
+                iterator.remove();
+                log.debug("Invalidated cached object: {}", entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Only small objects with a known size and checksum are cached; direct uploads carry no checksum
+     */
+    private boolean isCacheable(FileMetadataDto metadata) {
+        return maxBytes > 0 && metadata.getFileSize() != null && metadata.getFileSize() <= maxObjectBytes
+                && metadata.getChecksum() != null;
+    }
+
+    private synchronized ByteBuffer get(String key) {
+        return entries.get(key);
+    }
+
+    private synchronized void put(String key, ByteBuffer content) {
+        ByteBuffer previous = entries.put(key, content);
+        if (previous != null) {
+            usedBytes -= previous.capacity();
+        }
+        usedBytes += content.capacity();
+
+        // Access order puts the least recently read objects first; the new entry is last
+        Iterator<ByteBuffer> eldest = entries.values().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            usedBytes -= eldest.next().capacity();
+            eldest.remove();
+            evictions.increment();
+        }
+    }
+
+    /**
+     * Read the object into memory, or wait for the thread already doing so
+     */
+    private ByteBuffer load(String key, FileMetadataDto metadata) {
+        CompletableFuture<ByteBuffer> pending = new CompletableFuture<>();
+        CompletableFuture<ByteBuffer> inFlight = loading.putIfAbsent(key, pending);
+        if (inFlight != null) {
+            try {
+                return inFlight.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw new FileStorageException("Failed to read object: " + e.getMessage(), e);
+            }
+        }
+
+        try {
+            ByteBuffer content = fetch(metadata);
+            put(key, content);
+            pending.complete(content);
+            return content;
+        } catch (RuntimeException e) {
+            pending.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, pending);
+        }
+    }
+
+    private ByteBuffer fetch(FileMetadataDto metadata) {
+        int size = Math.toIntExact(metadata.getFileSize());
+        ByteBuffer content = ByteBuffer.allocateDirect(size);
+        try (InputStream in = objectStorageService.downloadFile(metadata.getStoragePath()).getInputStream();
+             ReadableByteChannel channel = Channels.newChannel(in)) {
+            while (content.hasRemaining() && channel.read(content) >= 0) {
+                // Fill until the recorded size or the end of the object
+            }
+            if (content.hasRemaining() || in.read() >= 0) {
+                throw new FileStorageException(String.format("Object %s does not match its recorded size of %d bytes",
+                        metadata.getStoragePath(), size), metadata.getStoragePath());
+            }
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read object: " + e.getMessage(), metadata.getStoragePath(), e);
+        }
+
+        content.flip();
+        log.debug("Cached object: path={}, size={}", metadata.getStoragePath(), size);
+        return content.asReadOnlyBuffer();
+    }
+
+    private Resource slice(ByteBuffer content, long offset, long length) {
+        ByteBuffer view = content.duplicate();
+        int start = (int) Math.min(offset, view.limit());
+        int end = length < 0 ? view.limit() : (int) Math.min(view.limit(), start + length);
+        view.position(start).limit(end);
+        return new InputStreamResource(DirectBufferPool.asInputStream(view));
+    }
+
+    private double hitRatio() {
+        double requests = hits.count() + misses.count();
+        return requests == 0 ? 0 : hits.count() / requests;
+    }
+
+    private synchronized long cachedBytes() {
+        return usedBytes;
+    }
+
+    private synchronized int entryCount() {
+        return entries.size();
+    }
+}
@@ -2,6 +2,7 @@ package com.gnexdrive.fileservice.service.impl;
 
 import com.gnexdrive.common.constant.AppConstants;
 import com.gnexdrive.common.event.FileEvent;
+import com.gnexdrive.fileservice.service.EventOutboxService;
 import com.gnexdrive.fileservice.service.KafkaProducerService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -9,10 +10,13 @@ import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
 
 /**
- * Implementation of Kafka Producer Service
+ * Implementation of Kafka Producer Service.
+ * Upload and delete events go through the durable outbox; download events
+ * are analytics only and are sent directly.
  */
 @Slf4j
 @Service
@@ -20,53 +24,37 @@ import java.util.concurrent.CompletableFuture;
 public class KafkaProducerServiceImpl implements KafkaProducerService {
 
     private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final EventOutboxService eventOutboxService;
 
     @Override
     public void publishFileUploadedEvent(FileEvent event) {
-        try {
-            log.info("Publishing file uploaded event: fileId={}, userId={}", 
-                    event.getFileId(), event.getUserId());
-            
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(AppConstants.TOPIC_FILE_UPLOADED, event.getFileId(), event);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.info("File uploaded event published successfully: fileId={}, offset={}", 
-                            event.getFileId(), result.getRecordMetadata().offset());
-                } else {
-                    log.error("Failed to publish file uploaded event: fileId={}", 
-                            event.getFileId(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error publishing file uploaded event: {}", e.getMessage(), e);
-        }
+        log.info("Recording file uploaded event: fileId={}, userId={}", 
+                event.getFileId(), event.getUserId());
+        
+        eventOutboxService.append(AppConstants.TOPIC_FILE_UPLOADED, event);
+    }
+
+    @Override
+    public List<Boolean> publishFileUploadedEvents(List<FileEvent> events) {
+        log.info("Recording {} file uploaded events", events.size());
+        
+        return eventOutboxService.appendAll(AppConstants.TOPIC_FILE_UPLOADED, events);
     }
 
     @Override
     public void publishFileDeletedEvent(FileEvent event) {
-        try {
-            log.info("Publishing file deleted event: fileId={}, userId={}", 
-                    event.getFileId(), event.getUserId());
-            
-            CompletableFuture<SendResult<String, Object>> future = 
-                    kafkaTemplate.send(AppConstants.TOPIC_FILE_DELETED, event.getFileId(), event);
-            
-            future.whenComplete((result, ex) -> {
-                if (ex == null) {
-                    log.info("File deleted event published successfully: fileId={}, offset={}", 
-                            event.getFileId(), result.getRecordMetadata().offset());
-                } else {
-                    log.error("Failed to publish file deleted event: fileId={}", 
-                            event.getFileId(), ex);
-                }
-            });
-            
-        } catch (Exception e) {
-            log.error("Error publishing file deleted event: {}", e.getMessage(), e);
-        }
+        log.info("Recording file deleted event: fileId={}, userId={}", 
+                event.getFileId(), event.getUserId());
+        
+        eventOutboxService.append(AppConstants.TOPIC_FILE_DELETED, event);
+    }
+
+    @Override
+    public void publishMetadataUpdatedEvent(FileEvent event) {
+        log.info("Recording metadata updated event: fileId={}, userId={}", 
+                event.getFileId(), event.getUserId());
+        
+        eventOutboxService.append(AppConstants.TOPIC_METADATA_UPDATED, event);
     }
 
     @Override
@@ -0,0 +1,479 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.fileservice.model.StoredObjectInfo;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Local filesystem implementation of Object Storage Service.
+ * Used on single-node deployments with fast local disks and for network-free
+ * load tests. Object names map to paths below the storage root; bytes move
+ * through {@link FileChannel} transfers rather than stream copy loops.
+ */
+@Slf4j
+@Service
+@Profile("local")
+@Qualifier("storageBackend")
+public class LocalFileStorageService implements ObjectStorageService {
+
+    private static final String TEMP_PREFIX = ".tmp-";
+    private static final String PART_PREFIX = "part-";
+
+    private final Path root;
+
+    public LocalFileStorageService(@Value("${storage.local.root-dir:./data/storage}") String rootDir) {
+        this.root = Paths.get(rootDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+            log.info("Local file storage initialized at {}", root);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to create storage directory " + root + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String uploadFile(String fileName, InputStream inputStream, String contentType, long size) {
+        Path target = resolve(fileName);
+        try {
+            log.info("Uploading file to local storage: {}", fileName);
+
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID());
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                 ReadableByteChannel source = Channels.newChannel(inputStream)) {
+                long written = 0;
+                long remaining = size >= 0 ? size : Long.MAX_VALUE;
+                while (remaining > 0) {
+                    long transferred = channel.transferFrom(source, written, remaining);
+                    if (transferred <= 0) {
+                        break;
+                    }
+                    written += transferred;
+                    remaining -= transferred;
+                }
+
+                if (size >= 0 && written != size) {
+                    throw new IOException("Expected " + size + " bytes but received " + written);
+                }
+                channel.force(false);
+
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            // Readers never observe a partially written object
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+            log.info("File uploaded successfully to local storage: {}", fileName);
+            return fileName;
+
+        } catch (IOException e) {
+            log.error("Failed to upload file to local storage: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to upload file to object storage: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Resource downloadFile(String fileName) {
+        return downloadFile(fileName, 0, -1);
+    }
+
+    @Override
+    public Resource downloadFile(String fileName, long offset, long length) {
+        Path path = resolve(fileName);
+        try {
+            log.debug("Downloading from local storage: {}, offset={}, length={}", fileName, offset, length);
+
+            FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+            long end = length >= 0 ? Math.min(channel.size(), offset + length) : channel.size();
+            return new InputStreamResource(new FileRegionInputStream(channel, offset, end));
+
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("File not found in storage: " + fileName);
+        } catch (IOException e) {
+            log.error("Failed to download file from local storage: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to download file from object storage: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String copyObject(String sourceFileName, String targetFileName) {
+        Path target = resolve(targetFileName);
+        try {
+            log.info("Copying file in local storage: {} -> {}", sourceFileName, targetFileName);
+
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID());
+            try (FileChannel in = FileChannel.open(resolve(sourceFileName), StandardOpenOption.READ);
+                 FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                // File-to-file transfer stays in the kernel (copy_file_range/sendfile)
+                long size = in.size();
+                long copied = 0;
+                while (copied < size) {
+                    copied += in.transferTo(copied, size - copied, out);
+                }
+                out.force(false);
+
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            return targetFileName;
+
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("File not found in storage: " + sourceFileName);
+        } catch (IOException e) {
+            log.error("Failed to copy file in local storage: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to copy file in object storage: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public void deleteFile(String fileName) {
+        try {
+            log.info("Deleting file from local storage: {}", fileName);
+            Files.deleteIfExists(resolve(fileName));
+
+        } catch (IOException e) {
+            log.error("Failed to delete file from local storage: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to delete file from object storage: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public boolean fileExists(String fileName) {
+        return Files.isRegularFile(resolve(fileName));
+    }
+
+    @Override
+    public String getFileUrl(String fileName, String downloadName, Duration expiry) {
+        throw new UnsupportedOperationException("Pre-signed URLs are not available for local storage");
+    }
+
+    @Override
+    public String getUploadUrl(String fileName, Duration expiry) {
+        throw new UnsupportedOperationException("Pre-signed URLs are not available for local storage");
+    }
+
+    @Override
+    public StoredObjectInfo getFileMetadata(String fileName) {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(resolve(fileName), BasicFileAttributes.class);
+
+            return StoredObjectInfo.builder()
+                    .name(fileName)
+                    .size(attributes.size())
+                    .lastModified(attributes.lastModifiedTime().toInstant())
+                    .build();
+
+        } catch (NoSuchFileException e) {
+            throw new ResourceNotFoundException("File not found in storage: " + fileName);
+        } catch (IOException e) {
+            log.error("Failed to retrieve file metadata: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to retrieve file metadata: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<StoredObjectInfo> listObjects(String startAfter, int maxKeys) {
+        // Walks the whole tree per page; fine for the data volumes this backend is meant for
+        try (Stream<Path> paths = Files.walk(root)) {
+            List<Path> files = paths
+                    .filter(Files::isRegularFile)
+                    .filter(path -> !path.getFileName().toString().startsWith(TEMP_PREFIX))
+                    .toList();
+
+            TreeMap<String, Path> page = new TreeMap<>();
+            for (Path path : files) {
+                String name = root.relativize(path).toString().replace('\\', '/');
+                if (startAfter != null && name.compareTo(startAfter) <= 0) {
+                    continue;
+                }
+                page.put(name, path);
+                if (page.size() > maxKeys) {
+                    page.pollLastEntry();
+                }
+            }
+
+            List<StoredObjectInfo> objects = new ArrayList<>(page.size());
+            for (Map.Entry<String, Path> entry : page.entrySet()) {
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(entry.getValue(), BasicFileAttributes.class);
+                    objects.add(StoredObjectInfo.builder()
+                            .name(entry.getKey())
+                            .size(attributes.size())
+                            .lastModified(attributes.lastModifiedTime().toInstant())
+                            .build());
+                } catch (NoSuchFileException e) {
+                    // Deleted since the walk
+                }
+            }
+            return objects;
+
+        } catch (IOException | UncheckedIOException e) {
+            log.error("Failed to list objects: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to list objects: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long size) {
+        String partName = partObjectName(uploadId, partNumber);
+        uploadFile(partName, inputStream, null, size);
+
+        try {
+            // No content hash is computed here; size and mtime identify the stored part
+            FileTime modified = Files.getLastModifiedTime(resolve(partName));
+            return Long.toHexString(modified.toMillis()) + "-" + Long.toHexString(size);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to upload part " + partNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> listParts(String uploadId) {
+        Path directory = resolve(MULTIPART_PREFIX + uploadId);
+        Map<Integer, Long> parts = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return parts;
+        }
+
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, PART_PREFIX + "*")) {
+            for (Path entry : entries) {
+                String name = entry.getFileName().toString();
+                parts.put(Integer.parseInt(name.substring(PART_PREFIX.length())), Files.size(entry));
+            }
+            return parts;
+
+        } catch (IOException e) {
+            log.error("Failed to list parts of multipart upload {}: {}", uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to list uploaded parts: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, String fileName, String contentType) {
+        Map<Integer, Long> parts = listParts(uploadId);
+        Path target = resolve(fileName);
+        try {
+            log.info("Completing multipart upload {} into {} ({} parts)", uploadId, fileName, parts.size());
+
+            Files.createDirectories(target.getParent());
+            Path temp = target.resolveSibling(TEMP_PREFIX + UUID.randomUUID());
+            try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long position = 0;
+                for (Integer partNumber : parts.keySet()) {
+                    try (FileChannel in = FileChannel.open(resolve(partObjectName(uploadId, partNumber)),
+                            StandardOpenOption.READ)) {
+                        // File-to-file transfer stays in the kernel (copy_file_range/sendfile)
+                        long size = in.size();
+                        long copied = 0;
+                        while (copied < size) {
+                            copied += in.transferTo(copied, size - copied, out);
+                        }
+                        position += size;
+                    }
+                }
+                out.force(false);
+                log.debug("Assembled {} bytes for multipart upload {}", position, uploadId);
+
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException e) {
+            log.error("Failed to complete multipart upload {}: {}", uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to complete multipart upload: " + e.getMessage(), e);
+        }
+
+        abortMultipartUpload(uploadId);
+        log.info("Multipart upload {} completed: {}", uploadId, fileName);
+        return fileName;
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        Path directory = resolve(MULTIPART_PREFIX + uploadId);
+        if (!Files.exists(directory)) {
+            return;
+        }
+
+        try (Stream<Path> staged = Files.walk(directory)) {
+            List<Path> paths = staged.sorted(Comparator.reverseOrder()).toList();
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+            log.debug("Discarded {} staged entries of multipart upload {}", paths.size(), uploadId);
+
+        } catch (IOException e) {
+            log.error("Failed to abort multipart upload {}: {}", uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to abort multipart upload: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    public List<String> listStaleMultipartUploads(Duration maxAge) {
+        Path uploads = resolve(MULTIPART_PREFIX);
+        List<String> stale = new ArrayList<>();
+        if (!Files.isDirectory(uploads)) {
+            return stale;
+        }
+
+        Instant cutoff = Instant.now().minus(maxAge);
+        try (DirectoryStream<Path> directories = Files.newDirectoryStream(uploads, Files::isDirectory)) {
+            for (Path directory : directories) {
+                Instant lastActivity = Files.getLastModifiedTime(directory).toInstant();
+                try (Stream<Path> entries = Files.list(directory)) {
+                    for (Path entry : (Iterable<Path>) entries::iterator) {
+                        Instant modified = Files.getLastModifiedTime(entry).toInstant();
+                        if (modified.isAfter(lastActivity)) {
+                            lastActivity = modified;
+                        }
+                    }
+                }
+                if (lastActivity.isBefore(cutoff)) {
+                    stale.add(directory.getFileName().toString());
+                }
+            }
+            return stale;
+
+        } catch (IOException e) {
+            log.error("Failed to list multipart uploads: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to list multipart uploads: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Map an object name to a path, refusing names that escape the storage root
+     */
+    private Path resolve(String fileName) {
+        Path path = root.resolve(fileName).normalize();
+        if (!path.startsWith(root)) {
+            throw new FileStorageException("Invalid object name: " + fileName);
+        }
+        return path;
+    }
+
+    private String partObjectName(String uploadId, int partNumber) {
+        return MULTIPART_PREFIX + uploadId + "/" + PART_PREFIX + String.format("%05d", partNumber);
+    }
+
+    /**
+     * Stream over a region of a file using positional channel reads.
+     * {@link #transferTo} hands the region to {@link FileChannel#transferTo}, which is
+     * zero-copy for file targets and avoids an intermediate heap buffer otherwise.
+     */
+    private static final class FileRegionInputStream extends InputStream {
+
+        private final FileChannel channel;
+        private final long end;
+        private long position;
+
+        private FileRegionInputStream(FileChannel channel, long position, long end) {
+            this.channel = channel;
+            this.position = position;
+            this.end = end;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] single = new byte[1];
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (position >= end) {
+                return -1;
+            }
+
+            int count = (int) Math.min(length, end - position);
+            int read = channel.read(ByteBuffer.wrap(buffer, offset, count), position);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, end - position));
+            position += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() {
+            return (int) Math.min(Integer.MAX_VALUE, Math.max(0, end - position));
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            WritableByteChannel target = out instanceof FileOutputStream fileOut
+                    ? fileOut.getChannel()
+                    : Channels.newChannel(out);
+
+            long transferred = 0;
+            while (position < end) {
+                long count = channel.transferTo(position, end - position, target);
+                if (count <= 0) {
+                    break;
+                }
+                position += count;
+                transferred += count;
+            }
+            return transferred;
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -1,32 +1,130 @@
 package com.gnexdrive.fileservice.service.impl;
 
+import com.gnexdrive.common.constant.AppConstants;
 import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.common.util.FileUtils;
+import com.gnexdrive.fileservice.client.Bulkhead;
 import com.gnexdrive.fileservice.config.MinioConfig;
+import com.gnexdrive.fileservice.model.StoredObjectInfo;
 import com.gnexdrive.fileservice.service.ObjectStorageService;
+import com.gnexdrive.fileservice.util.DirectBufferPool;
 import io.minio.*;
+import io.minio.errors.ErrorResponseException;
 import io.minio.http.Method;
-import lombok.RequiredArgsConstructor;
+import io.minio.messages.DeleteError;
+import io.minio.messages.DeleteObject;
+import io.minio.messages.Item;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import okhttp3.Headers;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Profile;
 import org.springframework.core.io.InputStreamResource;
 import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Service;
 
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
 import java.io.InputStream;
-import java.util.concurrent.TimeUnit;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
 
 /**
- * MinIO implementation of Object Storage Service
+ * MinIO implementation of Object Storage Service.
+ * Every call holds a storage bulkhead permit; downloads keep theirs until the
+ * returned stream is closed, since that is when the MinIO connection is freed.
+ * Large uploads are split into parts that are sent concurrently and composed.
+ * With compression enabled, smaller uploads of compressible types are stored
+ * deflated with {@code Content-Encoding: deflate} and inflated again on download,
+ * so callers - and clients of pre-signed URLs - always see the original bytes.
+ * Uploads at or above the multipart threshold are never compressed: their parts
+ * need sizes known up front. Ranged reads check the stored encoding first, since a
+ * deflated object has to be read from the start.
  */
 @Slf4j
 @Service
-@RequiredArgsConstructor
+@Profile("!local")
+@Qualifier("storageBackend")
 public class MinioStorageService implements ObjectStorageService {
 
+    private static final String NO_SUCH_KEY = "NoSuchKey";
+    private static final String INVALID_RANGE = "InvalidRange";
+    private static final String DEFLATE_ENCODING = "deflate";
+    private static final int ENCODING_CACHE_SIZE = 10_000;
+
     private final MinioClient minioClient;
+    private final MinioClient presignMinioClient;
     private final MinioConfig minioConfig;
+    private final Bulkhead storageBulkhead;
+    private final DirectBufferPool multipartBufferPool;
+    private final Executor multipartUploadExecutor;
+    private final Counter compressionInputBytes;
+    private final Counter compressionStoredBytes;
+    // Whether an object is stored deflated, by name; guarded by itself
+    private final LinkedHashMap<String, Boolean> storedDeflated = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > ENCODING_CACHE_SIZE;
+        }
+    };
+
+    public MinioStorageService(MinioClient minioClient,
+                               @Qualifier("presignMinioClient") MinioClient presignMinioClient,
+                               MinioConfig minioConfig,
+                               @Qualifier("storageBulkhead") Bulkhead storageBulkhead,
+                               DirectBufferPool multipartBufferPool,
+                               @Qualifier("multipartUploadExecutor") Executor multipartUploadExecutor,
+                               MeterRegistry meterRegistry) {
+        this.minioClient = minioClient;
+        this.presignMinioClient = presignMinioClient;
+        this.minioConfig = minioConfig;
+        this.storageBulkhead = storageBulkhead;
+        this.multipartBufferPool = multipartBufferPool;
+        this.multipartUploadExecutor = multipartUploadExecutor;
+        this.compressionInputBytes = Counter.builder("storage.compression.bytes")
+                .description("Bytes of compressed uploads, before and after compression")
+                .tag("stage", "original")
+                .register(meterRegistry);
+        this.compressionStoredBytes = Counter.builder("storage.compression.bytes")
+                .description("Bytes of compressed uploads, before and after compression")
+                .tag("stage", "stored")
+                .register(meterRegistry);
+    }
 
     @Override
     public String uploadFile(String fileName, InputStream inputStream, String contentType, long size) {
+        if (isCompressible(contentType, size)) {
+            return uploadCompressed(fileName, inputStream, contentType, size);
+        }
+        if (size >= minioConfig.getMultipart().getThresholdBytes()) {
+            return uploadInParallelParts(fileName, inputStream, contentType, size);
+        }
+        
+        Bulkhead.Permit permit = storageBulkhead.acquire();
         try {
             log.info("Uploading file to MinIO: {}", fileName);
             
@@ -38,6 +136,7 @@ public class MinioStorageService implements ObjectStorageService {
                     .build();
             
             minioClient.putObject(args);
+            rememberEncoding(fileName, false);
             
             log.info("File uploaded successfully to MinIO: {}", fileName);
             return fileName;
@@ -45,11 +144,14 @@ public class MinioStorageService implements ObjectStorageService {
         } catch (Exception e) {
             log.error("Failed to upload file to MinIO: {}", e.getMessage(), e);
             throw new FileStorageException("Failed to upload file to object storage: " + e.getMessage());
+        } finally {
+            permit.close();
         }
     }
 
     @Override
     public Resource downloadFile(String fileName) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
         try {
             log.info("Downloading file from MinIO: {}", fileName);
             
@@ -58,19 +160,122 @@ public class MinioStorageService implements ObjectStorageService {
                     .object(fileName)
                     .build();
             
-            InputStream inputStream = minioClient.getObject(args);
+            GetObjectResponse response = minioClient.getObject(args);
+            InputStream inputStream = decoded(response, storageBulkhead.holdUntilClosed(response, permit));
             
             log.info("File downloaded successfully from MinIO: {}", fileName);
             return new InputStreamResource(inputStream);
             
+        } catch (ErrorResponseException e) {
+            permit.close();
+            throw translateReadError(fileName, e);
         } catch (Exception e) {
+            permit.close();
             log.error("Failed to download file from MinIO: {}", e.getMessage(), e);
             throw new FileStorageException("Failed to download file from object storage: " + e.getMessage());
         }
     }
 
+    @Override
+    public Resource downloadFile(String fileName, long offset, long length) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            log.debug("Downloading range from MinIO: {}, offset={}, length={}", fileName, offset, length);
+            
+            // A deflated object cannot serve a byte range, so skip the ranged request when it is known to be one
+            boolean knownDeflated = isStoredDeflated(fileName);
+            if (!knownDeflated) {
+                GetObjectArgs.Builder args = GetObjectArgs.builder()
+                        .bucket(minioConfig.getBucketName())
+                        .object(fileName)
+                        .offset(offset);
+                if (length >= 0) {
+                    args.length(length);
+                }
+                
+                GetObjectResponse response = null;
+                try {
+                    response = minioClient.getObject(args.build());
+                } catch (ErrorResponseException e) {
+                    // The range may only lie past the end of a deflated object's compressed bytes
+                    if (!INVALID_RANGE.equals(e.errorResponse().code())) {
+                        throw e;
+                    }
+                }
+                if (response != null && !isDeflated(response)) {
+                    return new InputStreamResource(storageBulkhead.holdUntilClosed(response, permit));
+                }
+                if (response != null) {
+                    response.close();
+                }
+            }
+            
+            // Offsets refer to the original content: inflate from the start and skip to the range
+            GetObjectResponse whole = minioClient.getObject(GetObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(fileName)
+                    .build());
+            rememberEncoding(fileName, isDeflated(whole));
+            InputStream content = decoded(whole, storageBulkhead.holdUntilClosed(whole, permit));
+            if (!isDeflated(whole) && !knownDeflated) {
+                content.close();
+                throw new FileStorageException("Requested range is outside of " + fileName);
+            }
+            try {
+                content.skipNBytes(offset);
+            } catch (IOException e) {
+                content.close();
+                throw e;
+            }
+            return new InputStreamResource(length >= 0 ? new RangeInputStream(content, length) : content);
+            
+        } catch (FileStorageException e) {
+            permit.close();
+            throw e;
+        } catch (ErrorResponseException e) {
+            permit.close();
+            throw translateReadError(fileName, e);
+        } catch (Exception e) {
+            permit.close();
+            log.error("Failed to download range from MinIO: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to download file from object storage: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public String copyObject(String sourceFileName, String targetFileName) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            log.info("Copying object in MinIO: {} -> {}", sourceFileName, targetFileName);
+            
+            // Server-side copy; sources over 5GB are copied part by part, still without leaving MinIO
+            CopyObjectArgs args = CopyObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(targetFileName)
+                    .source(CopySource.builder()
+                            .bucket(minioConfig.getBucketName())
+                            .object(sourceFileName)
+                            .build())
+                    .build();
+            
+            minioClient.copyObject(args);
+            
+            log.info("Object copied successfully in MinIO: {}", targetFileName);
+            return targetFileName;
+            
+        } catch (ErrorResponseException e) {
+            throw translateReadError(sourceFileName, e);
+        } catch (Exception e) {
+            log.error("Failed to copy object in MinIO: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to copy file in object storage: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
     @Override
     public void deleteFile(String fileName) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
         try {
             log.info("Deleting file from MinIO: {}", fileName);
             
@@ -80,17 +285,21 @@ public class MinioStorageService implements ObjectStorageService {
                     .build();
             
             minioClient.removeObject(args);
+            forgetEncoding(fileName);
             
             log.info("File deleted successfully from MinIO: {}", fileName);
             
         } catch (Exception e) {
             log.error("Failed to delete file from MinIO: {}", e.getMessage(), e);
             throw new FileStorageException("Failed to delete file from object storage: " + e.getMessage());
+        } finally {
+            permit.close();
         }
     }
 
     @Override
     public boolean fileExists(String fileName) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
         try {
             StatObjectArgs args = StatObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
@@ -103,22 +312,34 @@ public class MinioStorageService implements ObjectStorageService {
         } catch (Exception e) {
             log.debug("File does not exist in MinIO: {}", fileName);
             return false;
+        } finally {
+            permit.close();
         }
     }
 
     @Override
-    public String getFileUrl(String fileName) {
+    public String getFileUrl(String fileName, String downloadName, Duration expiry) {
         try {
-            log.debug("Generating pre-signed URL for file: {}", fileName);
+            log.debug("Generating pre-signed download URL for file: {}", fileName);
+            
+            // Ask MinIO to answer with the original name instead of the storage key
+            Map<String, String> responseHeaders = new HashMap<>();
+            if (downloadName != null) {
+                responseHeaders.put("response-content-disposition", ContentDisposition.attachment()
+                        .filename(downloadName, StandardCharsets.UTF_8)
+                        .build()
+                        .toString());
+            }
             
             GetPresignedObjectUrlArgs args = GetPresignedObjectUrlArgs.builder()
                     .method(Method.GET)
                     .bucket(minioConfig.getBucketName())
                     .object(fileName)
-                    .expiry(1, TimeUnit.HOURS)
+                    .expiry((int) expiry.toSeconds())
+                    .extraQueryParams(responseHeaders)
                     .build();
             
-            String url = minioClient.getPresignedObjectUrl(args);
+            String url = presignMinioClient.getPresignedObjectUrl(args);
             
             log.debug("Pre-signed URL generated: {}", url);
             return url;
@@ -130,7 +351,28 @@ public class MinioStorageService implements ObjectStorageService {
     }
 
     @Override
-    public Object getFileMetadata(String fileName) {
+    public String getUploadUrl(String fileName, Duration expiry) {
+        try {
+            log.debug("Generating pre-signed upload URL for file: {}", fileName);
+            
+            GetPresignedObjectUrlArgs args = GetPresignedObjectUrlArgs.builder()
+                    .method(Method.PUT)
+                    .bucket(minioConfig.getBucketName())
+                    .object(fileName)
+                    .expiry((int) expiry.toSeconds())
+                    .build();
+            
+            return presignMinioClient.getPresignedObjectUrl(args);
+            
+        } catch (Exception e) {
+            log.error("Failed to generate pre-signed upload URL: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to generate upload URL: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public StoredObjectInfo getFileMetadata(String fileName) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
         try {
             StatObjectArgs args = StatObjectArgs.builder()
                     .bucket(minioConfig.getBucketName())
@@ -140,11 +382,492 @@ public class MinioStorageService implements ObjectStorageService {
             StatObjectResponse response = minioClient.statObject(args);
             
             log.debug("Retrieved metadata for file: {}", fileName);
-            return response;
+            return StoredObjectInfo.builder()
+                    .name(fileName)
+                    .size(response.size())
+                    .etag(response.etag())
+                    .contentType(response.contentType())
+                    .lastModified(response.lastModified() != null ? response.lastModified().toInstant() : null)
+                    .build();
             
+        } catch (ErrorResponseException e) {
+            if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+                throw new ResourceNotFoundException("File not found in storage: " + fileName);
+            }
+            log.error("Failed to retrieve file metadata: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to retrieve file metadata: " + e.getMessage());
         } catch (Exception e) {
             log.error("Failed to retrieve file metadata: {}", e.getMessage(), e);
             throw new FileStorageException("Failed to retrieve file metadata: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
+    @Override
+    public List<StoredObjectInfo> listObjects(String startAfter, int maxKeys) {
+        List<StoredObjectInfo> objects = new ArrayList<>(maxKeys);
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            ListObjectsArgs.Builder args = ListObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .recursive(true)
+                    .maxKeys(maxKeys);
+            if (startAfter != null) {
+                args.startAfter(startAfter);
+            }
+            
+            // The iterator would keep fetching further pages; stop once this page is full
+            for (Result<Item> result : minioClient.listObjects(args.build())) {
+                Item item = result.get();
+                if (item.isDir()) {
+                    continue;
+                }
+                objects.add(StoredObjectInfo.builder()
+                        .name(item.objectName())
+                        .size(item.size())
+                        .etag(item.etag())
+                        .lastModified(item.lastModified() != null ? item.lastModified().toInstant() : null)
+                        .build());
+                if (objects.size() >= maxKeys) {
+                    break;
+                }
+            }
+            return objects;
+            
+        } catch (Exception e) {
+            log.error("Failed to list objects: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to list objects: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
+    @Override
+    public String uploadPart(String uploadId, int partNumber, InputStream inputStream, long size) {
+        String partName = partObjectName(uploadId, partNumber);
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            log.debug("Uploading part {} of multipart upload {}", partNumber, uploadId);
+            
+            PutObjectArgs args = PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(partName)
+                    .stream(inputStream, size, -1)
+                    .build();
+            
+            ObjectWriteResponse response = minioClient.putObject(args);
+            return response.etag();
+            
+        } catch (Exception e) {
+            log.error("Failed to upload part {} of multipart upload {}: {}", partNumber, uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to upload part " + partNumber + ": " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
+    @Override
+    public Map<Integer, Long> listParts(String uploadId) {
+        String prefix = partPrefix(uploadId);
+        Map<Integer, Long> parts = new TreeMap<>();
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .prefix(prefix)
+                    .recursive(true)
+                    .build());
+            
+            for (Result<Item> result : results) {
+                Item item = result.get();
+                parts.put(Integer.parseInt(item.objectName().substring(prefix.length())), item.size());
+            }
+            return parts;
+            
+        } catch (Exception e) {
+            log.error("Failed to list parts of multipart upload {}: {}", uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to list uploaded parts: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
+    @Override
+    public String completeMultipartUpload(String uploadId, String fileName, String contentType) {
+        Map<Integer, Long> parts = listParts(uploadId);
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            log.info("Completing multipart upload {} into {} ({} parts)", uploadId, fileName, parts.size());
+            
+            // Server-side concatenation: MinIO copies the staged parts into a
+            // multipart object without the bytes passing through this service
+            List<ComposeSource> sources = new ArrayList<>(parts.size());
+            for (Integer partNumber : parts.keySet()) {
+                sources.add(ComposeSource.builder()
+                        .bucket(minioConfig.getBucketName())
+                        .object(partObjectName(uploadId, partNumber))
+                        .build());
+            }
+            
+            Map<String, String> headers = new HashMap<>();
+            if (contentType != null) {
+                headers.put("Content-Type", contentType);
+            }
+            
+            minioClient.composeObject(ComposeObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(fileName)
+                    .sources(sources)
+                    .headers(headers)
+                    .build());
+            rememberEncoding(fileName, false);
+            
+        } catch (Exception e) {
+            log.error("Failed to complete multipart upload {}: {}", uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to complete multipart upload: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+        
+        abortMultipartUpload(uploadId);
+        log.info("Multipart upload {} completed: {}", uploadId, fileName);
+        return fileName;
+    }
+
+    @Override
+    public void abortMultipartUpload(String uploadId) {
+        String prefix = MULTIPART_PREFIX + uploadId + "/";
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            List<DeleteObject> staged = new ArrayList<>();
+            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .prefix(prefix)
+                    .recursive(true)
+                    .build());
+            for (Result<Item> result : results) {
+                staged.add(new DeleteObject(result.get().objectName()));
+            }
+            
+            if (staged.isEmpty()) {
+                return;
+            }
+            
+            // removeObjects is lazy - errors are only reported while iterating
+            Iterable<Result<DeleteError>> errors = minioClient.removeObjects(RemoveObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .objects(staged)
+                    .build());
+            for (Result<DeleteError> error : errors) {
+                DeleteError deleteError = error.get();
+                log.warn("Failed to remove staged object {}: {}", deleteError.objectName(), deleteError.message());
+            }
+            
+            log.debug("Discarded {} staged objects of multipart upload {}", staged.size(), uploadId);
+            
+        } catch (Exception e) {
+            log.error("Failed to abort multipart upload {}: {}", uploadId, e.getMessage(), e);
+            throw new FileStorageException("Failed to abort multipart upload: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
+    @Override
+    public List<String> listStaleMultipartUploads(Duration maxAge) {
+        ZonedDateTime cutoff = ZonedDateTime.now().minus(maxAge);
+        Map<String, ZonedDateTime> lastActivity = new HashMap<>();
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        try {
+            Iterable<Result<Item>> results = minioClient.listObjects(ListObjectsArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .prefix(MULTIPART_PREFIX)
+                    .recursive(true)
+                    .build());
+            
+            for (Result<Item> result : results) {
+                Item item = result.get();
+                String relative = item.objectName().substring(MULTIPART_PREFIX.length());
+                int separator = relative.indexOf('/');
+                if (separator <= 0 || item.lastModified() == null) {
+                    continue;
+                }
+                lastActivity.merge(relative.substring(0, separator), item.lastModified(),
+                        (a, b) -> a.isAfter(b) ? a : b);
+            }
+            
+            return lastActivity.entrySet().stream()
+                    .filter(entry -> entry.getValue().isBefore(cutoff))
+                    .map(Map.Entry::getKey)
+                    .toList();
+            
+        } catch (Exception e) {
+            log.error("Failed to list multipart uploads: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to list multipart uploads: " + e.getMessage());
+        } finally {
+            permit.close();
+        }
+    }
+
+    /**
+     * Upload a large object as concurrently sent parts that are then composed server-side.
+     * The source stream is read sequentially, one part at a time, into a pooled direct
+     * buffer; waiting for a free buffer is what keeps a fast reader from outrunning the uploads.
+     */
+    private String uploadInParallelParts(String fileName, InputStream inputStream, String contentType, long size) {
+        String uploadId = FileUtils.generateFileId();
+        long partSize = multipartBufferPool.getBufferSize();
+        int partCount = (int) ((size + partSize - 1) / partSize);
+        List<CompletableFuture<String>> parts = new ArrayList<>(partCount);
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        
+        log.info("Uploading file to MinIO in {} parallel parts: {}", partCount, fileName);
+        try {
+            ReadableByteChannel source = Channels.newChannel(inputStream);
+            for (int partNumber = 1; partNumber <= partCount; partNumber++) {
+                long partLength = Math.min(partSize, size - (partNumber - 1) * partSize);
+                ByteBuffer buffer = multipartBufferPool.acquire();
+                CompletableFuture<String> part;
+                try {
+                    // Stop reading as soon as any earlier part has failed; checked after acquire,
+                    // which waits for in-flight parts to hand their buffers back
+                    Throwable failed = failure.get();
+                    if (failed != null) {
+                        throw failed instanceof CompletionException completion ? completion : new CompletionException(failed);
+                    }
+                    readPart(source, buffer, (int) partLength);
+                    int number = partNumber;
+                    part = CompletableFuture.supplyAsync(() -> uploadPart(uploadId, number,
+                            DirectBufferPool.asInputStream(buffer), partLength), multipartUploadExecutor);
+                } catch (IOException | RuntimeException e) {
+                    multipartBufferPool.release(buffer);
+                    throw e;
+                }
+                parts.add(part.whenComplete((etag, error) -> {
+                    if (error != null) {
+                        failure.compareAndSet(null, error);
+                    }
+                    multipartBufferPool.release(buffer);
+                }));
+            }
+            
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).join();
+            completeMultipartUpload(uploadId, fileName, contentType);
+            
+            log.info("File uploaded successfully to MinIO: {}", fileName);
+            return fileName;
+            
+        } catch (Exception e) {
+            // Let parts still in flight finish so the abort removes all of them
+            CompletableFuture.allOf(parts.toArray(CompletableFuture[]::new)).exceptionally(error -> null).join();
+            abortMultipartUpload(uploadId);
+            
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof RejectedExecutionException rejected) {
+                throw rejected;
+            }
+            log.error("Failed to upload file to MinIO in parts: {}", cause.getMessage(), cause);
+            throw new FileStorageException("Failed to upload file to object storage: " + cause.getMessage());
+        }
+    }
+
+    private void readPart(ReadableByteChannel source, ByteBuffer buffer, int length) throws IOException {
+        buffer.limit(length);
+        while (buffer.hasRemaining()) {
+            if (source.read(buffer) < 0) {
+                throw new EOFException("Upload stream ended " + buffer.remaining() + " bytes before the declared size");
+            }
+        }
+        buffer.flip();
+    }
+
+    /**
+     * Missing objects are reported by the read itself rather than a separate stat call
+     */
+    private RuntimeException translateReadError(String fileName, ErrorResponseException e) {
+        if (NO_SUCH_KEY.equals(e.errorResponse().code())) {
+            return new ResourceNotFoundException("File not found in storage: " + fileName);
+        }
+        log.error("Failed to download file from MinIO: {}", e.getMessage(), e);
+        return new FileStorageException("Failed to download file from object storage: " + e.getMessage());
+    }
+
+    /**
+     * Compress unless pointless (small or already compressed content) or the upload is large
+     * enough for parallel parts, which need sizes known up front
+     */
+    private boolean isCompressible(String contentType, long size) {
+        MinioConfig.Compression compression = minioConfig.getCompression();
+        if (!compression.isEnabled() || contentType == null || size < compression.getMinBytes()
+                || size >= minioConfig.getMultipart().getThresholdBytes()) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return compression.getContentTypes().stream().anyMatch(type::startsWith);
+    }
+
+    private String uploadCompressed(String fileName, InputStream inputStream, String contentType, long size) {
+        Bulkhead.Permit permit = storageBulkhead.acquire();
+        Deflater deflater = new Deflater(minioConfig.getCompression().getLevel());
+        try {
+            log.info("Uploading compressed file to MinIO: {}", fileName);
+            
+            // The compressed size is not known up front, so MinIO buffers the stream part by part
+            PutObjectArgs args = PutObjectArgs.builder()
+                    .bucket(minioConfig.getBucketName())
+                    .object(fileName)
+                    .stream(new DeflaterInputStream(inputStream, deflater, AppConstants.STREAM_BUFFER_SIZE),
+                            -1, minioConfig.getMultipart().getPartSize())
+                    .contentType(contentType)
+                    .headers(Map.of(HttpHeaders.CONTENT_ENCODING, DEFLATE_ENCODING))
+                    .build();
+            
+            minioClient.putObject(args);
+            rememberEncoding(fileName, true);
+            
+            compressionInputBytes.increment(deflater.getBytesRead());
+            compressionStoredBytes.increment(deflater.getBytesWritten());
+            log.info("File uploaded successfully to MinIO: {}, compressed {} -> {} bytes",
+                    fileName, deflater.getBytesRead(), deflater.getBytesWritten());
+            return fileName;
+            
+        } catch (Exception e) {
+            log.error("Failed to upload file to MinIO: {}", e.getMessage(), e);
+            throw new FileStorageException("Failed to upload file to object storage: " + e.getMessage());
+        } finally {
+            deflater.end();
+            permit.close();
+        }
+    }
+
+    private boolean isDeflated(GetObjectResponse response) {
+        return isDeflated(response.headers());
+    }
+
+    private boolean isDeflated(Headers headers) {
+        return DEFLATE_ENCODING.equalsIgnoreCase(headers.get(HttpHeaders.CONTENT_ENCODING));
+    }
+
+    /**
+     * Whether the object is stored deflated, from what this instance wrote or read before,
+     * else from a stat. Without compression enabled only objects seen deflated count, and
+     * anything else is found out from the ranged response itself.
+     */
+    private boolean isStoredDeflated(String fileName) throws Exception {
+        Boolean known;
+        synchronized (storedDeflated) {
+            known = storedDeflated.get(fileName);
+        }
+        if (known != null) {
+            return known;
+        }
+        if (!minioConfig.getCompression().isEnabled()) {
+            return false;
+        }
+        StatObjectResponse stat = minioClient.statObject(StatObjectArgs.builder()
+                .bucket(minioConfig.getBucketName())
+                .object(fileName)
+                .build());
+        boolean deflated = isDeflated(stat.headers());
+        rememberEncoding(fileName, deflated);
+        return deflated;
+    }
+
+    private void rememberEncoding(String fileName, boolean deflated) {
+        synchronized (storedDeflated) {
+            storedDeflated.put(fileName, deflated);
+        }
+    }
+
+    private void forgetEncoding(String fileName) {
+        synchronized (storedDeflated) {
+            storedDeflated.remove(fileName);
+        }
+    }
+
+    /**
+     * Inflate the object's content if it was stored deflated
+     */
+    private InputStream decoded(GetObjectResponse response, InputStream in) {
+        if (!isDeflated(response)) {
+            return in;
+        }
+        Inflater inflater = new Inflater();
+        return new InflaterInputStream(in, inflater, AppConstants.STREAM_BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inflater.end();
+                }
+            }
+        };
+    }
+
+    private String partPrefix(String uploadId) {
+        return MULTIPART_PREFIX + uploadId + "/part-";
+    }
+
+    private String partObjectName(String uploadId, int partNumber) {
+        return partPrefix(uploadId) + String.format("%05d", partNumber);
+    }
+
+    /**
+     * Ends the stream after a fixed number of bytes
+     */
+    private static final class RangeInputStream extends FilterInputStream {
+
+        private long remaining;
+
+        private RangeInputStream(InputStream in, long length) {
+            super(in);
+            this.remaining = length;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int b = in.read();
+            if (b >= 0) {
+                remaining--;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = in.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = in.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(in.available(), remaining);
+        }
+
+        @Override
+        public boolean markSupported() {
+            return false;
         }
     }
 }
@@ -0,0 +1,181 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.gnexdrive.common.constant.AppConstants;
+import com.gnexdrive.common.exception.QuotaExceededException;
+import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.service.QuotaService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Quota enforcement from in-memory usage counters.
+ * A user's usage is loaded from metadata-service once, then kept current from the
+ * file.uploaded / file.deleted events every replica consumes, so the upload path
+ * only does a map lookup. Uploads still in progress on this replica hold a
+ * reservation so concurrent uploads cannot overshoot the quota together.
+ * Counters are periodically reset to what metadata-service has stored, which
+ * bounds the drift from missed or out-of-order events to one reconcile interval.
+ */
+@Slf4j
+@Service
+public class QuotaServiceImpl implements QuotaService {
+
+    private static final int RECONCILE_BATCH_SIZE = 500;
+
+    private final MetadataServiceClient metadataServiceClient;
+    private final boolean enabled;
+    private final long quotaBytes;
+    private final long reservationTtlMs;
+    private final long idleEvictionMs;
+    private final Map<String, UserUsage> usage = new ConcurrentHashMap<>();
+    private final Map<String, Reservation> reservations = new ConcurrentHashMap<>();
+
+    public QuotaServiceImpl(MetadataServiceClient metadataServiceClient,
+                            @Value("${quota.enabled:true}") boolean enabled,
+                            @Value("${quota.default-bytes:" + AppConstants.DEFAULT_STORAGE_QUOTA + "}") long quotaBytes,
+                            @Value("${quota.reservation-ttl-hours:25}") long reservationTtlHours,
+                            @Value("${quota.idle-eviction-minutes:60}") long idleEvictionMinutes) {
+        this.metadataServiceClient = metadataServiceClient;
+        this.enabled = enabled;
+        this.quotaBytes = quotaBytes;
+        this.reservationTtlMs = Duration.ofHours(reservationTtlHours).toMillis();
+        this.idleEvictionMs = Duration.ofMinutes(idleEvictionMinutes).toMillis();
+    }
+
+    @Override
+    public void reserve(String userId, String fileId, long bytes) {
+        if (!enabled) {
+            return;
+        }
+        UserUsage user = usageOf(userId);
+        if (user == null) {
+            return;
+        }
+        
+        synchronized (user) {
+            long committed = user.usedBytes + user.reservedBytes;
+            if (committed + bytes > quotaBytes) {
+                throw new QuotaExceededException(userId, quotaBytes, committed, bytes);
+            }
+            user.reservedBytes += bytes;
+        }
+        reservations.put(fileId, new Reservation(userId, bytes, System.currentTimeMillis() + reservationTtlMs));
+    }
+
+    @Override
+    public void release(String fileId) {
+        Reservation reservation = reservations.remove(fileId);
+        if (reservation == null) {
+            return;
+        }
+        UserUsage user = usage.get(reservation.userId());
+        if (user != null) {
+            synchronized (user) {
+                user.reservedBytes = Math.max(0, user.reservedBytes - reservation.bytes());
+            }
+        }
+    }
+
+    @Override
+    public void recordUpload(String userId, String fileId, long bytes) {
+        release(fileId);
+        UserUsage user = usage.get(userId);
+        if (user != null) {
+            synchronized (user) {
+                user.usedBytes += bytes;
+            }
+        }
+    }
+
+    @Override
+    public void recordDelete(String userId, long bytes) {
+        UserUsage user = usage.get(userId);
+        if (user != null) {
+            synchronized (user) {
+                user.usedBytes = Math.max(0, user.usedBytes - bytes);
+            }
+        }
+    }
+
+    /**
+     * Drop expired reservations and idle users, then reset the remaining counters to the stored usage
+     */
+    @Scheduled(fixedDelayString = "${quota.reconcile-interval-ms:300000}")
+    public void reconcile() {
+        long now = System.currentTimeMillis();
+        reservations.forEach((fileId, reservation) -> {
+            if (reservation.expiresAt() < now) {
+                log.debug("Reservation expired: fileId={}, userId={}", fileId, reservation.userId());
+                release(fileId);
+            }
+        });
+        usage.entrySet().removeIf(entry -> {
+            UserUsage user = entry.getValue();
+            synchronized (user) {
+                return user.reservedBytes == 0 && user.lastAccess < now - idleEvictionMs;
+            }
+        });
+
+        List<String> userIds = new ArrayList<>(usage.keySet());
+        for (int start = 0; start < userIds.size(); start += RECONCILE_BATCH_SIZE) {
+            List<String> batch = userIds.subList(start, Math.min(userIds.size(), start + RECONCILE_BATCH_SIZE));
+            try {
+                Map<String, Long> stored = metadataServiceClient.getStorageUsage(batch);
+                stored.forEach((userId, bytes) -> {
+                    UserUsage user = usage.get(userId);
+                    if (user != null) {
+                        synchronized (user) {
+                            user.usedBytes = bytes;
+                        }
+                    }
+                });
+            } catch (Exception e) {
+                // Counters stay event-driven until the next run
+                log.warn("Failed to reconcile storage usage for {} users: {}", batch.size(), e.getMessage());
+            }
+        }
+        log.debug("Storage usage reconciled: users={}, reservations={}", usage.size(), reservations.size());
+    }
+
+    /**
+     * Counter for the user, loaded from metadata-service on first use.
+     * Returns null when the stored usage cannot be loaded; the upload is then let through
+     * rather than failing on a metadata-service outage.
+     */
+    private UserUsage usageOf(String userId) {
+        UserUsage user = usage.get(userId);
+        if (user == null) {
+            long stored;
+            try {
+                stored = metadataServiceClient.getStorageUsage(List.of(userId)).getOrDefault(userId, 0L);
+            } catch (Exception e) {
+                log.warn("Storage usage of user {} unavailable, quota not enforced: {}", userId, e.getMessage());
+                return null;
+            }
+            user = usage.computeIfAbsent(userId, id -> new UserUsage(stored));
+        }
+        user.lastAccess = System.currentTimeMillis();
+        return user;
+    }
+
+    private static final class UserUsage {
+        private long usedBytes; // guarded by this
+        private long reservedBytes; // guarded by this
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private UserUsage(long usedBytes) {
+            this.usedBytes = usedBytes;
+        }
+    }
+
+    private record Reservation(String userId, long bytes, long expiresAt) {
+    }
+}
@@ -0,0 +1,280 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnexdrive.common.dto.StorageReferenceDto;
+import com.gnexdrive.fileservice.client.Bulkhead;
+import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.model.StoredObjectInfo;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Background garbage collection for object storage.
+ * Walks the bucket a page at a time, asks metadata-service who still refers to
+ * each object and removes objects that nothing live refers to: orphans (no record
+ * at all, e.g. a lost file.uploaded event) once they are older than the orphan grace
+ * period, and soft-deleted files once they have been deleted for the deleted grace period.
+ * <p>
+ * Work is throttled (deletes per second, pause between pages, pages per run) and the
+ * run yields as soon as foreground traffic holds most of the storage bulkhead. The
+ * cursor is kept in storage together with a lease, so the replicas take turns and a
+ * walk resumes where the previous run stopped.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(prefix = "storage.reconciler", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class StorageReconciler {
+
+    /**
+     * Reconciler state object; the leading dot keeps it out of the walk itself
+     */
+    private static final String STATE_OBJECT = ".reconciler/state.json";
+
+    private static final String REASON_ORPHAN = "orphan";
+    private static final String REASON_DELETED = "deleted";
+
+    private final ObjectStorageService objectStorageService;
+    private final MetadataServiceClient metadataServiceClient;
+    private final Bulkhead storageBulkhead;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Duration orphanGrace;
+    private final Duration deletedGrace;
+    private final Duration leaseDuration;
+    private final int pageSize;
+    private final int maxPagesPerRun;
+    private final long pagePauseMs;
+    private final long deleteIntervalMs;
+    private final double minFreeStorageCalls;
+
+    public StorageReconciler(ObjectStorageService objectStorageService,
+                             MetadataServiceClient metadataServiceClient,
+                             @Qualifier("storageBulkhead") Bulkhead storageBulkhead,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${storage.reconciler.orphan-grace-hours:48}") long orphanGraceHours,
+                             @Value("${storage.reconciler.deleted-grace-hours:24}") long deletedGraceHours,
+                             @Value("${storage.reconciler.lease-minutes:30}") long leaseMinutes,
+                             @Value("${storage.reconciler.page-size:500}") int pageSize,
+                             @Value("${storage.reconciler.max-pages-per-run:20}") int maxPagesPerRun,
+                             @Value("${storage.reconciler.page-pause-ms:1000}") long pagePauseMs,
+                             @Value("${storage.reconciler.max-deletes-per-second:20}") int maxDeletesPerSecond,
+                             @Value("${storage.reconciler.min-free-storage-calls:0.5}") double minFreeStorageCalls) {
+        this.objectStorageService = objectStorageService;
+        this.metadataServiceClient = metadataServiceClient;
+        this.storageBulkhead = storageBulkhead;
+        this.objectMapper = objectMapper;
+        this.meterRegistry = meterRegistry;
+        this.orphanGrace = Duration.ofHours(orphanGraceHours);
+        this.deletedGrace = Duration.ofHours(deletedGraceHours);
+        this.leaseDuration = Duration.ofMinutes(leaseMinutes);
+        this.pageSize = pageSize;
+        this.maxPagesPerRun = maxPagesPerRun;
+        this.pagePauseMs = pagePauseMs;
+        this.deleteIntervalMs = 1000L / Math.max(1, maxDeletesPerSecond);
+        this.minFreeStorageCalls = minFreeStorageCalls;
+    }
+
+    /**
+     * Reconcile the next stretch of the bucket, if no other replica holds the lease
+     */
+    @Scheduled(fixedDelayString = "${storage.reconciler.interval-ms:300000}",
+               initialDelayString = "${storage.reconciler.initial-delay-ms:60000}")
+    public void reconcile() {
+        ReconcilerState state;
+        try {
+            state = acquireLease();
+        } catch (Exception e) {
+            log.warn("Storage reconciler could not read its state: {}", e.getMessage());
+            return;
+        }
+        if (state == null) {
+            log.debug("Storage reconciler lease is held by another instance");
+            return;
+        }
+
+        String cursor = state.cursor();
+        int pages = 0;
+        int reclaimed = 0;
+        try {
+            while (pages < maxPagesPerRun) {
+                if (isStorageBusy()) {
+                    log.info("Storage reconciler yielding to foreground traffic at cursor {}", cursor);
+                    break;
+                }
+
+                List<StoredObjectInfo> objects = objectStorageService.listObjects(cursor, pageSize);
+                if (objects.isEmpty()) {
+                    log.info("Storage reconciler finished a pass over the bucket");
+                    cursor = null;
+                    break;
+                }
+
+                reclaimed += reconcilePage(objects);
+                cursor = objects.get(objects.size() - 1).getName();
+                pages++;
+
+                saveState(new ReconcilerState(instanceId, Instant.now().plus(leaseDuration), cursor));
+                Thread.sleep(pagePauseMs);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            // The next run picks up from the last saved cursor
+            log.warn("Storage reconciler stopped early: {}", e.getMessage());
+        } finally {
+            releaseLease(cursor);
+        }
+
+        log.info("Storage reconciler run done: pages={}, reclaimed={}", pages, reclaimed);
+    }
+
+    /**
+     * Compare one page of objects against metadata and remove what is no longer referenced
+     */
+    private int reconcilePage(List<StoredObjectInfo> objects) throws InterruptedException {
+        // Staged multipart parts and the reconciler state are managed elsewhere;
+        // block signatures follow the content they were computed from
+        List<StoredObjectInfo> candidates = objects.stream()
+                .filter(object -> !object.getName().startsWith(".")
+                        || object.getName().startsWith(ObjectStorageService.SIGNATURE_PREFIX))
+                .toList();
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, StorageReferenceDto> references = metadataServiceClient.getStorageReferences(
+                candidates.stream().map(object -> contentPath(object.getName())).distinct().toList());
+
+        Instant orphanCutoff = Instant.now().minus(orphanGrace);
+        LocalDateTime deletedCutoff = LocalDateTime.now().minus(deletedGrace);
+        int reclaimed = 0;
+        for (StoredObjectInfo object : candidates) {
+            StorageReferenceDto reference = references.get(contentPath(object.getName()));
+            String reason;
+            if (reference == null) {
+                // Young orphans may still be mid-upload or waiting for their file.uploaded event
+                if (object.getLastModified() == null || object.getLastModified().isAfter(orphanCutoff)) {
+                    continue;
+                }
+                reason = REASON_ORPHAN;
+            } else if (reference.getLiveReferences() == 0 && reference.getLastDeletedAt() != null
+                    && reference.getLastDeletedAt().isBefore(deletedCutoff)) {
+                reason = REASON_DELETED;
+            } else {
+                continue;
+            }
+            // Content just reused by a new file is referenced before its file.uploaded event lands
+            Instant referencedAt = objectStorageService.lastReferencedAt(object.getName());
+            if (referencedAt != null && referencedAt.isAfter(orphanCutoff)) {
+                continue;
+            }
+
+            reclaim(object, reason);
+            reclaimed++;
+            Thread.sleep(deleteIntervalMs);
+        }
+        return reclaimed;
+    }
+
+    /**
+     * Key of the content an object belongs to: itself, or the content a signature was computed from
+     */
+    private String contentPath(String name) {
+        return name.startsWith(ObjectStorageService.SIGNATURE_PREFIX)
+                ? name.substring(ObjectStorageService.SIGNATURE_PREFIX.length())
+                : name;
+    }
+
+    private void reclaim(StoredObjectInfo object, String reason) {
+        objectStorageService.deleteFile(object.getName());
+
+        Counter.builder("storage.reconciler.reclaimed.objects")
+                .description("Objects removed by the storage reconciler")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment();
+        Counter.builder("storage.reconciler.reclaimed.bytes")
+                .description("Bytes freed by the storage reconciler")
+                .tag("reason", reason)
+                .register(meterRegistry)
+                .increment(object.getSize());
+
+        log.info("Reclaimed {} object: name={}, size={}", reason, object.getName(), object.getSize());
+    }
+
+    /**
+     * Whether foreground requests are using more of the storage bulkhead than the reconciler leaves them
+     */
+    private boolean isStorageBusy() {
+        return storageBulkhead.availablePermits() < storageBulkhead.getMaxConcurrentCalls() * minFreeStorageCalls;
+    }
+
+    /**
+     * Take the lease unless another instance holds an unexpired one.
+     * Storage offers no compare-and-set, so the write is read back to settle races;
+     * a lost race at worst has two instances walking the same page, which is harmless.
+     * @return the state to continue from, or null if another instance owns the lease
+     */
+    private ReconcilerState acquireLease() throws IOException {
+        ReconcilerState current = readState();
+        Instant now = Instant.now();
+        if (current != null && !instanceId.equals(current.owner())
+                && current.leaseExpiresAt() != null && current.leaseExpiresAt().isAfter(now)) {
+            return null;
+        }
+
+        String cursor = current != null ? current.cursor() : null;
+        saveState(new ReconcilerState(instanceId, now.plus(leaseDuration), cursor));
+
+        ReconcilerState written = readState();
+        return written != null && instanceId.equals(written.owner()) ? written : null;
+    }
+
+    private void releaseLease(String cursor) {
+        try {
+            saveState(new ReconcilerState(instanceId, Instant.now(), cursor));
+        } catch (Exception e) {
+            // The lease simply runs out
+            log.warn("Failed to release storage reconciler lease: {}", e.getMessage());
+        }
+    }
+
+    private ReconcilerState readState() throws IOException {
+        if (!objectStorageService.fileExists(STATE_OBJECT)) {
+            return null;
+        }
+        try (InputStream in = objectStorageService.downloadFile(STATE_OBJECT).getInputStream()) {
+            return objectMapper.readValue(in, ReconcilerState.class);
+        }
+    }
+
+    private void saveState(ReconcilerState state) throws IOException {
+        byte[] content = objectMapper.writeValueAsBytes(state);
+        objectStorageService.uploadFile(STATE_OBJECT, new ByteArrayInputStream(content), "application/json", content.length);
+    }
+
+    /**
+     * Persisted between runs; cursor is the last object name reconciled, null to start over
+     */
+    private record ReconcilerState(String owner, Instant leaseExpiresAt, String cursor) {
+    }
+}
@@ -0,0 +1,246 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.gnexdrive.common.constant.AppConstants;
+import com.gnexdrive.fileservice.service.TransferScheduler;
+import com.gnexdrive.fileservice.util.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Token-bucket transfer pacing.
+ * Every read from a throttled stream takes tokens from the user's bucket and then
+ * from the pod-wide bucket of its direction. Interactive transfers (small files)
+ * skip the per-user limit and may drain the pod-wide bucket completely, while bulk
+ * transfers must leave a reserve in it, so a large sync never starves a thumbnail
+ * or a document open behind it.
+ */
+@Slf4j
+@Service
+public class TransferSchedulerImpl implements TransferScheduler {
+
+    private static final String INTERACTIVE = "interactive";
+    private static final String BULK = "bulk";
+
+    private final Map<Direction, TokenBucket> globalBuckets = new EnumMap<>(Direction.class);
+    private final Map<String, TokenBucket> userBuckets = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> waiting = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+    private final long userBytesPerSecond;
+    private final long interactiveMaxBytes;
+    private final double bulkReserveFraction;
+    private final Duration burst;
+    private final long idleEvictionNanos;
+
+    public TransferSchedulerImpl(MeterRegistry meterRegistry,
+                                 @Value("${transfer.global-bytes-per-second:104857600}") long globalBytesPerSecond,
+                                 @Value("${transfer.user-bytes-per-second:20971520}") long userBytesPerSecond,
+                                 @Value("${transfer.interactive-max-bytes:4194304}") long interactiveMaxBytes,
+                                 @Value("${transfer.bulk-reserve-fraction:0.2}") double bulkReserveFraction,
+                                 @Value("${transfer.burst-ms:250}") long burstMs,
+                                 @Value("${transfer.idle-eviction-minutes:5}") long idleEvictionMinutes) {
+        this.meterRegistry = meterRegistry;
+        this.userBytesPerSecond = userBytesPerSecond;
+        this.interactiveMaxBytes = interactiveMaxBytes;
+        this.bulkReserveFraction = bulkReserveFraction;
+        this.burst = Duration.ofMillis(burstMs);
+        this.idleEvictionNanos = Duration.ofMinutes(idleEvictionMinutes).toNanos();
+
+        if (globalBytesPerSecond > 0) {
+            for (Direction direction : Direction.values()) {
+                globalBuckets.put(direction, newBucket(globalBytesPerSecond));
+            }
+        }
+        for (String transferClass : new String[] {INTERACTIVE, BULK}) {
+            AtomicInteger queued = waiting.computeIfAbsent(transferClass, key -> new AtomicInteger());
+            AtomicInteger running = active.computeIfAbsent(transferClass, key -> new AtomicInteger());
+            Gauge.builder("transfer.queue.depth", queued, AtomicInteger::get)
+                    .description("Transfers waiting for bandwidth")
+                    .tag("class", transferClass)
+                    .register(meterRegistry);
+            Gauge.builder("transfer.active", running, AtomicInteger::get)
+                    .description("Transfers in progress")
+                    .tag("class", transferClass)
+                    .register(meterRegistry);
+        }
+
+        log.info("Transfer scheduler: global={} B/s per direction, user={} B/s, interactive up to {} bytes",
+                globalBytesPerSecond, userBytesPerSecond, interactiveMaxBytes);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return !globalBuckets.isEmpty() || userBytesPerSecond > 0;
+    }
+
+    @Override
+    public InputStream throttle(String userId, Direction direction, long expectedBytes, InputStream in) {
+        if (!isEnabled()) {
+            return in;
+        }
+
+        boolean interactive = expectedBytes >= 0 && expectedBytes <= interactiveMaxBytes;
+        TokenBucket global = globalBuckets.get(direction);
+        TokenBucket user = interactive || userBytesPerSecond <= 0 ? null
+                : userBuckets.computeIfAbsent(userId + ":" + direction, key -> newBucket(userBytesPerSecond));
+        long reserve = interactive || global == null ? 0 : (long) (global.getCapacity() * bulkReserveFraction);
+        String transferClass = interactive ? INTERACTIVE : BULK;
+
+        Counter bytes = Counter.builder("transfer.bytes")
+                .description("Bytes moved through paced transfers")
+                .tag("direction", direction.name().toLowerCase())
+                .tag("class", transferClass)
+                .register(meterRegistry);
+        return new ThrottledInputStream(in, user, global, reserve, transferClass, bytes);
+    }
+
+    /**
+     * Forget buckets of users who have not transferred anything for a while
+     */
+    @Scheduled(fixedDelayString = "${transfer.cleanup-interval-ms:60000}")
+    public void evictIdleBuckets() {
+        userBuckets.values().removeIf(bucket -> bucket.idleNanos() > idleEvictionNanos);
+    }
+
+    private TokenBucket newBucket(long bytesPerSecond) {
+        // Room for at least two full reads, so the reserve never blocks a whole grant
+        long capacity = Math.max(bytesPerSecond * burst.toMillis() / 1000, 2L * AppConstants.STREAM_BUFFER_SIZE);
+        return new TokenBucket(bytesPerSecond, capacity);
+    }
+
+    private final class ThrottledInputStream extends FilterInputStream {
+
+        private final TokenBucket user;
+        private final TokenBucket global;
+        private final long reserve;
+        private final String transferClass;
+        private final Counter bytes;
+        private boolean closed;
+
+        private ThrottledInputStream(InputStream in, TokenBucket user, TokenBucket global, long reserve,
+                                     String transferClass, Counter bytes) {
+            super(in);
+            this.user = user;
+            this.global = global;
+            this.reserve = reserve;
+            this.transferClass = transferClass;
+            this.bytes = bytes;
+            active.get(transferClass).incrementAndGet();
+        }
+
+        @Override
+        public int read() throws IOException {
+            long granted = acquire(1);
+            int b = in.read();
+            if (b < 0) {
+                giveBack(granted);
+            } else {
+                bytes.increment();
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            int granted = (int) acquire(Math.min(length, AppConstants.STREAM_BUFFER_SIZE));
+            int read = in.read(buffer, offset, granted);
+            giveBack(granted - Math.max(read, 0));
+            if (read > 0) {
+                bytes.increment(read);
+            }
+            return read;
+        }
+
+        @Override
+        public long transferTo(OutputStream out) throws IOException {
+            // Spelled out so a delegating transferTo can never bypass the pacing in read()
+            byte[] buffer = new byte[AppConstants.STREAM_BUFFER_SIZE];
+            long transferred = 0;
+            int read;
+            while ((read = read(buffer, 0, buffer.length)) >= 0) {
+                out.write(buffer, 0, read);
+                transferred += read;
+            }
+            return transferred;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                active.get(transferClass).decrementAndGet();
+            }
+            super.close();
+        }
+
+        /**
+         * Wait until both buckets grant at least one byte; returns how many may be read
+         */
+        private long acquire(long wanted) throws InterruptedIOException {
+            long granted = user != null ? take(user, wanted, 0) : wanted;
+            if (global == null) {
+                return granted;
+            }
+            long globalGranted = take(global, granted, reserve);
+            if (user != null && globalGranted < granted) {
+                user.giveBack(granted - globalGranted);
+            }
+            return globalGranted;
+        }
+
+        private long take(TokenBucket bucket, long wanted, long reserve) throws InterruptedIOException {
+            long granted = bucket.tryTake(wanted, reserve);
+            if (granted > 0) {
+                return granted;
+            }
+
+            AtomicInteger queued = waiting.get(transferClass);
+            queued.incrementAndGet();
+            try {
+                long target = Math.min(wanted, bucket.getCapacity() - reserve);
+                while ((granted = bucket.tryTake(wanted, reserve)) == 0) {
+                    LockSupport.parkNanos(Math.max(1, bucket.nanosUntil(target, reserve)));
+                    if (Thread.interrupted()) {
+                        Thread.currentThread().interrupt();
+                        throw new InterruptedIOException("Interrupted while waiting for transfer bandwidth");
+                    }
+                }
+                return granted;
+            } finally {
+                queued.decrementAndGet();
+            }
+        }
+
+        private void giveBack(long unused) {
+            if (unused <= 0) {
+                return;
+            }
+            if (user != null) {
+                user.giveBack(unused);
+            }
+            if (global != null) {
+                global.giveBack(unused);
+            }
+        }
+    }
+}
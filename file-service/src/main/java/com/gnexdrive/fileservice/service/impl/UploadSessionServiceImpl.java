@@ -0,0 +1,495 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnexdrive.common.constant.AppConstants;
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.exception.FileStorageException;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.common.util.FileUtils;
+import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.dto.UploadChunkDto;
+import com.gnexdrive.fileservice.dto.UploadSessionDto;
+import com.gnexdrive.fileservice.dto.UploadSessionRequestDto;
+import com.gnexdrive.fileservice.model.StoredObjectInfo;
+import com.gnexdrive.fileservice.model.UploadSession;
+import com.gnexdrive.fileservice.service.FileService;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import com.gnexdrive.fileservice.service.QuotaService;
+import com.gnexdrive.fileservice.service.TransferScheduler;
+import com.gnexdrive.fileservice.service.UploadSessionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of Upload Session Service.
+ * Chunks are staged as multipart parts in object storage and the session
+ * descriptor is stored alongside them, so a client can resume against any
+ * replica after a dropped connection. Direct sessions skip the chunks: the
+ * client PUTs the whole file to a pre-signed storage URL and the content never
+ * passes through the gateway or this service.
+ */
+@Slf4j
+@Service
+public class UploadSessionServiceImpl implements UploadSessionService {
+
+    private static final long MIN_CHUNK_SIZE = 5L * 1024 * 1024; // Object storage minimum part size
+    private static final long MAX_CHUNK_SIZE = 64L * 1024 * 1024;
+    private static final String SESSION_DESCRIPTOR = "/session.json";
+    private static final String CHUNK_DIGEST = "/digest-%05d";
+
+    private final ObjectStorageService objectStorageService;
+    private final FileService fileService;
+    private final MetadataServiceClient metadataServiceClient;
+    private final QuotaService quotaService;
+    private final TransferScheduler transferScheduler;
+    private final ObjectMapper objectMapper;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+    private final Semaphore partPermits;
+    private final long defaultChunkSize;
+    private final Duration sessionTtl;
+    private final long permitTimeoutMs;
+    private final Duration directUrlExpiry;
+
+    public UploadSessionServiceImpl(ObjectStorageService objectStorageService,
+                                    FileService fileService,
+                                    MetadataServiceClient metadataServiceClient,
+                                    QuotaService quotaService,
+                                    TransferScheduler transferScheduler,
+                                    ObjectMapper objectMapper,
+                                    @Value("${upload.session.max-concurrent-parts:16}") int maxConcurrentParts,
+                                    @Value("${upload.session.default-chunk-size:8388608}") long defaultChunkSize,
+                                    @Value("${upload.session.ttl-hours:24}") long ttlHours,
+                                    @Value("${upload.session.permit-timeout-ms:5000}") long permitTimeoutMs,
+                                    @Value("${upload.direct.url-expiry-minutes:60}") long directUrlExpiryMinutes) {
+        this.objectStorageService = objectStorageService;
+        this.fileService = fileService;
+        this.metadataServiceClient = metadataServiceClient;
+        this.quotaService = quotaService;
+        this.transferScheduler = transferScheduler;
+        this.objectMapper = objectMapper;
+        this.partPermits = new Semaphore(maxConcurrentParts, true);
+        this.defaultChunkSize = defaultChunkSize;
+        this.sessionTtl = Duration.ofHours(ttlHours);
+        this.permitTimeoutMs = permitTimeoutMs;
+        this.directUrlExpiry = Duration.ofMinutes(directUrlExpiryMinutes);
+    }
+
+    @Override
+    public UploadSessionDto initSession(UploadSessionRequestDto request, String userId) {
+        validateRequest(request);
+        
+        boolean direct = Boolean.TRUE.equals(request.getDirect());
+        long chunkSize = direct ? request.getTotalSize()
+                : request.getChunkSize() != null ? request.getChunkSize() : defaultChunkSize;
+        int totalChunks = (int) ((request.getTotalSize() + chunkSize - 1) / chunkSize);
+        
+        String fileId = FileUtils.generateFileId();
+        String fileExtension = FileUtils.extractFileExtension(request.getFileName());
+        LocalDateTime now = LocalDateTime.now();
+        
+        UploadSession session = UploadSession.builder()
+                .uploadId(FileUtils.generateFileId())
+                .fileId(fileId)
+                .userId(userId)
+                .fileName(request.getFileName())
+                .fileType(fileExtension)
+                .contentType(request.getContentType())
+                .storagePath(userId + "/" + fileId + (fileExtension.isEmpty() ? "" : "." + fileExtension))
+                .totalSize(request.getTotalSize())
+                .chunkSize(chunkSize)
+                .totalChunks(totalChunks)
+                .direct(direct)
+                .createdAt(now)
+                .expiresAt(now.plus(sessionTtl))
+                .build();
+        
+        // The whole declared size counts against the quota until the session completes or is aborted
+        quotaService.reserve(userId, fileId, request.getTotalSize());
+        UploadSessionDto dto;
+        try {
+            // Signs the upload URL of direct sessions, failing early on backends without pre-signing
+            dto = toDto(session, Map.of());
+            saveDescriptor(session);
+        } catch (RuntimeException e) {
+            quotaService.release(fileId);
+            throw e;
+        }
+        sessions.put(session.getUploadId(), session);
+        
+        log.info("Upload session started: uploadId={}, fileId={}, size={}, chunks={}, direct={}", 
+                session.getUploadId(), fileId, request.getTotalSize(), totalChunks, direct);
+        return dto;
+    }
+
+    @Override
+    public UploadChunkDto uploadChunk(String uploadId, int chunkIndex, InputStream content,
+                                      long contentLength, String userId) {
+        UploadSession session = loadSession(uploadId, userId);
+        
+        if (session.isDirect()) {
+            throw new IllegalArgumentException("Upload session " + uploadId 
+                    + " is direct; PUT the file to its uploadUrl instead of sending chunks");
+        }
+        if (chunkIndex < 0 || chunkIndex >= session.getTotalChunks()) {
+            throw new IllegalArgumentException(String.format(
+                    "Chunk index %d out of range [0, %d)", chunkIndex, session.getTotalChunks()));
+        }
+        long expectedLength = session.chunkLength(chunkIndex);
+        if (contentLength != expectedLength) {
+            throw new IllegalArgumentException(String.format(
+                    "Chunk %d must be %d bytes, received Content-Length %d", chunkIndex, expectedLength, contentLength));
+        }
+        
+        acquirePartPermit();
+        try {
+            MessageDigest digest = FileUtils.newChecksumDigest();
+            // Paced by the size of the whole file, so the chunks of a large upload count as bulk
+            InputStream paced = transferScheduler.throttle(
+                    userId, TransferScheduler.Direction.UPLOAD, session.getTotalSize(), content);
+            try (InputStream chunk = new DigestInputStream(
+                    new BufferedInputStream(paced, AppConstants.STREAM_BUFFER_SIZE), digest)) {
+                objectStorageService.uploadPart(uploadId, chunkIndex + 1, chunk, expectedLength);
+            } catch (IOException e) {
+                throw new FileStorageException("Failed to read chunk " + chunkIndex + ": " + e.getMessage(), e);
+            }
+            
+            // Kept next to the part, so completion on any replica can derive the file's checksum
+            String checksum = FileUtils.toHex(digest.digest());
+            saveChunkDigest(uploadId, chunkIndex, checksum);
+            
+            // The TTL is an idle timeout: every stored chunk moves it forward, for all replicas
+            session.setExpiresAt(LocalDateTime.now().plus(sessionTtl));
+            saveDescriptor(session);
+            
+            log.debug("Chunk stored: uploadId={}, chunk={}, size={}", uploadId, chunkIndex, expectedLength);
+            return UploadChunkDto.builder()
+                    .uploadId(uploadId)
+                    .chunkIndex(chunkIndex)
+                    .size(expectedLength)
+                    .checksum(checksum)
+                    .build();
+        } finally {
+            partPermits.release();
+        }
+    }
+
+    @Override
+    public UploadSessionDto getSession(String uploadId, String userId) {
+        UploadSession session = loadSession(uploadId, userId);
+        // A fresh upload URL is signed for direct sessions, so an expired one can be replaced
+        return toDto(session, session.isDirect() ? Map.of() : objectStorageService.listParts(uploadId));
+    }
+
+    @Override
+    public FileMetadataDto completeSession(String uploadId, String userId) {
+        UploadSession session = loadSession(uploadId, userId);
+        if (session.isDirect()) {
+            return completeDirectSession(session);
+        }
+        
+        Map<Integer, Long> parts = objectStorageService.listParts(uploadId);
+        List<Integer> missing = new ArrayList<>();
+        List<String> chunkDigests = new ArrayList<>(session.getTotalChunks());
+        for (int chunk = 0; chunk < session.getTotalChunks(); chunk++) {
+            Long size = parts.get(chunk + 1);
+            String chunkDigest = size != null && size == session.chunkLength(chunk) ? readChunkDigest(uploadId, chunk) : null;
+            if (chunkDigest == null) {
+                missing.add(chunk);
+            }
+            chunkDigests.add(chunkDigest);
+        }
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Upload is incomplete, missing chunks: " + missing);
+        }
+        
+        objectStorageService.completeMultipartUpload(uploadId, session.getStoragePath(), session.getContentType());
+        // A single chunk's MD5 is the file's own; MD5s of several chunks cannot be combined into it
+        String checksum = chunkDigests.size() == 1 ? chunkDigests.get(0) : digestObject(session.getStoragePath());
+        sessions.remove(uploadId);
+        
+        FileMetadataDto metadata = FileMetadataDto.builder()
+                .fileId(session.getFileId())
+                .fileName(session.getFileName())
+                .fileType(session.getFileType())
+                .fileSize(session.getTotalSize())
+                .ownerId(userId)
+                .storagePath(session.getStoragePath())
+                .contentType(session.getContentType())
+                .checksum(checksum)
+                .uploadedAt(LocalDateTime.now())
+                .status("UPLOADED")
+                .version(1)
+                .build();
+        
+        fileService.publishUploadEvent(metadata);
+        
+        log.info("Upload session completed: uploadId={}, fileId={}", uploadId, session.getFileId());
+        return metadata;
+    }
+
+    @Override
+    public void abortSession(String uploadId, String userId) {
+        UploadSession session = loadSession(uploadId, userId);
+        if (session.isDirect()) {
+            objectStorageService.deleteFile(session.getStoragePath());
+        }
+        objectStorageService.abortMultipartUpload(uploadId);
+        sessions.remove(uploadId);
+        quotaService.release(session.getFileId());
+        log.info("Upload session aborted: uploadId={}", uploadId);
+    }
+
+    /**
+     * Discard sessions that have been idle longer than the session TTL
+     */
+    @Scheduled(fixedDelayString = "${upload.session.cleanup-interval-ms:600000}")
+    public void cleanupStaleSessions() {
+        try {
+            List<String> stale = objectStorageService.listStaleMultipartUploads(sessionTtl);
+            for (String uploadId : stale) {
+                log.info("Discarding stale upload session: {}", uploadId);
+                discardUnconfirmedObject(uploadId);
+                objectStorageService.abortMultipartUpload(uploadId);
+                UploadSession session = sessions.remove(uploadId);
+                if (session != null) {
+                    quotaService.release(session.getFileId());
+                }
+            }
+        } catch (Exception e) {
+            log.error("Failed to clean up stale upload sessions: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Confirm a direct upload: the object has to be in storage with the declared size
+     */
+    private FileMetadataDto completeDirectSession(UploadSession session) {
+        StoredObjectInfo stored;
+        try {
+            stored = objectStorageService.getFileMetadata(session.getStoragePath());
+        } catch (ResourceNotFoundException e) {
+            throw new IllegalStateException("Upload is incomplete, nothing has been stored at the upload URL yet");
+        }
+        if (stored.getSize() != session.getTotalSize()) {
+            throw new IllegalStateException(String.format(
+                    "Stored object is %d bytes but the session declared %d", stored.getSize(), session.getTotalSize()));
+        }
+        
+        // The content never passed through this service; storage's ETag of the single PUT is its MD5
+        String checksum = stored.getEtag() != null ? stored.getEtag().replace("\"", "") : null;
+        FileMetadataDto metadata = FileMetadataDto.builder()
+                .fileId(session.getFileId())
+                .fileName(session.getFileName())
+                .fileType(session.getFileType())
+                .fileSize(stored.getSize())
+                .ownerId(session.getUserId())
+                .storagePath(session.getStoragePath())
+                .contentType(session.getContentType() != null ? session.getContentType() : stored.getContentType())
+                .checksum(checksum)
+                .uploadedAt(LocalDateTime.now())
+                .status("UPLOADED")
+                .version(1)
+                .build();
+        
+        // Publish before dropping the descriptor so a failed completion can be retried
+        fileService.publishUploadEvent(metadata);
+        objectStorageService.abortMultipartUpload(session.getUploadId());
+        sessions.remove(session.getUploadId());
+        
+        log.info("Direct upload completed: uploadId={}, fileId={}, size={}", 
+                session.getUploadId(), session.getFileId(), stored.getSize());
+        return metadata;
+    }
+
+    /**
+     * A stale direct session may have left an object that was never announced; remove it
+     */
+    private void discardUnconfirmedObject(String uploadId) {
+        try {
+            UploadSession session = sessions.containsKey(uploadId) ? sessions.get(uploadId) : readDescriptor(uploadId);
+            if (!session.isDirect() || metadataServiceClient.getFileMetadata(session.getFileId()) != null) {
+                return;
+            }
+            if (objectStorageService.fileExists(session.getStoragePath())) {
+                log.info("Removing unconfirmed direct upload: uploadId={}, path={}", uploadId, session.getStoragePath());
+                objectStorageService.deleteFile(session.getStoragePath());
+            }
+        } catch (ResourceNotFoundException e) {
+            log.debug("Stale upload {} has no session descriptor", uploadId);
+        } catch (Exception e) {
+            log.warn("Failed to check stale upload {} for an unconfirmed object: {}", uploadId, e.getMessage());
+        }
+    }
+
+    private void validateRequest(UploadSessionRequestDto request) {
+        if (request == null || request.getFileName() == null || request.getFileName().trim().isEmpty()) {
+            throw new IllegalArgumentException("File name is empty");
+        }
+        if (request.getTotalSize() == null || request.getTotalSize() <= 0) {
+            throw new IllegalArgumentException("Total size must be positive");
+        }
+        if (request.getTotalSize() > AppConstants.MAX_FILE_SIZE) {
+            throw new IllegalArgumentException(
+                    String.format("File size exceeds maximum allowed size of %s. Actual size: %s",
+                            FileUtils.formatFileSize(AppConstants.MAX_FILE_SIZE),
+                            FileUtils.formatFileSize(request.getTotalSize())));
+        }
+        Long chunkSize = request.getChunkSize();
+        if (!Boolean.TRUE.equals(request.getDirect()) && chunkSize != null && (chunkSize < MIN_CHUNK_SIZE || chunkSize > MAX_CHUNK_SIZE)) {
+            throw new IllegalArgumentException(String.format("Chunk size must be between %s and %s",
+                    FileUtils.formatFileSize(MIN_CHUNK_SIZE), FileUtils.formatFileSize(MAX_CHUNK_SIZE)));
+        }
+    }
+
+    private void acquirePartPermit() {
+        try {
+            if (!partPermits.tryAcquire(permitTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("Too many concurrent chunk uploads, retry later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for an upload slot");
+        }
+    }
+
+    private UploadSession loadSession(String uploadId, String userId) {
+        UploadSession session = sessions.computeIfAbsent(uploadId, this::readDescriptor);
+        
+        if (session.isExpired()) {
+            // Chunks sent to another replica move the expiry forward in the stored descriptor only
+            session = readDescriptor(uploadId);
+            sessions.put(uploadId, session);
+        }
+        if (session.isExpired()) {
+            sessions.remove(uploadId);
+            throw new ResourceNotFoundException("Upload session expired: " + uploadId);
+        }
+        if (!session.getUserId().equals(userId)) {
+            log.warn("Unauthorized upload session access: uploadId={}, userId={}", uploadId, userId);
+            throw new SecurityException("You do not have permission to access this upload session");
+        }
+        return session;
+    }
+
+    private void saveDescriptor(UploadSession session) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(session);
+            objectStorageService.uploadFile(descriptorPath(session.getUploadId()),
+                    new ByteArrayInputStream(json), "application/json", json.length);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to persist upload session: " + e.getMessage(), e);
+        }
+    }
+
+    private UploadSession readDescriptor(String uploadId) {
+        String path = descriptorPath(uploadId);
+        if (!objectStorageService.fileExists(path)) {
+            throw new ResourceNotFoundException("Upload session not found: " + uploadId);
+        }
+        try (InputStream in = objectStorageService.downloadFile(path).getInputStream()) {
+            return objectMapper.readValue(in, UploadSession.class);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read upload session: " + e.getMessage(), e);
+        }
+    }
+
+    private String descriptorPath(String uploadId) {
+        return ObjectStorageService.MULTIPART_PREFIX + uploadId + SESSION_DESCRIPTOR;
+    }
+
+    private void saveChunkDigest(String uploadId, int chunkIndex, String checksum) {
+        byte[] hex = checksum.getBytes(StandardCharsets.US_ASCII);
+        objectStorageService.uploadFile(chunkDigestPath(uploadId, chunkIndex),
+                new ByteArrayInputStream(hex), "text/plain", hex.length);
+    }
+
+    /**
+     * @return the chunk's MD5 in hex, or null if it was never recorded
+     */
+    private String readChunkDigest(String uploadId, int chunkIndex) {
+        String path = chunkDigestPath(uploadId, chunkIndex);
+        if (!objectStorageService.fileExists(path)) {
+            return null;
+        }
+        try (InputStream in = objectStorageService.downloadFile(path).getInputStream()) {
+            return new String(in.readAllBytes(), StandardCharsets.US_ASCII);
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to read chunk checksum: " + e.getMessage(), e);
+        }
+    }
+
+    private String chunkDigestPath(String uploadId, int chunkIndex) {
+        return ObjectStorageService.MULTIPART_PREFIX + uploadId + String.format(CHUNK_DIGEST, chunkIndex + 1);
+    }
+
+    /**
+     * MD5 of the assembled object, read back in order from storage
+     */
+    private String digestObject(String storagePath) {
+        MessageDigest digest = FileUtils.newChecksumDigest();
+        byte[] buffer = new byte[AppConstants.STREAM_BUFFER_SIZE];
+        try (InputStream in = objectStorageService.downloadFile(storagePath).getInputStream()) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new FileStorageException("Failed to checksum assembled upload: " + e.getMessage(), e);
+        }
+        return FileUtils.toHex(digest.digest());
+    }
+
+    private UploadSessionDto toDto(UploadSession session, Map<Integer, Long> parts) {
+        List<Integer> received = new ArrayList<>(parts.size());
+        Integer nextChunk = null;
+        for (int chunk = 0; chunk < session.getTotalChunks(); chunk++) {
+            Long size = parts.get(chunk + 1);
+            if (size != null && size == session.chunkLength(chunk)) {
+                received.add(chunk);
+            } else if (nextChunk == null) {
+                nextChunk = chunk;
+            }
+        }
+        
+        UploadSessionDto dto = UploadSessionDto.builder()
+                .uploadId(session.getUploadId())
+                .fileId(session.getFileId())
+                .fileName(session.getFileName())
+                .totalSize(session.getTotalSize())
+                .chunkSize(session.getChunkSize())
+                .totalChunks(session.getTotalChunks())
+                .receivedChunks(received)
+                .nextChunk(nextChunk)
+                .expiresAt(session.getExpiresAt())
+                .build();
+        
+        if (session.isDirect()) {
+            // Never valid beyond the session itself, so cleanup cannot race a late PUT
+            LocalDateTime now = LocalDateTime.now();
+            Duration remaining = Duration.between(now, session.getExpiresAt());
+            Duration expiry = remaining.compareTo(directUrlExpiry) < 0 ? remaining : directUrlExpiry;
+            dto.setUploadUrl(objectStorageService.getUploadUrl(session.getStoragePath(), expiry));
+            dto.setUploadUrlExpiresAt(now.plus(expiry));
+        }
+        return dto;
+    }
+}
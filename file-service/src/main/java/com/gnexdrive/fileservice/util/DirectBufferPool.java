@@ -0,0 +1,97 @@
+package com.gnexdrive.fileservice.util;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fixed set of reusable direct buffers.
+ * Buffers are allocated on first use, up to the limit, and then recycled; a
+ * caller that finds all of them in use waits for one to be released. The limit
+ * therefore bounds both off-heap memory and the work that can be in flight.
+ */
+public class DirectBufferPool {
+
+    private final int bufferSize;
+    private final int maxBuffers;
+    private final long acquireTimeoutMs;
+    private final BlockingQueue<ByteBuffer> free = new LinkedBlockingQueue<>();
+    private final AtomicInteger allocated = new AtomicInteger();
+
+    public DirectBufferPool(int bufferSize, int maxBuffers, long acquireTimeoutMs) {
+        this.bufferSize = bufferSize;
+        this.maxBuffers = maxBuffers;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+    }
+
+    /**
+     * Take a cleared buffer, waiting up to the acquire timeout if all are in use
+     * @throws RejectedExecutionException if none is released in time
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = free.poll();
+        if (buffer == null && allocated.getAndUpdate(count -> count < maxBuffers ? count + 1 : count) < maxBuffers) {
+            buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+        try {
+            if (buffer == null) {
+                buffer = free.poll(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while waiting for a transfer buffer");
+        }
+        if (buffer == null) {
+            throw new RejectedExecutionException("All " + maxBuffers + " transfer buffers are in use, retry later");
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    public void release(ByteBuffer buffer) {
+        buffer.clear();
+        free.offer(buffer);
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getMaxBuffers() {
+        return maxBuffers;
+    }
+
+    /**
+     * Read the remaining bytes of a buffer as a stream, without copying them to the heap first
+     */
+    public static InputStream asInputStream(ByteBuffer buffer) {
+        return new InputStream() {
+            @Override
+            public int read() {
+                return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] bytes, int offset, int length) {
+                if (length == 0) {
+                    return 0;
+                }
+                if (!buffer.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(length, buffer.remaining());
+                buffer.get(bytes, offset, count);
+                return count;
+            }
+
+            @Override
+            public int available() {
+                return buffer.remaining();
+            }
+        };
+    }
+}
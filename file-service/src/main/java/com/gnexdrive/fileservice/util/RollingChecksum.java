@@ -0,0 +1,50 @@
+package com.gnexdrive.fileservice.util;
+
+/**
+ * rsync-style weak checksum over a window of bytes.
+ * The window can slide by one byte in constant time, which is what lets a client
+ * find blocks of the base version at any offset of the new one. The value of a
+ * window is the same whether it was computed at once or rolled into place.
+ */
+public class RollingChecksum {
+
+    private int a;
+    private int b;
+    private int length;
+
+    /**
+     * Checksum of one block
+     */
+    public static int of(byte[] data, int offset, int length) {
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.reset(data, offset, length);
+        return checksum.value();
+    }
+
+    /**
+     * Start over with the given window
+     */
+    public void reset(byte[] data, int offset, int length) {
+        a = 0;
+        b = 0;
+        this.length = length;
+        for (int i = 0; i < length; i++) {
+            int x = data[offset + i] & 0xFF;
+            a = (a + x) & 0xFFFF;
+            b = (b + (length - i) * x) & 0xFFFF;
+        }
+    }
+
+    /**
+     * Slide the window one byte: drop the first byte, append the next one
+     */
+    public void roll(byte out, byte in) {
+        int x = out & 0xFF;
+        a = (a - x + (in & 0xFF)) & 0xFFFF;
+        b = (b - length * x + a) & 0xFFFF;
+    }
+
+    public int value() {
+        return (b << 16) | a;
+    }
+}
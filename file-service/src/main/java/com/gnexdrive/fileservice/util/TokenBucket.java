@@ -0,0 +1,70 @@
+package com.gnexdrive.fileservice.util;
+
+/**
+ * Byte-rate token bucket.
+ * Tokens accrue continuously at the configured rate up to the capacity, which is
+ * the largest burst the bucket allows. Callers may ask for part of the bucket to
+ * be left untouched, so higher-priority callers always find tokens waiting.
+ */
+public class TokenBucket {
+
+    private final double tokensPerNano;
+    private final long capacity;
+    private double tokens;
+    private long lastRefill;
+    private volatile long lastUsed;
+
+    public TokenBucket(long bytesPerSecond, long capacity) {
+        this.tokensPerNano = bytesPerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+        this.lastUsed = lastRefill;
+    }
+
+    /**
+     * Take up to max tokens, never dipping into the reserve
+     * @return tokens taken, 0 if none are available above the reserve
+     */
+    public synchronized long tryTake(long max, long reserve) {
+        refill();
+        long available = (long) tokens - reserve;
+        if (available <= 0) {
+            return 0;
+        }
+        long granted = Math.min(max, available);
+        tokens -= granted;
+        lastUsed = System.nanoTime();
+        return granted;
+    }
+
+    /**
+     * Return tokens that were taken but not used
+     */
+    public synchronized void giveBack(long unused) {
+        tokens = Math.min(capacity, tokens + unused);
+    }
+
+    /**
+     * Nanoseconds until the given number of tokens is available above the reserve
+     */
+    public synchronized long nanosUntil(long wanted, long reserve) {
+        refill();
+        double missing = wanted + reserve - tokens;
+        return missing <= 0 ? 0 : (long) Math.ceil(missing / tokensPerNano);
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long idleNanos() {
+        return System.nanoTime() - lastUsed;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * tokensPerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,154 @@
+package com.gnexdrive.fileservice;
+
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Comparative load test of the thread modes: many concurrent downloads while
+ * metadata-service answers slowly, once on Tomcat's platform thread pool and
+ * once with the virtual-threads profile.
+ * Boots the service twice, so it only runs on request:
+ * mvn -pl file-service test -Dtest=VirtualThreadLoadTest -Dload-tests=true
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "load-tests", matches = "true")
+class VirtualThreadLoadTest {
+
+    private static final int CONCURRENT_DOWNLOADS = 1000;
+    private static final int WARM_UP_DOWNLOADS = 50;
+    // Long enough that Tomcat's thread pool, not the CPU, bounds platform-thread throughput
+    private static final long METADATA_LATENCY_MS = 5000;
+    private static final int OBJECT_SIZE = 64 * 1024;
+    private static final String USER_ID = "load-test";
+    private static final String STORAGE_PATH = USER_ID + "/object.bin";
+
+    @TempDir
+    Path workDir;
+
+    private HttpServer metadataService;
+    private ExecutorService metadataExecutor;
+
+    @BeforeEach
+    void startMetadataService() throws IOException {
+        Path object = workDir.resolve("storage").resolve(STORAGE_PATH);
+        Files.createDirectories(object.getParent());
+        Files.write(object, new byte[OBJECT_SIZE]);
+
+        // Stand-in for metadata-service that holds every lookup for a fixed time
+        metadataExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        metadataService = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 4096);
+        metadataService.setExecutor(metadataExecutor);
+        metadataService.createContext("/api/v1/metadata/", exchange -> {
+            String fileId = exchange.getRequestURI().getPath().substring("/api/v1/metadata/".length());
+            byte[] body = String.format("{\"success\":true,\"data\":{\"fileId\":\"%s\",\"fileName\":\"object.bin\","
+                    + "\"fileSize\":%d,\"ownerId\":\"%s\",\"storagePath\":\"%s\",\"checksum\":\"load-test\"}}",
+                    fileId, OBJECT_SIZE, USER_ID, STORAGE_PATH).getBytes(StandardCharsets.UTF_8);
+            try {
+                Thread.sleep(METADATA_LATENCY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        metadataService.start();
+    }
+
+    @AfterEach
+    void stopMetadataService() {
+        metadataService.stop(0);
+        metadataExecutor.close();
+    }
+
+    @Test
+    void testVirtualThreadsSustainMoreConcurrentDownloads() throws Exception {
+        double platform = measureThroughput(false);
+        double virtual = measureThroughput(true);
+
+        log.info("{} concurrent downloads, {} ms metadata latency: platform threads {} downloads/s, virtual threads {} downloads/s",
+                CONCURRENT_DOWNLOADS, METADATA_LATENCY_MS, Math.round(platform), Math.round(virtual));
+
+        // Platform threads serve the burst in waves of Tomcat's 200 threads
+        assertTrue(virtual > platform * 1.5, String.format(
+                "Expected virtual threads to clearly outperform platform threads with %d concurrent downloads and "
+                        + "%d ms metadata latency (virtual %.0f vs platform %.0f downloads/s)",
+                CONCURRENT_DOWNLOADS, METADATA_LATENCY_MS, virtual, platform));
+    }
+
+    private double measureThroughput(boolean virtualThreads) {
+        String mode = virtualThreads ? "virtual" : "platform";
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(FileServiceApplication.class)
+                .run("--spring.profiles.active=" + (virtualThreads ? "local,virtual-threads" : "local"),
+                        "--server.port=0",
+                        "--storage.local.root-dir=" + workDir.resolve("storage"),
+                        "--outbox.dir=" + workDir.resolve("outbox-" + mode),
+                        "--metadata.service.url=http://127.0.0.1:" + metadataService.getAddress().getPort(),
+                        // Requests wait for a bulkhead slot rather than being turned away, so only throughput differs
+                        "--downstream.metadata.acquire-timeout-ms=60000",
+                        "--downstream.storage.acquire-timeout-ms=60000",
+                        // Per-request logging would make the run CPU-bound and hide the difference
+                        "--logging.level.com.gnexdrive=WARN",
+                        "--logging.level.com.gnexdrive.fileservice.VirtualThreadLoadTest=INFO");
+             HttpClient client = HttpClient.newBuilder()
+                     .executor(Executors.newVirtualThreadPerTaskExecutor())
+                     .build()) {
+
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            download(client, port, mode + "-warm-up", WARM_UP_DOWNLOADS);
+
+            long start = System.nanoTime();
+            download(client, port, mode, CONCURRENT_DOWNLOADS);
+            return CONCURRENT_DOWNLOADS / ((System.nanoTime() - start) / 1e9);
+        }
+    }
+
+    private void download(HttpClient client, int port, String batch, int count) {
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            // Distinct ids so neither the metadata cache nor single-flight collapses the lookups;
+            // ranged reads publish no download event, so no Kafka broker is needed
+            HttpRequest request = HttpRequest.newBuilder(
+                            URI.create("http://127.0.0.1:" + port + "/api/v1/files/" + batch + "-" + i + "/download"))
+                    .header("X-User-Id", USER_ID)
+                    .header("Range", "bytes=1-")
+                    .timeout(Duration.ofSeconds(60))
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.discarding()));
+        }
+
+        for (CompletableFuture<HttpResponse<Void>> response : responses) {
+            assertEquals(206, response.join().statusCode());
+        }
+    }
+}
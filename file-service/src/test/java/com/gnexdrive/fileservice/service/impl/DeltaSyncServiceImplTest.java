@@ -0,0 +1,200 @@
+package com.gnexdrive.fileservice.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.util.FileUtils;
+import com.gnexdrive.fileservice.client.MetadataServiceClient;
+import com.gnexdrive.fileservice.dto.BlockSignatureDto;
+import com.gnexdrive.fileservice.dto.DeltaInstructionDto;
+import com.gnexdrive.fileservice.dto.DeltaUploadDto;
+import com.gnexdrive.fileservice.dto.FileSignatureDto;
+import com.gnexdrive.fileservice.service.FileService;
+import com.gnexdrive.fileservice.service.ObjectStorageService;
+import com.gnexdrive.fileservice.service.QuotaService;
+import com.gnexdrive.fileservice.service.TransferScheduler;
+import com.gnexdrive.fileservice.util.RollingChecksum;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class DeltaSyncServiceImplTest {
+
+    private static final int BLOCK_SIZE = 4;
+    private static final String USER_ID = "user123";
+    private static final String FILE_ID = "file123";
+    // Three full blocks and a short last one
+    private static final byte[] BASE = "AAAABBBBCCCCDD".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<String, byte[]> storage = new ConcurrentHashMap<>();
+    private ObjectStorageService objectStorageService;
+    private QuotaService quotaService;
+    private DeltaSyncServiceImpl deltaSyncService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storage.put("user123/file123.txt", BASE);
+
+        // Object storage kept in a map, with ranged reads running to the end of the object
+        objectStorageService = mock(ObjectStorageService.class);
+        when(objectStorageService.uploadFile(anyString(), any(InputStream.class), any(), anyLong())).thenAnswer(call -> {
+            try (InputStream in = call.getArgument(1)) {
+                storage.put(call.getArgument(0), in.readAllBytes());
+            }
+            return call.getArgument(0);
+        });
+        when(objectStorageService.downloadFile(anyString()))
+                .thenAnswer(call -> new ByteArrayResource(storage.get(call.<String>getArgument(0))));
+        when(objectStorageService.downloadFile(anyString(), anyLong(), anyLong())).thenAnswer(call -> {
+            byte[] content = storage.get(call.<String>getArgument(0));
+            return new ByteArrayResource(Arrays.copyOfRange(content, (int) (long) call.<Long>getArgument(1), content.length));
+        });
+        when(objectStorageService.fileExists(anyString())).thenAnswer(call -> storage.containsKey(call.<String>getArgument(0)));
+        doAnswer(call -> storage.remove(call.<String>getArgument(0))).when(objectStorageService).deleteFile(anyString());
+
+        MetadataServiceClient metadataServiceClient = mock(MetadataServiceClient.class);
+        when(metadataServiceClient.resolveOwnedFile(FILE_ID, USER_ID)).thenReturn(FileMetadataDto.builder()
+                .fileId(FILE_ID)
+                .fileName("notes.txt")
+                .fileSize((long) BASE.length)
+                .ownerId(USER_ID)
+                .storagePath("user123/file123.txt")
+                .contentType("text/plain")
+                .status("UPLOADED")
+                .version(1)
+                .build());
+        when(metadataServiceClient.recordVersion(any(), anyInt())).thenAnswer(call -> call.getArgument(0));
+
+        TransferScheduler transferScheduler = mock(TransferScheduler.class);
+        when(transferScheduler.throttle(anyString(), any(), anyLong(), any())).thenAnswer(call -> call.getArgument(3));
+
+        quotaService = mock(QuotaService.class);
+        deltaSyncService = new DeltaSyncServiceImpl(objectStorageService, metadataServiceClient, mock(FileService.class),
+                quotaService, transferScheduler, new ObjectMapper(), BLOCK_SIZE, 1024);
+    }
+
+    @Test
+    void testSignatureOfBaseVersion() {
+        FileSignatureDto signature = deltaSyncService.getSignature(FILE_ID, USER_ID);
+
+        assertEquals(FILE_ID, signature.getFileId());
+        assertEquals(1, signature.getVersion());
+        assertEquals(BASE.length, signature.getFileSize());
+        assertEquals(BLOCK_SIZE, signature.getBlockSize());
+        assertEquals(4, signature.getBlocks().size());
+
+        // The last block is only as long as what is left of the file
+        BlockSignatureDto last = signature.getBlocks().get(3);
+        assertEquals(RollingChecksum.of(BASE, 12, 2), last.getWeak());
+        assertEquals(FileUtils.calculateChecksum("DD".getBytes(StandardCharsets.US_ASCII)), last.getStrong());
+        assertTrue(storage.containsKey(ObjectStorageService.SIGNATURE_PREFIX + "user123/file123.txt"));
+    }
+
+    @Test
+    void testApplyDeltaWithCopiedAndLiteralSegments() {
+        byte[] expected = "AAAAxyzCCCCDD".getBytes(StandardCharsets.US_ASCII);
+        byte[] literal = "xyz".getBytes(StandardCharsets.US_ASCII);
+        DeltaUploadDto delta = delta(expected.length, FileUtils.calculateChecksum(expected),
+                copy(0, null), literal(literal.length), copy(2, 2));
+
+        FileMetadataDto metadata = deltaSyncService.applyDelta(
+                FILE_ID, delta, new ByteArrayInputStream(literal), literal.length, USER_ID);
+
+        assertEquals(2, metadata.getVersion());
+        assertEquals(expected.length, metadata.getFileSize());
+        assertEquals(FileUtils.calculateChecksum(expected), metadata.getChecksum());
+        assertTrue(metadata.getStoragePath().startsWith("user123/file123-v2-"));
+        assertArrayEquals(expected, storage.get(metadata.getStoragePath()));
+        assertTrue(storage.containsKey(ObjectStorageService.SIGNATURE_PREFIX + metadata.getStoragePath()));
+    }
+
+    @Test
+    void testApplyDeltaRejectsChecksumMismatch() {
+        byte[] literal = "xyz".getBytes(StandardCharsets.US_ASCII);
+        DeltaUploadDto delta = delta(7, FileUtils.calculateChecksum(BASE), copy(0, null), literal(literal.length));
+
+        assertThrows(IllegalArgumentException.class, () -> deltaSyncService.applyDelta(
+                FILE_ID, delta, new ByteArrayInputStream(literal), literal.length, USER_ID));
+
+        // The reconstructed version is discarded again
+        assertTrue(storage.keySet().stream().noneMatch(path -> path.startsWith("user123/file123-v2-")));
+        verify(quotaService).release(FILE_ID);
+    }
+
+    @Test
+    void testApplyDeltaRejectsInvalidInstructions() {
+        // Both a block and a length
+        assertInvalid(delta(4, null, DeltaInstructionDto.builder().block(0).length(4L).build()), 0);
+        // Past the base version's last block
+        assertInvalid(delta(8, null, copy(3, 2)), 0);
+        // Negative literal length
+        assertInvalid(delta(0, null, literal(-1)), 0);
+        // Instructions producing another size than declared
+        assertInvalid(delta(5, null, copy(0, null)), 0);
+        // Data part longer than the literals taken from it
+        assertInvalid(delta(4, null, copy(0, null)), 3);
+
+        verify(objectStorageService, never()).uploadFile(startsWith("user123/file123-v2-"), any(), any(), anyLong());
+    }
+
+    @Test
+    void testRollingChecksumMatchesChecksumOfEveryWindow() {
+        byte[] content = "xAAAABBBBCCCCDDy".getBytes(StandardCharsets.US_ASCII);
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.reset(content, 0, BLOCK_SIZE);
+        for (int offset = 0; ; offset++) {
+            assertEquals(RollingChecksum.of(content, offset, BLOCK_SIZE), checksum.value());
+            if (offset + BLOCK_SIZE == content.length) {
+                break;
+            }
+            checksum.roll(content[offset], content[offset + BLOCK_SIZE]);
+        }
+    }
+
+    @Test
+    void testRollingChecksumFindsShiftedBlock() {
+        FileSignatureDto signature = deltaSyncService.getSignature(FILE_ID, USER_ID);
+        byte[] content = "xyAAAABBBB".getBytes(StandardCharsets.US_ASCII);
+
+        RollingChecksum checksum = new RollingChecksum();
+        checksum.reset(content, 0, BLOCK_SIZE);
+        checksum.roll(content[0], content[4]);
+        checksum.roll(content[1], content[5]);
+
+        assertEquals(signature.getBlocks().get(0).getWeak(), checksum.value());
+        assertNotEquals(signature.getBlocks().get(1).getWeak(), checksum.value());
+    }
+
+    private void assertInvalid(DeltaUploadDto delta, int dataLength) {
+        assertThrows(IllegalArgumentException.class, () -> deltaSyncService.applyDelta(
+                FILE_ID, delta, new ByteArrayInputStream(new byte[dataLength]), dataLength, USER_ID));
+    }
+
+    private static DeltaUploadDto delta(long fileSize, String checksum, DeltaInstructionDto... instructions) {
+        return DeltaUploadDto.builder()
+                .baseVersion(1)
+                .fileSize(fileSize)
+                .checksum(checksum)
+                .instructions(List.of(instructions))
+                .build();
+    }
+
+    private static DeltaInstructionDto copy(int block, Integer count) {
+        return DeltaInstructionDto.builder().block(block).count(count).build();
+    }
+
+    private static DeltaInstructionDto literal(long length) {
+        return DeltaInstructionDto.builder().length(length).build();
+    }
+}
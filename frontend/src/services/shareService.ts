@@ -54,6 +54,41 @@ export interface ShareLinkDto {
   lastAccessedAt?: string;
 }
 
+export interface SharedFileDto {
+  fileId: string;
+  fileName: string;
+  fileType?: string;
+  fileSize: number;
+  contentType?: string;
+  ownerId: string;
+  ownerEmail?: string;
+  uploadedAt: string;
+  modifiedAt?: string;
+  version?: number;
+  sharedWith?: string;
+  permission: string;
+}
+
+export interface SharedFolderDto {
+  folderId: string;
+  folderName: string;
+  parentId?: string;
+  ownerId: string;
+  ownerEmail?: string;
+  path?: string;
+  createdAt: string;
+  modifiedAt?: string;
+  sharedWith?: string;
+  permission: string;
+}
+
+export interface CursorPage<T> {
+  content: T[];
+  size: number;
+  nextPageToken?: string; // absent on the last page
+  totalElements?: number; // only when requested
+}
+
 export const shareService = {
   /**
    * Share a file or folder with a user
@@ -79,18 +114,22 @@ export const shareService = {
   },
 
   /**
-   * Get files shared with current user
+   * Get a page of files shared with current user; pass nextPageToken back for the next page
    */
-  async getFilesSharedWithMe(): Promise<any[]> {
-    const response = await apiClient.getClient().get('/api/v1/share/shared-with-me/files');
+  async getFilesSharedWithMe(pageToken?: string, size?: number): Promise<CursorPage<SharedFileDto>> {
+    const response = await apiClient.getClient().get('/api/v1/share/shared-with-me/files', {
+      params: { pageToken, size },
+    });
     return response.data.data;
   },
 
   /**
-   * Get folders shared with current user
+   * Get a page of folders shared with current user; pass nextPageToken back for the next page
    */
-  async getFoldersSharedWithMe(): Promise<any[]> {
-    const response = await apiClient.getClient().get('/api/v1/share/shared-with-me/folders');
+  async getFoldersSharedWithMe(pageToken?: string, size?: number): Promise<CursorPage<SharedFolderDto>> {
+    const response = await apiClient.getClient().get('/api/v1/share/shared-with-me/folders', {
+      params: { pageToken, size },
+    });
     return response.data.data;
   },
 
@@ -0,0 +1,101 @@
+package com.gnexdrive.metadataservice.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the in-process (L1) caches of all metadata-service replicas coherent.
+ * Every invalidation is applied locally and broadcast over Redis pub/sub; the other
+ * replicas drop the same keys from their L1. Pub/sub delivery is fire-and-forget,
+ * so a replica that misses a message serves the stale entry until its L1 TTL ends.
+ */
+@Slf4j
+public class CacheInvalidationBus implements MessageListener {
+
+    public static final String CHANNEL = "metadata-service:cache-invalidation";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Map<String, Cache<Object, Object>> localCaches = new ConcurrentHashMap<>();
+
+    public CacheInvalidationBus(StringRedisTemplate redisTemplate) {
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Invalidation message; no keys means the whole cache
+     */
+    record Invalidation(String origin, String cache, List<String> keys) {
+    }
+
+    /**
+     * Make a cache's L1 reachable by invalidations from other replicas
+     */
+    void register(String cacheName, Cache<Object, Object> localCache) {
+        localCaches.put(cacheName, localCache);
+    }
+
+    /**
+     * Drop keys from this replica's L1 and from every other replica's
+     */
+    public void invalidate(String cacheName, Collection<?> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> keyStrings = keys.stream().map(String::valueOf).toList();
+        evictLocal(cacheName, keyStrings);
+        publish(new Invalidation(instanceId, cacheName, keyStrings));
+    }
+
+    /**
+     * Clear a cache's L1 on this replica and every other one
+     */
+    public void invalidateAll(String cacheName) {
+        evictLocal(cacheName, null);
+        publish(new Invalidation(instanceId, cacheName, null));
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            Invalidation invalidation = objectMapper.readValue(message.getBody(), Invalidation.class);
+            if (!instanceId.equals(invalidation.origin())) {
+                evictLocal(invalidation.cache(), invalidation.keys());
+            }
+        } catch (Exception e) {
+            log.warn("Ignoring malformed cache invalidation: {}", e.getMessage());
+        }
+    }
+
+    private void evictLocal(String cacheName, List<String> keys) {
+        Cache<Object, Object> localCache = localCaches.get(cacheName);
+        if (localCache == null) {
+            return;
+        }
+        if (keys == null) {
+            localCache.invalidateAll();
+        } else {
+            localCache.invalidateAll(keys);
+        }
+    }
+
+    private void publish(Invalidation invalidation) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(invalidation));
+        } catch (Exception e) {
+            // Other replicas fall back to their L1 TTL
+            log.warn("Failed to broadcast cache invalidation for {}: {}", invalidation.cache(), e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.gnexdrive.metadataservice.cache;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheDecorator;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Cache manager that puts an in-process L1 in front of the Redis caches named as near caches;
+ * the other caches are served by Redis alone. Like the Redis cache manager it replaces,
+ * puts and evictions inside a transaction are applied once it commits.
+ */
+public class NearCacheManager implements CacheManager {
+
+    private final CacheManager remoteCacheManager;
+    private final Set<String> nearCacheNames;
+    private final CacheInvalidationBus invalidationBus;
+    private final MeterRegistry meterRegistry;
+    private final long maxEntries;
+    private final Duration ttl;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    /**
+     * @param remoteCacheManager Redis cache manager, not transaction-aware itself
+     * @param maxEntries bound of each L1, in entries
+     * @param ttl how long an L1 entry may be served without seeing Redis; bounds staleness after a lost invalidation
+     */
+    public NearCacheManager(CacheManager remoteCacheManager, Set<String> nearCacheNames,
+                            CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry,
+                            long maxEntries, Duration ttl) {
+        this.remoteCacheManager = remoteCacheManager;
+        this.nearCacheNames = nearCacheNames;
+        this.invalidationBus = invalidationBus;
+        this.meterRegistry = meterRegistry;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name, cacheName -> {
+            Cache remote = remoteCacheManager.getCache(cacheName);
+            if (remote == null) {
+                return null;
+            }
+            Cache cache = nearCacheNames.contains(cacheName) ? nearCache(cacheName, remote) : remote;
+            return new TransactionAwareCacheDecorator(cache);
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return remoteCacheManager.getCacheNames();
+    }
+
+    private Cache nearCache(String name, Cache remote) {
+        Map<RemovalCause, Counter> evictions = new ConcurrentHashMap<>();
+        com.github.benmanes.caffeine.cache.Cache<Object, Object> local = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .removalListener((key, value, cause) -> {
+                    if (cause != RemovalCause.REPLACED) {
+                        evictions.computeIfAbsent(cause, removalCause -> localEvictions(name, removalCause)).increment();
+                    }
+                })
+                .build();
+
+        Gauge.builder("metadata.cache.size", local, com.github.benmanes.caffeine.cache.Cache::estimatedSize)
+                .description("Entries held in the in-process cache tier")
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .register(meterRegistry);
+        return new TwoTierCache(name, local, remote, invalidationBus, meterRegistry);
+    }
+
+    private Counter localEvictions(String name, RemovalCause cause) {
+        return Counter.builder("metadata.cache.evictions")
+                .description("Entries removed from a cache tier")
+                .tag("cache", name)
+                .tag("tier", "l1")
+                .tag("cause", cause.name().toLowerCase(Locale.ROOT))
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,134 @@
+package com.gnexdrive.metadataservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * Spring cache with a bounded in-process L1 in front of a shared Redis L2.
+ * Reads try L1, then L2 (filling L1 on a hit); writes go to both tiers.
+ * Evictions clear both tiers here and are broadcast so other replicas drop
+ * their L1 copies too. L1 holds the deserialized objects themselves, so
+ * callers must treat cached values as read-only.
+ */
+public class TwoTierCache implements org.springframework.cache.Cache {
+
+    private final String name;
+    private final Cache<Object, Object> local;
+    private final org.springframework.cache.Cache remote;
+    private final CacheInvalidationBus invalidationBus;
+    private final Counter localHits;
+    private final Counter localMisses;
+    private final Counter remoteHits;
+    private final Counter remoteMisses;
+    private final Counter remoteEvictions;
+
+    public TwoTierCache(String name, Cache<Object, Object> local, org.springframework.cache.Cache remote,
+                        CacheInvalidationBus invalidationBus, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.local = local;
+        this.remote = remote;
+        this.invalidationBus = invalidationBus;
+        this.localHits = requests(meterRegistry, "l1", "hit");
+        this.localMisses = requests(meterRegistry, "l1", "miss");
+        this.remoteHits = requests(meterRegistry, "l2", "hit");
+        this.remoteMisses = requests(meterRegistry, "l2", "miss");
+        this.remoteEvictions = Counter.builder("metadata.cache.evictions")
+                .description("Entries removed from a cache tier")
+                .tag("cache", name)
+                .tag("tier", "l2")
+                .tag("cause", "explicit")
+                .register(meterRegistry);
+        invalidationBus.register(name, local);
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return local;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = local.getIfPresent(key);
+        if (value != null) {
+            localHits.increment();
+            return new SimpleValueWrapper(value);
+        }
+        localMisses.increment();
+
+        ValueWrapper wrapper = remote.get(key);
+        if (wrapper == null) {
+            remoteMisses.increment();
+            return null;
+        }
+        remoteHits.increment();
+        if (wrapper.get() != null) {
+            local.put(key, wrapper.get());
+        }
+        return wrapper;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper wrapper = get(key);
+        if (wrapper != null) {
+            return (T) wrapper.get();
+        }
+        T value = remote.get(key, valueLoader);
+        if (value != null) {
+            local.put(key, value);
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        remote.put(key, value);
+        if (value != null) {
+            local.put(key, value);
+        }
+    }
+
+    @Override
+    public void evict(Object key) {
+        remote.evict(key);
+        remoteEvictions.increment();
+        invalidationBus.invalidate(name, List.of(key));
+    }
+
+    @Override
+    public void clear() {
+        remote.clear();
+        invalidationBus.invalidateAll(name);
+    }
+
+    private Counter requests(MeterRegistry meterRegistry, String tier, String result) {
+        return Counter.builder("metadata.cache.requests")
+                .description("Cache lookups per tier")
+                .tag("cache", name)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
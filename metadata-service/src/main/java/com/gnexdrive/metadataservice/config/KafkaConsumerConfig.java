@@ -1,8 +1,12 @@
 package com.gnexdrive.metadataservice.config;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,14 +16,21 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
 import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.util.backoff.FixedBackOff;
 
+import com.gnexdrive.common.constant.AppConstants;
 import com.gnexdrive.common.event.FileEvent;
 
+import lombok.extern.slf4j.Slf4j;
+
 /**
  * Kafka Consumer Configuration
  * Configures Kafka consumers for receiving file events
  */
+@Slf4j
 @Configuration
 @EnableKafka
 public class KafkaConsumerConfig {
@@ -30,6 +41,18 @@ public class KafkaConsumerConfig {
     @Value("${spring.kafka.consumer.group-id}")
     private String groupId;
 
+    @Value("${metadata.ingest.max-poll-records:500}")
+    private int ingestMaxPollRecords;
+
+    @Value("${metadata.ingest.max-concurrency:8}")
+    private int ingestMaxConcurrency;
+
+    @Value("${metadata.consumer.retry-attempts:2}")
+    private long retryAttempts;
+
+    @Value("${metadata.consumer.retry-backoff-ms:1000}")
+    private long retryBackoffMs;
+
     /**
      * Consumer configuration properties
      */
@@ -41,7 +64,9 @@ public class KafkaConsumerConfig {
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
         props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
         props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
-        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, true);
+        // Offsets are committed by the container after the listener returns, so a crash redelivers
+        // instead of losing events; redeliveries are dropped by the EventDeduplicator
+        props.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
         props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, 100);
         return props;
     }
@@ -51,15 +76,10 @@ public class KafkaConsumerConfig {
      */
     @Bean
     public ConsumerFactory<String, FileEvent> consumerFactory() {
-        JsonDeserializer<FileEvent> deserializer = new JsonDeserializer<>(FileEvent.class);
-        deserializer.setRemoveTypeHeaders(false);
-        deserializer.addTrustedPackages("*");
-        deserializer.setUseTypeMapperForKey(false);
-
         return new DefaultKafkaConsumerFactory<>(
                 consumerConfigs(),
                 new StringDeserializer(),
-                deserializer
+                fileEventDeserializer()
         );
     }
 
@@ -74,6 +94,75 @@ public class KafkaConsumerConfig {
         factory.setConcurrency(1); // 1 concurrent consumers
         // golden rule : concurrency = partitions for a topic
         factory.getContainerProperties().setPollTimeout(3000);
+        factory.setCommonErrorHandler(errorHandler());
+        return factory;
+    }
+
+    /**
+     * Batch listener container factory for bulk ingestion: each poll is handed over as one list.
+     * Concurrency follows the partition count of the upload topic.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, FileEvent> batchKafkaListenerContainerFactory() {
+        Map<String, Object> props = new HashMap<>(consumerConfigs());
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, ingestMaxPollRecords);
+
+        ConcurrentKafkaListenerContainerFactory<String, FileEvent> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(
+                props, new StringDeserializer(), fileEventDeserializer()));
+        factory.setBatchListener(true);
+        factory.setConcurrency(ingestConcurrency());
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.BATCH);
+        factory.getContainerProperties().setPollTimeout(3000);
+        factory.setCommonErrorHandler(errorHandler());
         return factory;
     }
+
+    /**
+     * Retry a failed record a few times, then log it and move on so the partition is not blocked
+     */
+    private DefaultErrorHandler errorHandler() {
+        return new DefaultErrorHandler(
+                (record, exception) -> log.error("Giving up on event after {} retries: topic={}, offset={}",
+                        retryAttempts, record.topic(), record.offset(), exception),
+                new FixedBackOff(retryBackoffMs, retryAttempts));
+    }
+
+    private JsonDeserializer<FileEvent> fileEventDeserializer() {
+        JsonDeserializer<FileEvent> deserializer = new JsonDeserializer<>(FileEvent.class);
+        deserializer.setRemoveTypeHeaders(false);
+        deserializer.addTrustedPackages("*");
+        deserializer.setUseTypeMapperForKey(false);
+        return deserializer;
+    }
+
+    /**
+     * One consumer per partition of the upload topic, up to the configured maximum;
+     * falls back to a single consumer when the broker cannot be asked
+     */
+    private int ingestConcurrency() {
+        Map<String, Object> adminProps = Map.of(
+                AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers,
+                AdminClientConfig.REQUEST_TIMEOUT_MS_CONFIG, 5000,
+                AdminClientConfig.DEFAULT_API_TIMEOUT_MS_CONFIG, 5000);
+        try (AdminClient admin = AdminClient.create(adminProps)) {
+            int partitions = admin.describeTopics(List.of(AppConstants.TOPIC_FILE_UPLOADED))
+                    .allTopicNames()
+                    .get(5, TimeUnit.SECONDS)
+                    .get(AppConstants.TOPIC_FILE_UPLOADED)
+                    .partitions()
+                    .size();
+            int concurrency = Math.max(1, Math.min(partitions, ingestMaxConcurrency));
+            log.info("Ingesting {} with {} consumers ({} partitions)", AppConstants.TOPIC_FILE_UPLOADED, concurrency, partitions);
+            return concurrency;
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) {
+                Thread.currentThread().interrupt();
+            }
+            log.warn("Could not read partitions of {}, ingesting with 1 consumer: {}",
+                    AppConstants.TOPIC_FILE_UPLOADED, e.getMessage());
+            return 1;
+        }
+    }
 }
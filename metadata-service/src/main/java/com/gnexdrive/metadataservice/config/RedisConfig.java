@@ -1,5 +1,8 @@
 package com.gnexdrive.metadataservice.config;
 
+import com.gnexdrive.metadataservice.cache.CacheInvalidationBus;
+import com.gnexdrive.metadataservice.cache.NearCacheManager;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
@@ -11,6 +14,9 @@ import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.connection.RedisStandaloneConfiguration;
 import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.RedisSerializationContext;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
@@ -18,9 +24,10 @@ import org.springframework.data.redis.serializer.StringRedisSerializer;
 import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
 /**
- * Redis cache configuration for metadata caching
+ * Redis cache configuration for metadata caching, with an in-process near cache for file metadata
  */
 @Configuration
 @EnableCaching
@@ -35,6 +42,12 @@ public class RedisConfig {
     @Value("${spring.data.redis.password:}")
     private String redisPassword;
 
+    @Value("${metadata.cache.near.max-entries:50000}")
+    private long nearCacheMaxEntries;
+
+    @Value("${metadata.cache.near.ttl-seconds:60}")
+    private long nearCacheTtlSeconds;
+
     public static final String CACHE_FILE_METADATA = "fileMetadata";
     public static final String CACHE_USER_FILES = "userFiles";
     public static final String CACHE_FOLDER = "folder";
@@ -77,7 +90,9 @@ public class RedisConfig {
     }
 
     @Bean
-    public CacheManager cacheManager(RedisConnectionFactory connectionFactory) {
+    public CacheManager cacheManager(RedisConnectionFactory connectionFactory,
+                                     CacheInvalidationBus cacheInvalidationBus,
+                                     MeterRegistry meterRegistry) {
         // Default cache configuration
         RedisCacheConfiguration defaultConfig = RedisCacheConfiguration.defaultCacheConfig()
                 .entryTtl(DEFAULT_TTL)
@@ -105,10 +120,32 @@ public class RedisConfig {
         // Permissions - moderate TTL
         cacheConfigurations.put(CACHE_PERMISSIONS, defaultConfig.entryTtl(Duration.ofMinutes(10)));
 
-        return RedisCacheManager.builder(connectionFactory)
+        // Transaction awareness is applied by the near cache manager, around both tiers
+        RedisCacheManager redisCacheManager = RedisCacheManager.builder(connectionFactory)
                 .cacheDefaults(defaultConfig)
                 .withInitialCacheConfigurations(cacheConfigurations)
-                .transactionAware()
                 .build();
+        redisCacheManager.afterPropertiesSet();
+
+        // File metadata is read on every download, so it is also kept in process
+        return new NearCacheManager(redisCacheManager, Set.of(CACHE_FILE_METADATA), cacheInvalidationBus,
+                meterRegistry, nearCacheMaxEntries, Duration.ofSeconds(nearCacheTtlSeconds));
+    }
+
+    @Bean
+    public CacheInvalidationBus cacheInvalidationBus(StringRedisTemplate stringRedisTemplate) {
+        return new CacheInvalidationBus(stringRedisTemplate);
+    }
+
+    /**
+     * Subscribes to near cache invalidations broadcast by the other replicas
+     */
+    @Bean
+    public RedisMessageListenerContainer cacheInvalidationListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                            CacheInvalidationBus cacheInvalidationBus) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(cacheInvalidationBus, new ChannelTopic(CacheInvalidationBus.CHANNEL));
+        return container;
     }
 }
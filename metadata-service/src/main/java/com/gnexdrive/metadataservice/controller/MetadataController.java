@@ -1,17 +1,19 @@
 package com.gnexdrive.metadataservice.controller;
 
 import com.gnexdrive.common.dto.ApiResponse;
+import com.gnexdrive.common.dto.CursorPageDto;
 import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.dto.StorageReferenceDto;
 import com.gnexdrive.metadataservice.service.MetadataService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * REST Controller for metadata operations
@@ -23,6 +25,9 @@ import java.util.List;
 @Tag(name = "Metadata Management", description = "File metadata operations")
 public class MetadataController {
 
+    private static final int MAX_BATCH_SIZE = 500;
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final MetadataService metadataService;
 
     @Operation(summary = "Get file metadata by ID")
@@ -46,24 +51,49 @@ public class MetadataController {
         }
     }
 
-    @Operation(summary = "Get all files for a user")
+    @Operation(summary = "Get metadata for several files by ID")
+    @PostMapping("/batch")
+    public ResponseEntity<ApiResponse<List<FileMetadataDto>>> getMetadataBatch(@RequestBody List<String> fileIds) {
+        log.debug("POST /api/v1/metadata/batch - {} files", fileIds.size());
+        
+        if (fileIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At most " + MAX_BATCH_SIZE + " file IDs per request"));
+        }
+        
+        try {
+            List<FileMetadataDto> metadata = metadataService.getMetadataBatch(fileIds);
+            return ResponseEntity.ok(ApiResponse.success("File metadata retrieved successfully", metadata));
+        } catch (Exception e) {
+            log.error("Error retrieving metadata batch", e);
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to retrieve metadata: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Get a user's files, one page at a time; pass nextPageToken back to continue")
     @GetMapping("/user/{userId}")
-    public ResponseEntity<ApiResponse<Page<FileMetadataDto>>> getUserFiles(
+    public ResponseEntity<ApiResponse<CursorPageDto<FileMetadataDto>>> getUserFiles(
             @PathVariable String userId,
-            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) String pageToken,
             @RequestParam(defaultValue = "20") int size,
             @RequestParam(defaultValue = "uploadedAt") String sortBy,
-            @RequestParam(defaultValue = "DESC") String sortDir) {
-        log.info("GET /api/v1/metadata/user/{} - Page: {}, Size: {}", userId, page, size);
+            @RequestParam(defaultValue = "DESC") String sortDir,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("GET /api/v1/metadata/user/{} - Size: {}, continued: {}", userId, size, pageToken != null);
+        
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Page size must be between 1 and " + MAX_PAGE_SIZE));
+        }
         
         try {
-            org.springframework.data.domain.Sort.Direction direction = 
-                sortDir.equalsIgnoreCase("ASC") ? org.springframework.data.domain.Sort.Direction.ASC : org.springframework.data.domain.Sort.Direction.DESC;
-            org.springframework.data.domain.Pageable pageable = 
-                org.springframework.data.domain.PageRequest.of(page, size, org.springframework.data.domain.Sort.by(direction, sortBy));
-            
-            Page<FileMetadataDto> userFiles = metadataService.getUserFiles(userId, pageable);
+            CursorPageDto<FileMetadataDto> userFiles =
+                    metadataService.getUserFiles(userId, pageToken, size, sortBy, sortDir, includeTotal);
             return ResponseEntity.ok(ApiResponse.success("User files retrieved successfully", userFiles));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error(e.getMessage()));
         } catch (Exception e) {
             log.error("Error retrieving files for user: {}", userId, e);
             return ResponseEntity.status(500)
@@ -110,6 +140,32 @@ public class MetadataController {
         }
     }
 
+    @Operation(summary = "Record a file's next version, if it is still at the base version")
+    @PostMapping("/{fileId}/versions")
+    public ResponseEntity<ApiResponse<FileMetadataDto>> recordVersion(
+            @PathVariable String fileId,
+            @RequestParam int baseVersion,
+            @RequestBody FileMetadataDto metadataDto) {
+        log.info("POST /api/v1/metadata/{}/versions - version {} over {}", fileId, metadataDto.getVersion(), baseVersion);
+        
+        try {
+            metadataDto.setFileId(fileId);
+            FileMetadataDto recorded = metadataService.recordVersion(metadataDto, baseVersion);
+            return ResponseEntity.ok(ApiResponse.success("Version recorded successfully", recorded));
+        } catch (com.gnexdrive.common.exception.ResourceNotFoundException e) {
+            return ResponseEntity.status(404)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (IllegalStateException e) {
+            log.info("Version of file {} refused: {}", fileId, e.getMessage());
+            return ResponseEntity.status(409)
+                    .body(ApiResponse.error(e.getMessage()));
+        } catch (Exception e) {
+            log.error("Error recording version of file: {}", fileId, e);
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to record version: " + e.getMessage()));
+        }
+    }
+
     @Operation(summary = "Delete file metadata")
     @DeleteMapping("/{fileId}")
     public ResponseEntity<ApiResponse<String>> deleteMetadata(
@@ -145,4 +201,44 @@ public class MetadataController {
                     .body(ApiResponse.error("Failed to retrieve storage stats: " + e.getMessage()));
         }
     }
+
+    @Operation(summary = "Get bytes used by several users' live files")
+    @PostMapping("/usage")
+    public ResponseEntity<ApiResponse<Map<String, Long>>> getStorageUsage(@RequestBody List<String> userIds) {
+        log.debug("POST /api/v1/metadata/usage - {} users", userIds.size());
+        
+        if (userIds.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At most " + MAX_BATCH_SIZE + " user IDs per request"));
+        }
+        
+        try {
+            Map<String, Long> usage = metadataService.getStorageUsage(userIds);
+            return ResponseEntity.ok(ApiResponse.success("Storage usage retrieved successfully", usage));
+        } catch (Exception e) {
+            log.error("Error retrieving storage usage", e);
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to retrieve storage usage: " + e.getMessage()));
+        }
+    }
+
+    @Operation(summary = "Summarize references to several storage objects")
+    @PostMapping("/storage/references")
+    public ResponseEntity<ApiResponse<List<StorageReferenceDto>>> getStorageReferences(@RequestBody List<String> storagePaths) {
+        log.debug("POST /api/v1/metadata/storage/references - {} paths", storagePaths.size());
+        
+        if (storagePaths.size() > MAX_BATCH_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("At most " + MAX_BATCH_SIZE + " storage paths per request"));
+        }
+        
+        try {
+            List<StorageReferenceDto> references = metadataService.getStorageReferences(storagePaths);
+            return ResponseEntity.ok(ApiResponse.success("Storage references retrieved successfully", references));
+        } catch (Exception e) {
+            log.error("Error summarizing storage references", e);
+            return ResponseEntity.status(500)
+                    .body(ApiResponse.error("Failed to retrieve storage references: " + e.getMessage()));
+        }
+    }
 }
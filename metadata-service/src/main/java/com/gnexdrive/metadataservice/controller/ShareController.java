@@ -15,6 +15,8 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ShareController {
 
+    private static final int MAX_PAGE_SIZE = 200;
+
     private final ShareService shareService;
 
     /**
@@ -55,25 +57,49 @@ public class ShareController {
     }
 
     /**
-     * Get files shared with the current user
+     * Get files shared with the current user, one page at a time; pass nextPageToken back to continue
      */
     @GetMapping("/shared-with-me/files")
-    public ResponseEntity<ApiResponse<List<FileMetadataDto>>> getFilesSharedWithMe(
-            @RequestHeader("X-User-Id") String userId) {
-        log.info("Get files shared with user {}", userId);
-        List<FileMetadataDto> files = shareService.getFilesSharedWithUser(userId);
-        return ResponseEntity.ok(ApiResponse.success("Shared files retrieved", files));
+    public ResponseEntity<ApiResponse<CursorPageDto<FileMetadataDto>>> getFilesSharedWithMe(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Get files shared with user {} - Size: {}, continued: {}", userId, size, pageToken != null);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Page size must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            CursorPageDto<FileMetadataDto> files =
+                    shareService.getFilesSharedWithUser(userId, pageToken, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("Shared files retrieved", files));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     /**
-     * Get folders shared with the current user
+     * Get folders shared with the current user, one page at a time; pass nextPageToken back to continue
      */
     @GetMapping("/shared-with-me/folders")
-    public ResponseEntity<ApiResponse<List<FolderDto>>> getFoldersSharedWithMe(
-            @RequestHeader("X-User-Id") String userId) {
-        log.info("Get folders shared with user {}", userId);
-        List<FolderDto> folders = shareService.getFoldersSharedWithUser(userId);
-        return ResponseEntity.ok(ApiResponse.success("Shared folders retrieved", folders));
+    public ResponseEntity<ApiResponse<CursorPageDto<FolderDto>>> getFoldersSharedWithMe(
+            @RequestHeader("X-User-Id") String userId,
+            @RequestParam(required = false) String pageToken,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "false") boolean includeTotal) {
+        log.info("Get folders shared with user {} - Size: {}, continued: {}", userId, size, pageToken != null);
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest()
+                    .body(ApiResponse.error("Page size must be between 1 and " + MAX_PAGE_SIZE));
+        }
+        try {
+            CursorPageDto<FolderDto> folders =
+                    shareService.getFoldersSharedWithUser(userId, pageToken, size, includeTotal);
+            return ResponseEntity.ok(ApiResponse.success("Shared folders retrieved", folders));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(ApiResponse.error(e.getMessage()));
+        }
     }
 
     /**
@@ -22,7 +22,12 @@ import java.time.LocalDateTime;
 @Table(name = "file_metadata", indexes = {
     @Index(name = "idx_owner_id", columnList = "owner_id"),
     @Index(name = "idx_file_name", columnList = "file_name"),
-    @Index(name = "idx_file_type", columnList = "file_type")
+    @Index(name = "idx_file_type", columnList = "file_type"),
+    @Index(name = "idx_storage_path", columnList = "storage_path"),
+    // Keyset pagination of an owner's files, one per sortable column
+    @Index(name = "idx_owner_uploaded_at", columnList = "owner_id, uploaded_at, file_id"),
+    @Index(name = "idx_owner_file_name", columnList = "owner_id, file_name, file_id"),
+    @Index(name = "idx_owner_file_size", columnList = "owner_id, file_size, file_id")
 })
 @EntityListeners(AuditingEntityListener.class)
 public class FileMetadata {
@@ -55,6 +60,9 @@ public class FileMetadata {
     @Column(name = "checksum", length = 64)
     private String checksum;
 
+    @Column(name = "version")
+    private Integer version;
+
     @Enumerated(EnumType.STRING)
     @Column(name = "status", length = 20)
     private FileStatus status;
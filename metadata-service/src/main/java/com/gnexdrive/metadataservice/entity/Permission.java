@@ -22,6 +22,8 @@ import java.util.UUID;
 @Table(name = "permissions", indexes = {
     @Index(name = "idx_permission_resource", columnList = "resource_type, resource_id"),
     @Index(name = "idx_permission_grantee", columnList = "grantee_id"),
+    // Keyset pagination of shared-with-me listings
+    @Index(name = "idx_permission_grantee_granted_at", columnList = "grantee_id, resource_type, granted_at, permission_id"),
     @Index(name = "idx_permission_grantee_email", columnList = "grantee_email")
 })
 @EntityListeners(AuditingEntityListener.class)
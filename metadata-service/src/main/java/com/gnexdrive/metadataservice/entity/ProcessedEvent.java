@@ -0,0 +1,33 @@
+package com.gnexdrive.metadataservice.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * ProcessedEvent Entity - records a consumed event so redeliveries and replays are skipped
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "processed_events", indexes = {
+    @Index(name = "idx_processed_event_processed_at", columnList = "processed_at")
+})
+public class ProcessedEvent {
+
+    @Id
+    @Column(name = "event_id", nullable = false, length = 100)
+    private String eventId;
+
+    @Column(name = "topic", nullable = false, length = 100)
+    private String topic;
+
+    @Column(name = "processed_at", nullable = false)
+    private LocalDateTime processedAt;
+}
@@ -2,12 +2,17 @@ package com.gnexdrive.metadataservice.kafka;
 
 import com.gnexdrive.common.constant.AppConstants;
 import com.gnexdrive.common.event.FileEvent;
+import com.gnexdrive.common.exception.ResourceNotFoundException;
+import com.gnexdrive.metadataservice.service.EventDeduplicator;
 import com.gnexdrive.metadataservice.service.MetadataService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Kafka consumer for file events
  */
@@ -17,56 +22,91 @@ import org.springframework.stereotype.Component;
 public class FileEventConsumer {
 
     private final MetadataService metadataService;
+    private final EventDeduplicator eventDeduplicator;
 
     /**
-     * Handle file uploaded event from file-service
+     * Handle file uploaded events from file-service, a whole poll at a time.
+     * Events already processed are dropped first. The rest is written as one JDBC batch;
+     * if that fails, the records are saved one by one so a single bad record does not
+     * hold back the rest.
      */
-    @KafkaListener(topics = AppConstants.TOPIC_FILE_UPLOADED, groupId = "metadata-service")
-    public void handleFileUploadedEvent(FileEvent event) {
-        log.info("Received file uploaded event: {}", event.getEventId());
+    @KafkaListener(topics = AppConstants.TOPIC_FILE_UPLOADED, groupId = "metadata-service",
+                   containerFactory = "batchKafkaListenerContainerFactory")
+    public void handleFileUploadedEvents(List<FileEvent> events) {
+        log.info("Received {} file uploaded events", events.size());
+        
+        List<FileEvent> readable = new ArrayList<>(events.size());
+        List<com.gnexdrive.common.dto.FileMetadataDto> batch = new ArrayList<>(events.size());
+        for (FileEvent event : eventDeduplicator.filterNew(events, AppConstants.TOPIC_FILE_UPLOADED)) {
+            try {
+                batch.add(toMetadataDto(event));
+                readable.add(event);
+            } catch (Exception e) {
+                log.error("Error reading file uploaded event: {}", event.getEventId(), e);
+            }
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
         
         try {
-            // Extract metadata from event payload
-            var payload = event.getPayload();
-            
-            com.gnexdrive.common.dto.FileMetadataDto metadataDto = com.gnexdrive.common.dto.FileMetadataDto.builder()
-                    .fileId(event.getFileId())
-                    .fileName((String) payload.get("fileName"))
-                    .fileType((String) payload.get("fileType"))
-                    .fileSize(getLongFromPayload(payload.get("fileSize")))
-                    .ownerId(event.getUserId())
-                    .ownerEmail((String) payload.get("ownerEmail"))
-                    .storagePath((String) payload.get("storagePath"))
-                    .contentType((String) payload.get("contentType"))
-                    .checksum((String) payload.get("checksum"))
-                    .status("UPLOADED")
-                    .uploadedAt(event.getTimestamp())
-                    .build();
-            
-            // Save metadata to database
-            metadataService.saveMetadata(metadataDto);
-            
-            log.info("File metadata saved successfully for file: {}", event.getFileId());
+            metadataService.saveMetadataBatch(batch);
+            eventDeduplicator.markProcessed(readable, AppConstants.TOPIC_FILE_UPLOADED);
         } catch (Exception e) {
-            log.error("Error processing file uploaded event: {}", event.getEventId(), e);
+            log.warn("Batch save of {} files failed, saving one by one: {}", batch.size(), e.getMessage());
+            List<FileEvent> saved = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    metadataService.saveMetadata(batch.get(i));
+                    saved.add(readable.get(i));
+                } catch (Exception recordError) {
+                    log.error("Error saving metadata for file: {}", batch.get(i).getFileId(), recordError);
+                }
+            }
+            eventDeduplicator.markProcessed(saved, AppConstants.TOPIC_FILE_UPLOADED);
         }
     }
 
+    private com.gnexdrive.common.dto.FileMetadataDto toMetadataDto(FileEvent event) {
+        // Extract metadata from event payload
+        var payload = event.getPayload();
+        
+        return com.gnexdrive.common.dto.FileMetadataDto.builder()
+                .fileId(event.getFileId())
+                .fileName((String) payload.get("fileName"))
+                .fileType((String) payload.get("fileType"))
+                .fileSize(getLongFromPayload(payload.get("fileSize")))
+                .ownerId(event.getUserId())
+                .ownerEmail((String) payload.get("ownerEmail"))
+                .storagePath((String) payload.get("storagePath"))
+                .contentType((String) payload.get("contentType"))
+                .checksum((String) payload.get("checksum"))
+                .status("UPLOADED")
+                .version(Math.max(1, getLongFromPayload(payload.get("version")).intValue()))
+                .uploadedAt(event.getTimestamp())
+                .build();
+    }
+
     /**
      * Handle file deleted event from file-service
      */
     @KafkaListener(topics = AppConstants.TOPIC_FILE_DELETED, groupId = "metadata-service")
     public void handleFileDeletedEvent(FileEvent event) {
         log.info("Received file deleted event: {}", event.getEventId());
+        if (eventDeduplicator.isDuplicate(event, AppConstants.TOPIC_FILE_DELETED)) {
+            return;
+        }
         
         try {
             // Mark file as deleted in database
             metadataService.deleteMetadata(event.getFileId(), event.getUserId());
             
             log.info("File metadata marked as deleted for file: {}", event.getFileId());
-        } catch (Exception e) {
-            log.error("Error processing file deleted event: {}", event.getEventId(), e);
+        } catch (ResourceNotFoundException e) {
+            // Retrying cannot help; other failures propagate to the container's error handler
+            log.warn("Deleted file has no metadata: {}", event.getFileId());
         }
+        eventDeduplicator.markProcessed(List.of(event), AppConstants.TOPIC_FILE_DELETED);
     }
 
     /**
@@ -75,6 +115,9 @@ public class FileEventConsumer {
     @KafkaListener(topics = AppConstants.TOPIC_METADATA_UPDATED, groupId = "metadata-service")
     public void handleMetadataUpdatedEvent(FileEvent event) {
         log.info("Received metadata updated event: {}", event.getEventId());
+        if (eventDeduplicator.isDuplicate(event, AppConstants.TOPIC_METADATA_UPDATED)) {
+            return;
+        }
         
         try {
             var payload = event.getPayload();
@@ -89,9 +132,11 @@ public class FileEventConsumer {
             metadataService.updateMetadata(event.getFileId(), metadataDto, event.getUserId());
             
             log.info("File metadata updated successfully for file: {}", event.getFileId());
-        } catch (Exception e) {
-            log.error("Error processing metadata updated event: {}", event.getEventId(), e);
+        } catch (ResourceNotFoundException e) {
+            // Retrying cannot help; other failures propagate to the container's error handler
+            log.warn("Updated file has no metadata: {}", event.getFileId());
         }
+        eventDeduplicator.markProcessed(List.of(event), AppConstants.TOPIC_METADATA_UPDATED);
     }
     
     /**
@@ -29,6 +29,7 @@ public class FileMetadataMapper {
                 .contentType(entity.getContentType())
                 .checksum(entity.getChecksum())
                 .status(entity.getStatus() != null ? entity.getStatus().name() : null)
+                .version(entity.getVersion() != null ? entity.getVersion() : 1)
                 .uploadedAt(entity.getUploadedAt())
                 .modifiedAt(entity.getModifiedAt())
                 .build();
@@ -53,6 +54,7 @@ public class FileMetadataMapper {
                 .contentType(dto.getContentType())
                 .checksum(dto.getChecksum())
                 .status(dto.getStatus() != null ? FileMetadata.FileStatus.valueOf(dto.getStatus()) : null)
+                .version(dto.getVersion())
                 .uploadedAt(dto.getUploadedAt())
                 .modifiedAt(dto.getModifiedAt())
                 .build();
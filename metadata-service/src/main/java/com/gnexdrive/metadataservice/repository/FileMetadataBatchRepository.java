@@ -0,0 +1,71 @@
+package com.gnexdrive.metadataservice.repository;
+
+import com.gnexdrive.metadataservice.entity.FileMetadata;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Plain JDBC writes of file metadata in batches, for ingestion volumes where
+ * one JPA merge per record is too slow
+ */
+@Repository
+@RequiredArgsConstructor
+public class FileMetadataBatchRepository {
+
+    /**
+     * Insert or replace a record; a record already at a newer version is left alone,
+     * and the original upload time is kept like the JPA mapping does
+     */
+    private static final String UPSERT_SQL =
+            "INSERT INTO file_metadata (file_id, file_name, file_type, file_size, owner_id, owner_email, " +
+            "storage_path, content_type, checksum, version, status, uploaded_at, modified_at) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (file_id) DO UPDATE SET " +
+            "file_name = EXCLUDED.file_name, file_type = EXCLUDED.file_type, file_size = EXCLUDED.file_size, " +
+            "owner_id = EXCLUDED.owner_id, owner_email = EXCLUDED.owner_email, " +
+            "storage_path = EXCLUDED.storage_path, content_type = EXCLUDED.content_type, " +
+            "checksum = EXCLUDED.checksum, version = EXCLUDED.version, status = EXCLUDED.status, " +
+            "modified_at = EXCLUDED.modified_at " +
+            "WHERE file_metadata.version IS NULL OR EXCLUDED.version >= file_metadata.version";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Upsert the records as one JDBC batch
+     * @return number of records inserted or updated; stale versions are not counted
+     */
+    public int upsertAll(List<FileMetadata> records) {
+        if (records.isEmpty()) {
+            return 0;
+        }
+
+        int[][] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, records, records.size(), (ps, record) -> {
+            ps.setString(1, record.getFileId());
+            ps.setString(2, record.getFileName());
+            ps.setString(3, record.getFileType());
+            ps.setLong(4, record.getFileSize() != null ? record.getFileSize() : 0L);
+            ps.setString(5, record.getOwnerId());
+            ps.setString(6, record.getOwnerEmail());
+            ps.setString(7, record.getStoragePath());
+            ps.setString(8, record.getContentType());
+            ps.setString(9, record.getChecksum());
+            ps.setObject(10, record.getVersion(), Types.INTEGER);
+            ps.setString(11, record.getStatus() != null ? record.getStatus().name() : null);
+            ps.setTimestamp(12, Timestamp.valueOf(record.getUploadedAt()));
+            ps.setTimestamp(13, Timestamp.valueOf(record.getModifiedAt()));
+        });
+
+        // The driver may report SUCCESS_NO_INFO (-2) for rewritten batches; count those as written
+        return Arrays.stream(counts)
+                .flatMapToInt(Arrays::stream)
+                .map(count -> count == Statement.SUCCESS_NO_INFO ? 1 : count)
+                .sum();
+    }
+}
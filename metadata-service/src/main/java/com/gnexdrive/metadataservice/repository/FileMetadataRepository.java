@@ -1,13 +1,19 @@
 package com.gnexdrive.metadataservice.repository;
 
 import com.gnexdrive.metadataservice.entity.FileMetadata;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,7 +25,17 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Stri
 
     Optional<FileMetadata> findByFileIdAndOwnerId(String fileId, String ownerId);
 
-    Page<FileMetadata> findByOwnerId(String ownerId, Pageable pageable);
+    /**
+     * The record, locked until the transaction ends so concurrent version changes apply one at a time
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT f FROM FileMetadata f WHERE f.fileId = :fileId")
+    Optional<FileMetadata> findByIdForUpdate(@Param("fileId") String fileId);
+
+    /**
+     * One window of an owner's files; the sort must end with the file ID so keyset positions are unique
+     */
+    Window<FileMetadata> findByOwnerId(String ownerId, ScrollPosition position, Sort sort, Limit limit);
 
     List<FileMetadata> findByOwnerIdAndStatus(String ownerId, FileMetadata.FileStatus status);
 
@@ -37,4 +53,41 @@ public interface FileMetadataRepository extends JpaRepository<FileMetadata, Stri
 
     @Query("SELECT SUM(f.fileSize) FROM FileMetadata f WHERE f.ownerId = :ownerId")
     Long getTotalStorageByOwner(@Param("ownerId") String ownerId);
+
+    /**
+     * Bytes stored by each of the given owners, counting only files that are not deleted
+     */
+    @Query("SELECT f.ownerId AS ownerId, SUM(f.fileSize) AS usedBytes FROM FileMetadata f " +
+           "WHERE f.ownerId IN :ownerIds AND f.status <> :deleted GROUP BY f.ownerId")
+    List<OwnerStorageSummary> sumLiveStorageByOwners(@Param("ownerIds") Collection<String> ownerIds,
+                                                     @Param("deleted") FileMetadata.FileStatus deleted);
+
+    /**
+     * Live and deleted reference counts per storage path; paths without any record are absent
+     */
+    @Query("SELECT f.storagePath AS storagePath, " +
+           "SUM(CASE WHEN f.status <> :deleted THEN 1 ELSE 0 END) AS liveReferences, " +
+           "SUM(CASE WHEN f.status = :deleted THEN 1 ELSE 0 END) AS deletedReferences, " +
+           "MAX(CASE WHEN f.status = :deleted THEN f.modifiedAt ELSE NULL END) AS lastDeletedAt " +
+           "FROM FileMetadata f WHERE f.storagePath IN :storagePaths GROUP BY f.storagePath")
+    List<StorageReferenceSummary> summarizeStorageReferences(@Param("storagePaths") Collection<String> storagePaths,
+                                                             @Param("deleted") FileMetadata.FileStatus deleted);
+
+    /**
+     * File name alone, without loading the record
+     */
+    @Query("SELECT f.fileName FROM FileMetadata f WHERE f.fileId = :fileId")
+    Optional<String> findFileNameByFileId(@Param("fileId") String fileId);
+
+    interface OwnerStorageSummary {
+        String getOwnerId();
+        Long getUsedBytes();
+    }
+
+    interface StorageReferenceSummary {
+        String getStoragePath();
+        Long getLiveReferences();
+        Long getDeletedReferences();
+        LocalDateTime getLastDeletedAt();
+    }
 }
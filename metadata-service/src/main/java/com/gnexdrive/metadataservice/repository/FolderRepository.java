@@ -67,4 +67,10 @@ public interface FolderRepository extends JpaRepository<Folder, String> {
      * Find by path
      */
     Optional<Folder> findByPathAndOwnerId(String path, String ownerId);
+
+    /**
+     * Folder name alone, without loading the record
+     */
+    @Query("SELECT f.folderName FROM Folder f WHERE f.folderId = :folderId")
+    Optional<String> findFolderNameByFolderId(@Param("folderId") String folderId);
 }
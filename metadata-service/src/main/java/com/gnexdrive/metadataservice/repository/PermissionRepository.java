@@ -1,11 +1,15 @@
 package com.gnexdrive.metadataservice.repository;
 
+import com.gnexdrive.metadataservice.entity.FileMetadata;
+import com.gnexdrive.metadataservice.entity.Folder;
 import com.gnexdrive.metadataservice.entity.Permission;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -105,4 +109,74 @@ public interface PermissionRepository extends JpaRepository<Permission, String>
      * Find permissions granted by a user
      */
     List<Permission> findByGrantedBy(String grantedBy);
+
+    /**
+     * First page of files shared with a user, newest share first, joined with their permission
+     */
+    @Query("SELECT f AS file, p AS permission FROM Permission p JOIN FileMetadata f ON f.fileId = p.resourceId " +
+           "WHERE p.granteeId = :granteeId AND p.resourceType = 'FILE' " +
+           "AND (p.expiresAt IS NULL OR p.expiresAt > CURRENT_TIMESTAMP) " +
+           "ORDER BY p.grantedAt DESC, p.permissionId DESC")
+    List<SharedFile> findSharedFiles(@Param("granteeId") String granteeId, Limit limit);
+
+    /**
+     * Files shared with a user after the given share, in the order of {@link #findSharedFiles}
+     */
+    @Query("SELECT f AS file, p AS permission FROM Permission p JOIN FileMetadata f ON f.fileId = p.resourceId " +
+           "WHERE p.granteeId = :granteeId AND p.resourceType = 'FILE' " +
+           "AND (p.expiresAt IS NULL OR p.expiresAt > CURRENT_TIMESTAMP) " +
+           "AND (p.grantedAt < :grantedAt OR (p.grantedAt = :grantedAt AND p.permissionId < :permissionId)) " +
+           "ORDER BY p.grantedAt DESC, p.permissionId DESC")
+    List<SharedFile> findSharedFilesAfter(@Param("granteeId") String granteeId,
+                                          @Param("grantedAt") LocalDateTime grantedAt,
+                                          @Param("permissionId") String permissionId,
+                                          Limit limit);
+
+    /**
+     * Count files shared with a user
+     */
+    @Query("SELECT COUNT(p) FROM Permission p JOIN FileMetadata f ON f.fileId = p.resourceId " +
+           "WHERE p.granteeId = :granteeId AND p.resourceType = 'FILE' " +
+           "AND (p.expiresAt IS NULL OR p.expiresAt > CURRENT_TIMESTAMP)")
+    long countSharedFiles(@Param("granteeId") String granteeId);
+
+    /**
+     * First page of folders shared with a user, newest share first, joined with their permission
+     */
+    @Query("SELECT f AS folder, p AS permission FROM Permission p JOIN Folder f ON f.folderId = p.resourceId " +
+           "WHERE p.granteeId = :granteeId AND p.resourceType = 'FOLDER' " +
+           "AND (p.expiresAt IS NULL OR p.expiresAt > CURRENT_TIMESTAMP) " +
+           "ORDER BY p.grantedAt DESC, p.permissionId DESC")
+    List<SharedFolder> findSharedFolders(@Param("granteeId") String granteeId, Limit limit);
+
+    /**
+     * Folders shared with a user after the given share, in the order of {@link #findSharedFolders}
+     */
+    @Query("SELECT f AS folder, p AS permission FROM Permission p JOIN Folder f ON f.folderId = p.resourceId " +
+           "WHERE p.granteeId = :granteeId AND p.resourceType = 'FOLDER' " +
+           "AND (p.expiresAt IS NULL OR p.expiresAt > CURRENT_TIMESTAMP) " +
+           "AND (p.grantedAt < :grantedAt OR (p.grantedAt = :grantedAt AND p.permissionId < :permissionId)) " +
+           "ORDER BY p.grantedAt DESC, p.permissionId DESC")
+    List<SharedFolder> findSharedFoldersAfter(@Param("granteeId") String granteeId,
+                                              @Param("grantedAt") LocalDateTime grantedAt,
+                                              @Param("permissionId") String permissionId,
+                                              Limit limit);
+
+    /**
+     * Count folders shared with a user
+     */
+    @Query("SELECT COUNT(p) FROM Permission p JOIN Folder f ON f.folderId = p.resourceId " +
+           "WHERE p.granteeId = :granteeId AND p.resourceType = 'FOLDER' " +
+           "AND (p.expiresAt IS NULL OR p.expiresAt > CURRENT_TIMESTAMP)")
+    long countSharedFolders(@Param("granteeId") String granteeId);
+
+    interface SharedFile {
+        FileMetadata getFile();
+        Permission getPermission();
+    }
+
+    interface SharedFolder {
+        Folder getFolder();
+        Permission getPermission();
+    }
 }
@@ -0,0 +1,77 @@
+package com.gnexdrive.metadataservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Plain JDBC access to the processed event log; it is written a poll at a time
+ * and read in bulk, which Spring Data repositories do one row at a time
+ */
+@Repository
+@RequiredArgsConstructor
+public class ProcessedEventRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /**
+     * Which of the given event IDs have been recorded
+     */
+    public Set<String> findRecorded(Collection<String> eventIds) {
+        Set<String> recorded = new HashSet<>();
+        if (eventIds.isEmpty()) {
+            return recorded;
+        }
+        namedParameterJdbcTemplate.query(
+                "SELECT event_id FROM processed_events WHERE event_id IN (:eventIds)",
+                new MapSqlParameterSource("eventIds", eventIds),
+                (RowCallbackHandler) rs -> recorded.add(rs.getString(1)));
+        return recorded;
+    }
+
+    /**
+     * Record events as processed; IDs already recorded are left as they are
+     */
+    public void recordAll(List<String> eventIds, String topic, LocalDateTime processedAt) {
+        if (eventIds.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.valueOf(processedAt);
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO processed_events (event_id, topic, processed_at) VALUES (?, ?, ?) " +
+                "ON CONFLICT (event_id) DO NOTHING",
+                eventIds, eventIds.size(), (ps, eventId) -> {
+                    ps.setString(1, eventId);
+                    ps.setString(2, topic);
+                    ps.setTimestamp(3, timestamp);
+                });
+    }
+
+    /**
+     * Stream the IDs of the most recently recorded events to the handler, newest first
+     */
+    public void forEachRecent(int limit, RowCallbackHandler handler) {
+        jdbcTemplate.query(
+                "SELECT event_id FROM processed_events ORDER BY processed_at DESC LIMIT ?",
+                handler, limit);
+    }
+
+    /**
+     * Forget events recorded before the given time
+     * @return number of records removed
+     */
+    public int deleteRecordedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM processed_events WHERE processed_at < ?", Timestamp.valueOf(cutoff));
+    }
+}
@@ -0,0 +1,27 @@
+package com.gnexdrive.metadataservice.service;
+
+import com.gnexdrive.common.event.FileEvent;
+
+import java.util.List;
+
+/**
+ * Skips events that have already been processed, keyed on their event ID
+ */
+public interface EventDeduplicator {
+
+    /**
+     * The events of a poll that have not been processed yet, in their original order;
+     * an event ID appearing twice in the poll is kept once
+     */
+    List<FileEvent> filterNew(List<FileEvent> events, String topic);
+
+    /**
+     * Whether a single event has already been processed
+     */
+    boolean isDuplicate(FileEvent event, String topic);
+
+    /**
+     * Record events as processed, so later deliveries of them are skipped
+     */
+    void markProcessed(List<FileEvent> events, String topic);
+}
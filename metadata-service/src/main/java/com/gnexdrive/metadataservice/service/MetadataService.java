@@ -1,10 +1,11 @@
 package com.gnexdrive.metadataservice.service;
 
+import com.gnexdrive.common.dto.CursorPageDto;
 import com.gnexdrive.common.dto.FileMetadataDto;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import com.gnexdrive.common.dto.StorageReferenceDto;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Service interface for metadata operations
@@ -16,15 +17,39 @@ public interface MetadataService {
      */
     FileMetadataDto saveMetadata(FileMetadataDto metadataDto);
 
+    /**
+     * Save many file records in one batch, skipping versions older than the stored ones
+     * @return number of records written
+     */
+    int saveMetadataBatch(List<FileMetadataDto> metadata);
+
     /**
      * Get file metadata by ID
      */
     FileMetadataDto getMetadata(String fileId);
 
     /**
-     * Get all files for a user
+     * Get metadata for several files at once; unknown IDs are omitted
+     */
+    List<FileMetadataDto> getMetadataBatch(List<String> fileIds);
+
+    /**
+     * Get a user's files one page at a time, continuing after the row a page token points at
+     * @param pageToken token from the previous page, or null for the first page
+     * @param sortBy uploadedAt, fileName or fileSize; ties are broken by file ID
+     * @param includeTotal whether to count all of the user's files as well
+     * @throws IllegalArgumentException for an unknown sort or a token from a differently sorted listing
      */
-    Page<FileMetadataDto> getUserFiles(String userId, Pageable pageable);
+    CursorPageDto<FileMetadataDto> getUserFiles(String userId, String pageToken, int size,
+                                                String sortBy, String sortDir, boolean includeTotal);
+
+    /**
+     * Replace a file's content with its next version, provided the file is still at the version
+     * the new content was built from
+     * @throws com.gnexdrive.common.exception.ResourceNotFoundException if the user has no such live file
+     * @throws IllegalStateException if another version was recorded since baseVersion
+     */
+    FileMetadataDto recordVersion(FileMetadataDto metadataDto, int baseVersion);
 
     /**
      * Update file metadata
@@ -45,4 +70,14 @@ public interface MetadataService {
      * Get user storage statistics
      */
     Object getUserStorageStats(String userId);
+
+    /**
+     * Bytes used by live (non-deleted) files of each user; users without files map to 0
+     */
+    Map<String, Long> getStorageUsage(List<String> userIds);
+
+    /**
+     * Summarize references to several storage objects; objects no record refers to are absent
+     */
+    List<StorageReferenceDto> getStorageReferences(List<String> storagePaths);
 }
@@ -25,14 +25,18 @@ public interface ShareService {
     List<PermissionDto> getResourcePermissions(String resourceType, String resourceId, String requesterId);
 
     /**
-     * Get resources shared with a user
+     * Get one page of files shared with a user, newest share first
+     * @param pageToken nextPageToken of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the page token is invalid
      */
-    List<FileMetadataDto> getFilesSharedWithUser(String userId);
+    CursorPageDto<FileMetadataDto> getFilesSharedWithUser(String userId, String pageToken, int size, boolean includeTotal);
 
     /**
-     * Get folders shared with a user
+     * Get one page of folders shared with a user, newest share first
+     * @param pageToken nextPageToken of the previous page, or null for the first page
+     * @throws IllegalArgumentException if the page token is invalid
      */
-    List<FolderDto> getFoldersSharedWithUser(String userId);
+    CursorPageDto<FolderDto> getFoldersSharedWithUser(String userId, String pageToken, int size, boolean includeTotal);
 
     /**
      * Check if user has permission to access a resource
@@ -0,0 +1,173 @@
+package com.gnexdrive.metadataservice.service.impl;
+
+import com.gnexdrive.common.event.FileEvent;
+import com.gnexdrive.metadataservice.repository.ProcessedEventRepository;
+import com.gnexdrive.metadataservice.service.EventDeduplicator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Event deduplication in two tiers.
+ * The processed_events table is the authority: every event ID of a poll that this
+ * replica has not confirmed itself is checked against it in one query, since other
+ * replicas - before a rebalance, or during a replay - process the same topics.
+ * An in-memory set of the most recent IDs this replica processed or found recorded
+ * lets redeliveries of those skip the query. The set is reloaded from the table on startup.
+ */
+@Slf4j
+@Service
+public class EventDeduplicatorImpl implements EventDeduplicator {
+
+    private final ProcessedEventRepository processedEventRepository;
+    private final MeterRegistry meterRegistry;
+    private final int confirmedCapacity;
+    private final Duration retention;
+    private final Counter lookups;
+
+    /**
+     * Most recently confirmed event IDs, oldest first; guarded by itself
+     */
+    private final LinkedHashMap<String, Boolean> confirmed = new LinkedHashMap<>(1024, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+            return size() > confirmedCapacity;
+        }
+    };
+
+    public EventDeduplicatorImpl(ProcessedEventRepository processedEventRepository,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${metadata.dedup.confirmed-ids:200000}") int confirmedCapacity,
+                                 @Value("${metadata.dedup.retention-days:7}") long retentionDays) {
+        this.processedEventRepository = processedEventRepository;
+        this.meterRegistry = meterRegistry;
+        this.confirmedCapacity = confirmedCapacity;
+        this.retention = Duration.ofDays(retentionDays);
+        this.lookups = Counter.builder("metadata.events.dedup.lookups")
+                .description("Event IDs confirmed against the processed_events table")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Reload the most recently recorded events, so a restart does not query for every redelivery
+     */
+    @PostConstruct
+    void warmUp() {
+        try {
+            List<String> recent = new ArrayList<>();
+            processedEventRepository.forEachRecent(confirmedCapacity, rs -> recent.add(rs.getString(1)));
+            // Newest first from the table; added oldest first so the newest are evicted last
+            confirm(recent.reversed());
+            log.info("Event dedup set loaded with {} recently processed events", recent.size());
+        } catch (Exception e) {
+            // Nothing is skipped wrongly; every event is just checked against the table until the set fills
+            log.warn("Failed to load processed events into the dedup set: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public List<FileEvent> filterNew(List<FileEvent> events, String topic) {
+        Set<String> unconfirmed = new HashSet<>();
+        synchronized (confirmed) {
+            for (FileEvent event : events) {
+                if (event.getEventId() != null && !confirmed.containsKey(event.getEventId())) {
+                    unconfirmed.add(event.getEventId());
+                }
+            }
+        }
+
+        Set<String> recorded = Set.of();
+        if (!unconfirmed.isEmpty()) {
+            lookups.increment(unconfirmed.size());
+            recorded = processedEventRepository.findRecorded(unconfirmed);
+            confirm(recorded);
+        }
+
+        List<FileEvent> fresh = new ArrayList<>(events.size());
+        Set<String> seen = new HashSet<>();
+        int duplicates = 0;
+        for (FileEvent event : events) {
+            String eventId = event.getEventId();
+            if (eventId == null) {
+                fresh.add(event);
+            } else if (!unconfirmed.contains(eventId) || recorded.contains(eventId) || !seen.add(eventId)) {
+                duplicates++;
+            } else {
+                fresh.add(event);
+            }
+        }
+
+        if (duplicates > 0) {
+            log.info("Skipping {} already processed events on {}", duplicates, topic);
+            duplicateCounter(topic).increment(duplicates);
+        }
+        return fresh;
+    }
+
+    @Override
+    public boolean isDuplicate(FileEvent event, String topic) {
+        return filterNew(List.of(event), topic).isEmpty();
+    }
+
+    @Override
+    public void markProcessed(List<FileEvent> events, String topic) {
+        List<String> eventIds = events.stream()
+                .map(FileEvent::getEventId)
+                .filter(eventId -> eventId != null)
+                .distinct()
+                .toList();
+        if (eventIds.isEmpty()) {
+            return;
+        }
+
+        try {
+            processedEventRepository.recordAll(eventIds, topic, LocalDateTime.now());
+        } catch (Exception e) {
+            // The work is done and idempotent; at worst a later replay repeats it
+            log.warn("Failed to record {} processed events on {}: {}", eventIds.size(), topic, e.getMessage());
+        }
+        confirm(eventIds);
+    }
+
+    /**
+     * Forget processed events past the retention period
+     */
+    @Scheduled(fixedDelayString = "${metadata.dedup.cleanup-interval-ms:3600000}")
+    public void purgeExpired() {
+        try {
+            int removed = processedEventRepository.deleteRecordedBefore(LocalDateTime.now().minus(retention));
+            if (removed > 0) {
+                log.info("Purged {} processed event records older than {}", removed, retention);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to purge processed event records: {}", e.getMessage());
+        }
+    }
+
+    private void confirm(Collection<String> eventIds) {
+        synchronized (confirmed) {
+            eventIds.forEach(eventId -> confirmed.put(eventId, Boolean.TRUE));
+        }
+    }
+
+    private Counter duplicateCounter(String topic) {
+        return Counter.builder("metadata.events.duplicates")
+                .description("Redelivered or replayed events skipped")
+                .tag("topic", topic)
+                .register(meterRegistry);
+    }
+}
@@ -1,20 +1,36 @@
 package com.gnexdrive.metadataservice.service.impl;
 
+import com.gnexdrive.common.dto.CursorPageDto;
 import com.gnexdrive.common.dto.FileMetadataDto;
+import com.gnexdrive.common.dto.StorageReferenceDto;
+import com.gnexdrive.metadataservice.cache.CacheInvalidationBus;
 import com.gnexdrive.metadataservice.config.RedisConfig;
+import com.gnexdrive.metadataservice.repository.FileMetadataBatchRepository;
 import com.gnexdrive.metadataservice.repository.FileMetadataRepository;
 import com.gnexdrive.metadataservice.service.MetadataService;
+import com.gnexdrive.metadataservice.util.PageTokenCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.redis.cache.CacheKeyPrefix;
+import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Implementation of Metadata Service
@@ -26,16 +42,31 @@ public class MetadataServiceImpl implements MetadataService {
 
     private final FileMetadataRepository fileMetadataRepository;
     private final com.gnexdrive.metadataservice.mapper.FileMetadataMapper fileMetadataMapper;
+    private final FileMetadataBatchRepository fileMetadataBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     @Override
     @Transactional
     @Caching(evict = {
+        @CacheEvict(value = RedisConfig.CACHE_FILE_METADATA, key = "#metadataDto.fileId"),
         @CacheEvict(value = RedisConfig.CACHE_USER_FILES, key = "#metadataDto.ownerId")
     })
     public FileMetadataDto saveMetadata(FileMetadataDto metadataDto) {
         log.info("Saving metadata for file: {}", metadataDto.getFileId());
         
         try {
+            // A new version replaces the record; a late or redelivered event for an older one must not
+            com.gnexdrive.metadataservice.entity.FileMetadata existing =
+                    fileMetadataRepository.findById(metadataDto.getFileId()).orElse(null);
+            if (existing != null && existing.getVersion() != null && metadataDto.getVersion() != null
+                    && metadataDto.getVersion() < existing.getVersion()) {
+                log.info("Ignoring stale version {} of file {}, current version is {}",
+                        metadataDto.getVersion(), metadataDto.getFileId(), existing.getVersion());
+                return fileMetadataMapper.toDto(existing);
+            }
+            
             // Convert DTO to entity
             com.gnexdrive.metadataservice.entity.FileMetadata entity = fileMetadataMapper.toEntity(metadataDto);
             
@@ -50,6 +81,50 @@ public class MetadataServiceImpl implements MetadataService {
         }
     }
 
+    @Override
+    public int saveMetadataBatch(List<FileMetadataDto> metadata) {
+        // One row per file: a poll can hold several versions of a file, the newest wins
+        Map<String, FileMetadataDto> latest = new LinkedHashMap<>();
+        for (FileMetadataDto dto : metadata) {
+            latest.merge(dto.getFileId(), dto, (current, next) ->
+                    next.getVersion() != null && current.getVersion() != null
+                            && next.getVersion() < current.getVersion() ? current : next);
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<com.gnexdrive.metadataservice.entity.FileMetadata> entities = latest.values().stream()
+                .map(dto -> {
+                    com.gnexdrive.metadataservice.entity.FileMetadata entity = fileMetadataMapper.toEntity(dto);
+                    // Auditing only fills these for JPA saves
+                    entity.setUploadedAt(entity.getUploadedAt() != null ? entity.getUploadedAt() : now);
+                    entity.setModifiedAt(now);
+                    return entity;
+                })
+                .toList();
+        
+        Integer written = transactionTemplate.execute(status -> fileMetadataBatchRepository.upsertAll(entities));
+        
+        // Evict after commit, in one round trip: every file's entry and each owner's listing once
+        Set<String> keys = new HashSet<>();
+        String fileKeyPrefix = CacheKeyPrefix.simple().compute(RedisConfig.CACHE_FILE_METADATA);
+        String ownerKeyPrefix = CacheKeyPrefix.simple().compute(RedisConfig.CACHE_USER_FILES);
+        entities.forEach(entity -> {
+            keys.add(fileKeyPrefix + entity.getFileId());
+            keys.add(ownerKeyPrefix + entity.getOwnerId());
+        });
+        try {
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            // The rows are committed; stale entries expire with their TTL
+            log.warn("Failed to evict cached metadata for batch: {}", e.getMessage());
+        }
+        // The near cache tier of every replica, which the DEL above does not reach
+        cacheInvalidationBus.invalidate(RedisConfig.CACHE_FILE_METADATA, latest.keySet());
+
+        log.info("Saved metadata batch: received={}, files={}, written={}", metadata.size(), entities.size(), written);
+        return written != null ? written : 0;
+    }
+
     @Override
     @Transactional(readOnly = true)
     @Cacheable(value = RedisConfig.CACHE_FILE_METADATA, key = "#fileId")
@@ -69,12 +144,96 @@ public class MetadataServiceImpl implements MetadataService {
 
     @Override
     @Transactional(readOnly = true)
-    public Page<FileMetadataDto> getUserFiles(String userId, Pageable pageable) {
-        log.info("Fetching files for user: {} with page: {}, size: {}", userId, pageable.getPageNumber(), pageable.getPageSize());
+    public List<FileMetadataDto> getMetadataBatch(List<String> fileIds) {
+        log.debug("Fetching metadata for {} files", fileIds.size());
+        
+        return fileMetadataRepository.findAllById(fileIds).stream()
+                .map(fileMetadataMapper::toDto)
+                .toList();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPageDto<FileMetadataDto> getUserFiles(String userId, String pageToken, int size,
+                                                       String sortBy, String sortDir, boolean includeTotal) {
+        log.info("Fetching files for user: {} with size: {}, sort: {} {}, continued: {}",
+                userId, size, sortBy, sortDir, pageToken != null);
+        
+        if (!PageTokenCodec.SORT_PROPERTIES.containsKey(sortBy)) {
+            throw new IllegalArgumentException("Files cannot be sorted by " + sortBy
+                    + "; use one of " + PageTokenCodec.SORT_PROPERTIES.keySet());
+        }
+        Sort.Direction direction = "ASC".equalsIgnoreCase(sortDir) ? Sort.Direction.ASC : Sort.Direction.DESC;
         
-        Page<com.gnexdrive.metadataservice.entity.FileMetadata> entityPage = fileMetadataRepository.findByOwnerId(userId, pageable);
+        // Keyset pagination: the next page is "rows after the last one", found by index seek at any depth
+        ScrollPosition position = ScrollPosition.keyset();
+        if (pageToken != null && !pageToken.isBlank()) {
+            PageTokenCodec.PageToken token = PageTokenCodec.decode(pageToken);
+            if (!sortBy.equals(token.sortBy()) || !direction.name().equals(token.sortDir())) {
+                throw new IllegalArgumentException("Page token belongs to a listing with a different sort");
+            }
+            position = ScrollPosition.forward(Map.of(sortBy, PageTokenCodec.sortValue(token), "fileId", token.id()));
+        }
         
-        return entityPage.map(fileMetadataMapper::toDto);
+        Window<com.gnexdrive.metadataservice.entity.FileMetadata> window = fileMetadataRepository.findByOwnerId(
+                userId, position, Sort.by(direction, sortBy).and(Sort.by(direction, "fileId")), Limit.of(size));
+        
+        String nextPageToken = null;
+        if (window.hasNext() && !window.isEmpty()) {
+            com.gnexdrive.metadataservice.entity.FileMetadata last = window.getContent().get(window.size() - 1);
+            nextPageToken = PageTokenCodec.encode(
+                    new PageTokenCodec.PageToken(sortBy, direction.name(), sortValue(last, sortBy), last.getFileId()));
+        }
+        
+        return CursorPageDto.<FileMetadataDto>builder()
+                .content(window.getContent().stream().map(fileMetadataMapper::toDto).toList())
+                .size(size)
+                .nextPageToken(nextPageToken)
+                .totalElements(includeTotal ? fileMetadataRepository.countByOwnerId(userId) : null)
+                .build();
+    }
+
+    private String sortValue(com.gnexdrive.metadataservice.entity.FileMetadata file, String sortBy) {
+        return switch (sortBy) {
+            case "uploadedAt" -> file.getUploadedAt().toString();
+            case "fileSize" -> String.valueOf(file.getFileSize());
+            default -> file.getFileName();
+        };
+    }
+
+    @Override
+    @Transactional
+    @Caching(evict = {
+        @CacheEvict(value = RedisConfig.CACHE_FILE_METADATA, key = "#metadataDto.fileId"),
+        @CacheEvict(value = RedisConfig.CACHE_USER_FILES, key = "#metadataDto.ownerId")
+    })
+    public FileMetadataDto recordVersion(FileMetadataDto metadataDto, int baseVersion) {
+        log.info("Recording version {} of file {} over version {}",
+                metadataDto.getVersion(), metadataDto.getFileId(), baseVersion);
+        
+        // The row lock makes the version check and the update one step for concurrent writers
+        com.gnexdrive.metadataservice.entity.FileMetadata existing = fileMetadataRepository.findByIdForUpdate(metadataDto.getFileId())
+                .filter(file -> file.getOwnerId().equals(metadataDto.getOwnerId()))
+                .filter(file -> file.getStatus() != com.gnexdrive.metadataservice.entity.FileMetadata.FileStatus.DELETED)
+                .orElseThrow(() -> new com.gnexdrive.common.exception.ResourceNotFoundException(
+                        "File not found: " + metadataDto.getFileId()));
+        int currentVersion = existing.getVersion() != null ? existing.getVersion() : 1;
+        if (currentVersion != baseVersion) {
+            throw new IllegalStateException(String.format(
+                    "File %s is at version %d, not %d", metadataDto.getFileId(), currentVersion, baseVersion));
+        }
+        
+        existing.setFileSize(metadataDto.getFileSize());
+        existing.setStoragePath(metadataDto.getStoragePath());
+        existing.setChecksum(metadataDto.getChecksum());
+        existing.setVersion(metadataDto.getVersion());
+        if (metadataDto.getStatus() != null) {
+            existing.setStatus(com.gnexdrive.metadataservice.entity.FileMetadata.FileStatus.valueOf(metadataDto.getStatus()));
+        }
+        
+        com.gnexdrive.metadataservice.entity.FileMetadata updated = fileMetadataRepository.save(existing);
+        log.info("Version {} of file {} recorded", updated.getVersion(), updated.getFileId());
+        return fileMetadataMapper.toDto(updated);
     }
 
     @Override
@@ -161,4 +320,43 @@ public class MetadataServiceImpl implements MetadataService {
             "totalStorageFormatted", com.gnexdrive.common.util.FileUtils.formatFileSize(totalStorage != null ? totalStorage : 0L)
         );
     }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<String, Long> getStorageUsage(List<String> userIds) {
+        log.debug("Summing storage usage for {} users", userIds.size());
+        
+        Map<String, Long> usage = new HashMap<>();
+        userIds.forEach(userId -> usage.put(userId, 0L));
+        if (userIds.isEmpty()) {
+            return usage;
+        }
+        
+        fileMetadataRepository.sumLiveStorageByOwners(
+                        userIds, com.gnexdrive.metadataservice.entity.FileMetadata.FileStatus.DELETED)
+                .forEach(summary -> usage.put(summary.getOwnerId(),
+                        summary.getUsedBytes() == null ? 0L : summary.getUsedBytes()));
+        return usage;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<StorageReferenceDto> getStorageReferences(List<String> storagePaths) {
+        log.debug("Summarizing references to {} storage paths", storagePaths.size());
+        
+        if (storagePaths.isEmpty()) {
+            return List.of();
+        }
+        
+        return fileMetadataRepository.summarizeStorageReferences(
+                        storagePaths, com.gnexdrive.metadataservice.entity.FileMetadata.FileStatus.DELETED)
+                .stream()
+                .map(summary -> StorageReferenceDto.builder()
+                        .storagePath(summary.getStoragePath())
+                        .liveReferences(summary.getLiveReferences() == null ? 0 : summary.getLiveReferences())
+                        .deletedReferences(summary.getDeletedReferences() == null ? 0 : summary.getDeletedReferences())
+                        .lastDeletedAt(summary.getLastDeletedAt())
+                        .build())
+                .toList();
+    }
 }
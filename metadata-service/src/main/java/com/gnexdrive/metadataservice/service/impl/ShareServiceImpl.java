@@ -3,22 +3,23 @@ package com.gnexdrive.metadataservice.service.impl;
 import com.gnexdrive.common.dto.*;
 import com.gnexdrive.common.exception.ResourceNotFoundException;
 import com.gnexdrive.common.exception.UnauthorizedException;
-import com.gnexdrive.metadataservice.entity.FileMetadata;
 import com.gnexdrive.metadataservice.entity.Folder;
 import com.gnexdrive.metadataservice.entity.Permission;
 import com.gnexdrive.metadataservice.entity.ShareLink;
 import com.gnexdrive.metadataservice.mapper.FileMetadataMapper;
 import com.gnexdrive.metadataservice.repository.*;
 import com.gnexdrive.metadataservice.service.ShareService;
+import com.gnexdrive.metadataservice.util.PageTokenCodec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Slf4j
@@ -26,6 +27,11 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class ShareServiceImpl implements ShareService {
 
+    /**
+     * Shared-with-me listings are ordered by share time, newest first
+     */
+    private static final String SHARED_SORT = "grantedAt";
+
     private final PermissionRepository permissionRepository;
     private final ShareLinkRepository shareLinkRepository;
     private final FileMetadataRepository fileMetadataRepository;
@@ -101,48 +107,89 @@ public class ShareServiceImpl implements ShareService {
             throw new UnauthorizedException("You don't have access to this resource");
         }
 
+        String resourceName = resourceName(type, resourceId);
         return permissionRepository.findByResourceTypeAndResourceId(type, resourceId)
                 .stream()
-                .map(this::toDto)
+                .map(permission -> toDto(permission, resourceName))
                 .collect(Collectors.toList());
     }
 
     @Override
-    public List<FileMetadataDto> getFilesSharedWithUser(String userId) {
-        log.info("Getting files shared with user {}", userId);
-        
-        List<Permission> permissions = permissionRepository.findActivePermissionsByGranteeId(userId);
-        List<FileMetadataDto> sharedFiles = new ArrayList<>();
-
-        for (Permission permission : permissions) {
-            if (permission.getResourceType() == Permission.ResourceType.FILE) {
-                fileMetadataRepository.findById(permission.getResourceId())
-                        .ifPresent(file -> {
-                            FileMetadataDto dto = fileMetadataMapper.toDto(file);
-                            dto.setSharedWith(permission.getGranteeEmail());
-                            sharedFiles.add(dto);
-                        });
-            }
-        }
-
-        return sharedFiles;
+    @Transactional(readOnly = true)
+    public CursorPageDto<FileMetadataDto> getFilesSharedWithUser(String userId, String pageToken, int size,
+                                                                 boolean includeTotal) {
+        log.info("Getting files shared with user {} with size: {}, continued: {}", userId, size, pageToken != null);
+
+        // One joined query per page; the extra row only tells whether another page follows
+        PageTokenCodec.PageToken token = decodeSharedToken(pageToken);
+        List<PermissionRepository.SharedFile> rows = token == null
+                ? permissionRepository.findSharedFiles(userId, Limit.of(size + 1))
+                : permissionRepository.findSharedFilesAfter(userId, grantedAt(token), token.id(), Limit.of(size + 1));
+
+        List<FileMetadataDto> sharedFiles = rows.stream()
+                .limit(size)
+                .map(row -> {
+                    FileMetadataDto dto = fileMetadataMapper.toDto(row.getFile());
+                    dto.setSharedWith(row.getPermission().getGranteeEmail());
+                    dto.setPermission(row.getPermission().getRole().name());
+                    return dto;
+                })
+                .toList();
+
+        return CursorPageDto.<FileMetadataDto>builder()
+                .content(sharedFiles)
+                .size(size)
+                .nextPageToken(rows.size() > size ? sharedToken(rows.get(size - 1).getPermission()) : null)
+                .totalElements(includeTotal ? permissionRepository.countSharedFiles(userId) : null)
+                .build();
     }
 
     @Override
-    public List<FolderDto> getFoldersSharedWithUser(String userId) {
-        log.info("Getting folders shared with user {}", userId);
-        
-        List<Permission> permissions = permissionRepository.findActivePermissionsByGranteeId(userId);
-        List<FolderDto> sharedFolders = new ArrayList<>();
+    @Transactional(readOnly = true)
+    public CursorPageDto<FolderDto> getFoldersSharedWithUser(String userId, String pageToken, int size,
+                                                             boolean includeTotal) {
+        log.info("Getting folders shared with user {} with size: {}, continued: {}", userId, size, pageToken != null);
+
+        PageTokenCodec.PageToken token = decodeSharedToken(pageToken);
+        List<PermissionRepository.SharedFolder> rows = token == null
+                ? permissionRepository.findSharedFolders(userId, Limit.of(size + 1))
+                : permissionRepository.findSharedFoldersAfter(userId, grantedAt(token), token.id(), Limit.of(size + 1));
+
+        List<FolderDto> sharedFolders = rows.stream()
+                .limit(size)
+                .map(row -> toFolderDto(row.getFolder(), row.getPermission()))
+                .toList();
+
+        return CursorPageDto.<FolderDto>builder()
+                .content(sharedFolders)
+                .size(size)
+                .nextPageToken(rows.size() > size ? sharedToken(rows.get(size - 1).getPermission()) : null)
+                .totalElements(includeTotal ? permissionRepository.countSharedFolders(userId) : null)
+                .build();
+    }
 
-        for (Permission permission : permissions) {
-            if (permission.getResourceType() == Permission.ResourceType.FOLDER) {
-                folderRepository.findById(permission.getResourceId())
-                        .ifPresent(folder -> sharedFolders.add(toFolderDto(folder, permission)));
-            }
+    private PageTokenCodec.PageToken decodeSharedToken(String pageToken) {
+        if (pageToken == null || pageToken.isBlank()) {
+            return null;
         }
+        PageTokenCodec.PageToken token = PageTokenCodec.decode(pageToken);
+        if (!SHARED_SORT.equals(token.sortBy())) {
+            throw new IllegalArgumentException("Page token belongs to a different listing");
+        }
+        return token;
+    }
+
+    private LocalDateTime grantedAt(PageTokenCodec.PageToken token) {
+        try {
+            return LocalDateTime.parse(token.value());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
 
-        return sharedFolders;
+    private String sharedToken(Permission last) {
+        return PageTokenCodec.encode(new PageTokenCodec.PageToken(
+                SHARED_SORT, "DESC", last.getGrantedAt().toString(), last.getPermissionId()));
     }
 
     @Override
@@ -268,9 +315,10 @@ public class ShareServiceImpl implements ShareService {
             throw new UnauthorizedException("You don't have access to view share links for this resource");
         }
 
+        String resourceName = resourceName(type, resourceId);
         return shareLinkRepository.findByResourceTypeAndResourceIdAndIsActiveTrue(type, resourceId)
                 .stream()
-                .map(this::toShareLinkDto)
+                .map(shareLink -> toShareLinkDto(shareLink, resourceName))
                 .collect(Collectors.toList());
     }
 
@@ -326,18 +374,21 @@ public class ShareServiceImpl implements ShareService {
                 .orElse(null);
     }
 
+    /**
+     * Name of a shared file or folder, read without loading the record
+     */
+    private String resourceName(Permission.ResourceType resourceType, String resourceId) {
+        Optional<String> name = resourceType == Permission.ResourceType.FILE
+                ? fileMetadataRepository.findFileNameByFileId(resourceId)
+                : folderRepository.findFolderNameByFolderId(resourceId);
+        return name.orElse("Unknown");
+    }
+
     private PermissionDto toDto(Permission permission) {
-        String resourceName = "";
-        if (permission.getResourceType() == Permission.ResourceType.FILE) {
-            resourceName = fileMetadataRepository.findById(permission.getResourceId())
-                    .map(FileMetadata::getFileName)
-                    .orElse("Unknown");
-        } else {
-            resourceName = folderRepository.findById(permission.getResourceId())
-                    .map(Folder::getFolderName)
-                    .orElse("Unknown");
-        }
+        return toDto(permission, resourceName(permission.getResourceType(), permission.getResourceId()));
+    }
 
+    private PermissionDto toDto(Permission permission, String resourceName) {
         return PermissionDto.builder()
                 .permissionId(permission.getPermissionId())
                 .resourceType(permission.getResourceType().name())
@@ -372,17 +423,10 @@ public class ShareServiceImpl implements ShareService {
     }
 
     private ShareLinkDto toShareLinkDto(ShareLink shareLink) {
-        String resourceName = "";
-        if (shareLink.getResourceType() == Permission.ResourceType.FILE) {
-            resourceName = fileMetadataRepository.findById(shareLink.getResourceId())
-                    .map(FileMetadata::getFileName)
-                    .orElse("Unknown");
-        } else {
-            resourceName = folderRepository.findById(shareLink.getResourceId())
-                    .map(Folder::getFolderName)
-                    .orElse("Unknown");
-        }
+        return toShareLinkDto(shareLink, resourceName(shareLink.getResourceType(), shareLink.getResourceId()));
+    }
 
+    private ShareLinkDto toShareLinkDto(ShareLink shareLink, String resourceName) {
         return ShareLinkDto.builder()
                 .linkId(shareLink.getLinkId())
                 .token(shareLink.getToken())
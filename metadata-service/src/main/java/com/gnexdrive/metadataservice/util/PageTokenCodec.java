@@ -0,0 +1,75 @@
+package com.gnexdrive.metadataservice.util;
+
+import com.fasterxml.jackson.annotation.JsonAlias;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Opaque page tokens for keyset pagination.
+ * A token carries the sort the listing was started with and the sort key and ID
+ * of the last row returned; the next page starts right after that row. Tokens are
+ * only encoded, not signed: they hold nothing the caller could not see on the page.
+ */
+public class PageTokenCodec {
+
+    /**
+     * Sortable properties and how to read their values back from a token
+     */
+    public static final Map<String, Function<String, Object>> SORT_PROPERTIES = Map.of(
+            "uploadedAt", LocalDateTime::parse,
+            "fileName", value -> value,
+            "fileSize", Long::valueOf);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private PageTokenCodec() {
+    }
+
+    /**
+     * Position after a row; tokens issued before the ID was renamed still carry it as fileId
+     */
+    public record PageToken(String sortBy, String sortDir, String value, @JsonAlias("fileId") String id) {
+    }
+
+    public static String encode(PageToken token) {
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(token));
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to encode page token", e);
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static PageToken decode(String token) {
+        try {
+            PageToken decoded = MAPPER.readValue(
+                    new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8), PageToken.class);
+            if (decoded.sortBy() == null || decoded.value() == null || decoded.id() == null) {
+                throw new IllegalArgumentException("Invalid page token");
+            }
+            return decoded;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+
+    /**
+     * The token's sort key value, typed like the entity property
+     */
+    public static Object sortValue(PageToken token) {
+        try {
+            return SORT_PROPERTIES.get(token.sortBy()).apply(token.value());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid page token", e);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.gnexdrive.metadataservice.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PageTokenCodecTest {
+
+    @Test
+    void testEncodeAndDecodeToken() {
+        PageTokenCodec.PageToken token = new PageTokenCodec.PageToken(
+                "uploadedAt", "DESC", "2024-01-15T10:30:00", "file123");
+
+        String encoded = PageTokenCodec.encode(token);
+
+        assertNotNull(encoded);
+        // Safe to pass as a query parameter as is
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+        assertEquals(token, PageTokenCodec.decode(encoded));
+    }
+
+    @Test
+    void testSortValueIsTypedLikeTheProperty() {
+        assertEquals(LocalDateTime.of(2024, 1, 15, 10, 30), PageTokenCodec.sortValue(
+                new PageTokenCodec.PageToken("uploadedAt", "DESC", "2024-01-15T10:30:00", "file123")));
+        assertEquals(1024L, PageTokenCodec.sortValue(
+                new PageTokenCodec.PageToken("fileSize", "ASC", "1024", "file123")));
+        assertEquals("report.pdf", PageTokenCodec.sortValue(
+                new PageTokenCodec.PageToken("fileName", "ASC", "report.pdf", "file123")));
+    }
+
+    @Test
+    void testDecodeTokenWithOldIdField() {
+        String token = encodeJson("{\"sortBy\":\"fileName\",\"sortDir\":\"ASC\",\"value\":\"report.pdf\",\"fileId\":\"file123\"}");
+
+        assertEquals("file123", PageTokenCodec.decode(token).id());
+    }
+
+    @Test
+    void testMalformedToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.decode("not a token!"));
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.decode(encodeJson("not json")));
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.decode(encodeJson("[1, 2, 3]")));
+    }
+
+    @Test
+    void testIncompleteToken() {
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.decode(
+                encodeJson("{\"sortBy\":\"fileName\",\"sortDir\":\"ASC\",\"value\":\"report.pdf\"}")));
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.decode(
+                encodeJson("{\"sortDir\":\"ASC\",\"value\":\"report.pdf\",\"id\":\"file123\"}")));
+    }
+
+    @Test
+    void testForeignToken() {
+        // JSON of something else entirely
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.decode(
+                encodeJson("{\"userId\":\"user123\",\"exp\":1700000000}")));
+
+        // A well-formed token of a listing sorted by a property files cannot be sorted by
+        PageTokenCodec.PageToken shared = PageTokenCodec.decode(PageTokenCodec.encode(
+                new PageTokenCodec.PageToken("grantedAt", "DESC", "2024-01-15T10:30:00", "permission123")));
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.sortValue(shared));
+
+        // A sort key value that does not parse as the property's type
+        assertThrows(IllegalArgumentException.class, () -> PageTokenCodec.sortValue(
+                new PageTokenCodec.PageToken("fileSize", "ASC", "large", "file123")));
+    }
+
+    private static String encodeJson(String json) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(json.getBytes(StandardCharsets.UTF_8));
+    }
+}